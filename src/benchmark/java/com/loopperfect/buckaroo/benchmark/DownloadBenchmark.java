@@ -0,0 +1,218 @@
+package com.loopperfect.buckaroo.benchmark;
+
+import com.loopperfect.buckaroo.tasks.DownloadTask;
+import com.loopperfect.buckaroo.tasks.SharedHttpClient;
+import com.sun.net.httpserver.HttpsConfigurator;
+import com.sun.net.httpserver.HttpsServer;
+import io.reactivex.Observable;
+import okhttp3.OkHttpClient;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSocketFactory;
+import javax.net.ssl.TrustManagerFactory;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URL;
+import java.security.KeyStore;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measures the connection set-up of an install with many dependencies.
+ *
+ * Each invocation downloads one small file per dependency from a local HTTPS server, either
+ * with a new client for every download or through one shared client. The handshakes counter
+ * is the number of TLS connections opened over each iteration.
+ *
+ *   buck run //:buckaroo-benchmark -- DownloadBenchmark
+ *   buck run //:buckaroo-benchmark -- DownloadBenchmark -p client=SHARED -p dependencies=30
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DownloadBenchmark {
+
+    private static final char[] KEY_STORE_PASSWORD = "buckaroo".toCharArray();
+
+    // The same as the scheduler in Main
+    private static final int CONCURRENCY = 10;
+
+    public enum Client {
+        FRESH,
+        SHARED
+    }
+
+    @Param
+    public Client client;
+
+    @Param({ "100" })
+    public int dependencies;
+
+    @Param({ "4096" })
+    public int fileSize;
+
+    private ExecutorService executor;
+    private HttpsServer server;
+    private String root;
+    private SSLSocketFactory sockets;
+    private SharedHttpClient shared;
+
+    private final AtomicLong handshakes = new AtomicLong();
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Counters {
+
+        public long handshakes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            handshakes = 0;
+        }
+    }
+
+    /**
+     * Counts the TLS sockets that are opened, each of which costs a handshake.
+     * The field is named delegate so that OkHttp can find the trust manager through it.
+     */
+    private static final class CountingSSLSocketFactory extends SSLSocketFactory {
+
+        private final SSLSocketFactory delegate;
+        private final AtomicLong count;
+
+        private CountingSSLSocketFactory(final SSLSocketFactory delegate, final AtomicLong count) {
+            this.delegate = delegate;
+            this.count = count;
+        }
+
+        @Override
+        public String[] getDefaultCipherSuites() {
+            return delegate.getDefaultCipherSuites();
+        }
+
+        @Override
+        public String[] getSupportedCipherSuites() {
+            return delegate.getSupportedCipherSuites();
+        }
+
+        @Override
+        public Socket createSocket(final Socket socket, final String host, final int port, final boolean autoClose) throws IOException {
+            count.incrementAndGet();
+            return delegate.createSocket(socket, host, port, autoClose);
+        }
+
+        @Override
+        public Socket createSocket(final String host, final int port) throws IOException {
+            count.incrementAndGet();
+            return delegate.createSocket(host, port);
+        }
+
+        @Override
+        public Socket createSocket(final String host, final int port, final InetAddress localHost, final int localPort) throws IOException {
+            count.incrementAndGet();
+            return delegate.createSocket(host, port, localHost, localPort);
+        }
+
+        @Override
+        public Socket createSocket(final InetAddress host, final int port) throws IOException {
+            count.incrementAndGet();
+            return delegate.createSocket(host, port);
+        }
+
+        @Override
+        public Socket createSocket(final InetAddress address, final int port, final InetAddress localAddress, final int localPort) throws IOException {
+            count.incrementAndGet();
+            return delegate.createSocket(address, port, localAddress, localPort);
+        }
+    }
+
+    private OkHttpClient newClient() {
+        return SharedHttpClient.builder()
+            .sslSocketFactory(sockets)
+            .build();
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+
+        // A self-signed certificate for 127.0.0.1, which the clients are told to trust
+        final KeyStore keyStore = KeyStore.getInstance("JKS");
+
+        try (final InputStream input = DownloadBenchmark.class.getResourceAsStream("localhost.jks")) {
+            keyStore.load(input, KEY_STORE_PASSWORD);
+        }
+
+        final KeyManagerFactory keyManagerFactory = KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm());
+        keyManagerFactory.init(keyStore, KEY_STORE_PASSWORD);
+
+        final TrustManagerFactory trustManagerFactory = TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
+        trustManagerFactory.init(keyStore);
+
+        final SSLContext serverContext = SSLContext.getInstance("TLS");
+        serverContext.init(keyManagerFactory.getKeyManagers(), null, null);
+
+        final SSLContext clientContext = SSLContext.getInstance("TLS");
+        clientContext.init(null, trustManagerFactory.getTrustManagers(), null);
+
+        final byte[] file = new byte[fileSize];
+
+        // Otherwise the server waits on delayed acknowledgements, which would swamp the measurement
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+
+        executor = Executors.newFixedThreadPool(CONCURRENCY * 2);
+
+        server = HttpsServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setHttpsConfigurator(new HttpsConfigurator(serverContext));
+        server.setExecutor(executor);
+        server.createContext("/", exchange -> {
+            exchange.sendResponseHeaders(200, file.length);
+            try (final OutputStream output = exchange.getResponseBody()) {
+                output.write(file);
+            }
+        });
+        server.start();
+
+        root = "https://127.0.0.1:" + server.getAddress().getPort();
+        sockets = new CountingSSLSocketFactory(clientContext.getSocketFactory(), handshakes);
+        shared = SharedHttpClient.of(newClient(), SharedHttpClient.DEFAULT_MAX_REQUESTS_PER_HOST);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    @Benchmark
+    public void install(final Counters counters, final Blackhole blackhole) {
+
+        handshakes.set(0);
+
+        blackhole.consume(Observable.range(0, dependencies)
+            .flatMap(
+                i -> DownloadTask.download(
+                    new URL(root + "/dependency-" + i + "/BUCK"),
+                    new ByteArrayOutputStream(),
+                    client == Client.SHARED ?
+                        shared :
+                        SharedHttpClient.of(newClient(), SharedHttpClient.DEFAULT_MAX_REQUESTS_PER_HOST)),
+                CONCURRENCY)
+            .count()
+            .blockingGet());
+
+        counters.handshakes += handshakes.get();
+    }
+}
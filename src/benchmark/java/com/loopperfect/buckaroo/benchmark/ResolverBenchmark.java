@@ -0,0 +1,111 @@
+package com.loopperfect.buckaroo.benchmark;
+
+import com.loopperfect.buckaroo.*;
+import com.loopperfect.buckaroo.resolver.ResolverEngine;
+import com.loopperfect.buckaroo.sources.CookbookRecipeSource;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measures how long each resolver takes over generated cookbooks.
+ *
+ * Run with -prof gc to also report allocations. The fetches counter is the total
+ * number of recipes requested over each iteration, which tracks the branches explored.
+ *
+ *   buck run //:buckaroo-benchmark -- -prof gc
+ *   buck run //:buckaroo-benchmark -- -p engine=ASYNC -p shape=DEEP_CONFLICT -p recipes=12
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ResolverBenchmark {
+
+    public enum Shape {
+        RANDOM,
+        DEEP_CONFLICT,
+        WIDE_DIAMOND
+    }
+
+    @Param
+    public ResolverEngine engine;
+
+    @Param
+    public Shape shape;
+
+    @Param({ "8" })
+    public int recipes;
+
+    @Param({ "3" })
+    public int versions;
+
+    @Param({ "2" })
+    public int fanOut;
+
+    @Param({ "0.5" })
+    public double diamondDensity;
+
+    @Param({ "0.25" })
+    public double conflictDensity;
+
+    private SyntheticCookbook synthetic;
+    private RecipeSource recipeSource;
+
+    private final AtomicLong fetches = new AtomicLong();
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Counters {
+
+        public long fetches;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            fetches = 0;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+
+        switch (shape) {
+            case DEEP_CONFLICT:
+                synthetic = SyntheticCookbook.deepConflict(recipes, versions);
+                break;
+            case WIDE_DIAMOND:
+                synthetic = SyntheticCookbook.wideDiamond(recipes, versions);
+                break;
+            default:
+                synthetic = SyntheticCookbook.random(recipes, versions, fanOut, diamondDensity, conflictDensity, 42L);
+                break;
+        }
+
+        final RecipeSource cookbookRecipeSource = CookbookRecipeSource.of(synthetic.cookbook);
+
+        recipeSource = identifier -> {
+            fetches.incrementAndGet();
+            return cookbookRecipeSource.fetch(identifier);
+        };
+    }
+
+    @Benchmark
+    public void resolve(final Counters counters, final Blackhole blackhole) {
+
+        fetches.set(0);
+
+        // Unsatisfiable graphs are still interesting to measure, so failures are consumed too
+        blackhole.consume(engine.resolver()
+            .resolve(recipeSource, synthetic.dependencies)
+            .result()
+            .map(Either::<Throwable, ResolvedDependencies>right)
+            .onErrorReturn(Either::left)
+            .blockingGet());
+
+        counters.fetches += fetches.get();
+    }
+}
@@ -0,0 +1,158 @@
+package com.loopperfect.buckaroo.benchmark;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.loopperfect.buckaroo.*;
+import com.loopperfect.buckaroo.versioning.AnySemanticVersion;
+import com.loopperfect.buckaroo.versioning.BoundedSemanticVersion;
+import com.loopperfect.buckaroo.versioning.ExactSemanticVersion;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.BiFunction;
+
+/**
+ * A generated cookbook, together with the dependencies of the project being resolved.
+ *
+ * Recipes are named recipe-0, recipe-1, ... and only ever depend on recipes with a higher index,
+ * so every generated graph is acyclic.
+ */
+public final class SyntheticCookbook {
+
+    public static final Identifier ORGANIZATION = Identifier.of("synthetic");
+
+    public final Cookbook cookbook;
+    public final ImmutableList<Dependency> dependencies;
+
+    private SyntheticCookbook(final Cookbook cookbook, final ImmutableList<Dependency> dependencies) {
+        this.cookbook = Preconditions.checkNotNull(cookbook);
+        this.dependencies = Preconditions.checkNotNull(dependencies);
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+            .add("cookbook", cookbook)
+            .add("dependencies", dependencies)
+            .toString();
+    }
+
+    public static RecipeIdentifier identifier(final int index) {
+        Preconditions.checkArgument(index >= 0);
+        return RecipeIdentifier.of(ORGANIZATION, Identifier.of("recipe-" + index));
+    }
+
+    private static Cookbook cookbook(
+        final int recipes,
+        final int versions,
+        final BiFunction<Integer, Integer, ImmutableMap<RecipeIdentifier, SemanticVersionRequirement>> dependencies) {
+
+        final ImmutableMap.Builder<Identifier, Recipe> builder = ImmutableMap.builder();
+
+        for (int i = 0; i < recipes; i++) {
+            final RecipeIdentifier identifier = identifier(i);
+            final ImmutableMap.Builder<SemanticVersion, RecipeVersion> recipeVersions = ImmutableMap.builder();
+            for (int v = 0; v < versions; v++) {
+                recipeVersions.put(
+                    SemanticVersion.of(v),
+                    RecipeVersion.of(
+                        GitCommit.of(
+                            "https://github.com/synthetic/" + identifier.recipe.name,
+                            String.format("%08x%08x", i, v)),
+                        DependencyGroup.of(dependencies.apply(i, v))));
+            }
+            builder.put(
+                identifier.recipe,
+                Recipe.of(identifier.recipe.name, "https://github.com/synthetic/" + identifier.recipe.name, recipeVersions.build()));
+        }
+
+        return Cookbook.of(ImmutableMap.of(ORGANIZATION, Organization.of("Synthetic", builder.build())));
+    }
+
+    /**
+     * A random graph.
+     *
+     * @param fanOut the number of dependencies of each recipe version.
+     * @param diamondDensity the probability that a dependency is drawn from the few recipes
+     *                       just after the depending one, so that many paths meet there.
+     * @param conflictDensity the probability that a requirement is a bound on the version,
+     *                        rather than any version at all.
+     */
+    public static SyntheticCookbook random(
+        final int recipes,
+        final int versions,
+        final int fanOut,
+        final double diamondDensity,
+        final double conflictDensity,
+        final long seed) {
+
+        Preconditions.checkArgument(recipes > 0);
+        Preconditions.checkArgument(versions > 0);
+        Preconditions.checkArgument(fanOut >= 0);
+        Preconditions.checkArgument(diamondDensity >= 0 && diamondDensity <= 1);
+        Preconditions.checkArgument(conflictDensity >= 0 && conflictDensity <= 1);
+
+        final Random random = new Random(seed);
+
+        final Cookbook cookbook = cookbook(recipes, versions, (i, v) -> {
+            final Map<RecipeIdentifier, SemanticVersionRequirement> dependencies = new LinkedHashMap<>();
+            final int remaining = recipes - i - 1;
+            for (int j = 0; j < fanOut && remaining > 0; j++) {
+                final int offset = random.nextDouble() < diamondDensity ?
+                    random.nextInt(Math.min(remaining, 2)) :
+                    random.nextInt(remaining);
+                final SemanticVersion bound = SemanticVersion.of(random.nextInt(versions));
+                dependencies.putIfAbsent(
+                    identifier(i + 1 + offset),
+                    random.nextDouble() < conflictDensity ?
+                        (random.nextBoolean() ? BoundedSemanticVersion.atLeast(bound) : BoundedSemanticVersion.atMost(bound)) :
+                        AnySemanticVersion.of());
+            }
+            return ImmutableMap.copyOf(dependencies);
+        });
+
+        return new SyntheticCookbook(cookbook, ImmutableList.of(Dependency.of(identifier(0), AnySemanticVersion.of())));
+    }
+
+    /**
+     * A chain of recipes where each version requires at least the same version of the next recipe,
+     * while the project pins the last recipe to its oldest version. The only solution is the oldest
+     * version of everything, which a newest-first search only discovers after backtracking the whole chain.
+     */
+    public static SyntheticCookbook deepConflict(final int depth, final int versions) {
+
+        Preconditions.checkArgument(depth > 1);
+        Preconditions.checkArgument(versions > 0);
+
+        final Cookbook cookbook = cookbook(depth, versions, (i, v) -> i + 1 < depth ?
+            ImmutableMap.of(identifier(i + 1), BoundedSemanticVersion.atLeast(SemanticVersion.of(v))) :
+            ImmutableMap.of());
+
+        return new SyntheticCookbook(cookbook, ImmutableList.of(
+            Dependency.of(identifier(0), AnySemanticVersion.of()),
+            Dependency.of(identifier(depth - 1), ExactSemanticVersion.of(SemanticVersion.of(0)))));
+    }
+
+    /**
+     * A project that depends on many recipes, all of which depend on the same shared recipe.
+     */
+    public static SyntheticCookbook wideDiamond(final int width, final int versions) {
+
+        Preconditions.checkArgument(width > 0);
+        Preconditions.checkArgument(versions > 0);
+
+        final Cookbook cookbook = cookbook(width + 1, versions, (i, v) -> i < width ?
+            ImmutableMap.of(identifier(width), AnySemanticVersion.of()) :
+            ImmutableMap.of());
+
+        final ImmutableList.Builder<Dependency> dependencies = ImmutableList.builder();
+        for (int i = 0; i < width; i++) {
+            dependencies.add(Dependency.of(identifier(i), AnySemanticVersion.of()));
+        }
+
+        return new SyntheticCookbook(cookbook, dependencies.build());
+    }
+}
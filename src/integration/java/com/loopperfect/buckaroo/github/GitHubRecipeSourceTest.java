@@ -116,4 +116,31 @@ public final class GitHubRecipeSourceTest {
 
         assertEquals(expected, actual);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void pinDownloadsTheArchive() throws Exception {
+
+        final FileSystem fs = Jimfs.newFileSystem();
+
+        final RecipeSource recipeSource = GitHubRecipeSource.of(fs);
+        final RecipeIdentifier identifier = RecipeIdentifier.of("github", "njlr", "test-lib-d");
+
+        final RecipeVersion recipeVersion = recipeSource.fetch(identifier)
+            .result()
+            .timeout(90, TimeUnit.SECONDS)
+            .blockingGet()
+            .versions.get(SemanticVersion.of(0, 1));
+
+        // Fetching only reads the project file
+        assertTrue(recipeVersion.source.isLeft());
+
+        final RecipeVersion pinned = recipeSource.pin(identifier, recipeVersion)
+            .result()
+            .timeout(90, TimeUnit.SECONDS)
+            .blockingGet();
+
+        assertTrue(pinned.source.isRight());
+        assertEquals(recipeVersion.target, pinned.target);
+        assertEquals(recipeVersion.dependencies, pinned.dependencies);
+    }
+}
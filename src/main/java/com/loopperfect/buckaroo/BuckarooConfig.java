@@ -3,8 +3,11 @@ package com.loopperfect.buckaroo;
 import com.google.common.base.MoreObjects;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableList;
+import com.loopperfect.buckaroo.resolver.ResolutionPreference;
+import com.loopperfect.buckaroo.resolver.ResolverEngine;
 
 import java.net.URL;
+import java.time.Duration;
 import java.util.Objects;
 import java.util.Optional;
 
@@ -12,10 +15,27 @@ public final class BuckarooConfig {
 
     public final ImmutableList<RemoteCookbook> cookbooks;
     public final Optional<URL> analyticsServer;
+    public final Optional<ResolverEngine> resolver;
+    public final Optional<ResolutionPreference> strategy;
+    public final Optional<Duration> tagsTimeToLive;
+    public final Optional<Integer> connectionsPerHost;
+    public final Optional<Integer> resolverConcurrency;
 
-    private BuckarooConfig(final ImmutableList<RemoteCookbook> cookbooks, final Optional<URL> analyticsServer) {
+    private BuckarooConfig(
+        final ImmutableList<RemoteCookbook> cookbooks,
+        final Optional<URL> analyticsServer,
+        final Optional<ResolverEngine> resolver,
+        final Optional<ResolutionPreference> strategy,
+        final Optional<Duration> tagsTimeToLive,
+        final Optional<Integer> connectionsPerHost,
+        final Optional<Integer> resolverConcurrency) {
         this.cookbooks = Preconditions.checkNotNull(cookbooks);
         this.analyticsServer = Preconditions.checkNotNull(analyticsServer);
+        this.resolver = Preconditions.checkNotNull(resolver);
+        this.strategy = Preconditions.checkNotNull(strategy);
+        this.tagsTimeToLive = Preconditions.checkNotNull(tagsTimeToLive);
+        this.connectionsPerHost = Preconditions.checkNotNull(connectionsPerHost);
+        this.resolverConcurrency = Preconditions.checkNotNull(resolverConcurrency);
     }
 
     @Override
@@ -28,12 +48,17 @@ public final class BuckarooConfig {
         }
         final BuckarooConfig other = (BuckarooConfig) obj;
         return Objects.equals(cookbooks, other.cookbooks) &&
-            Objects.equals(analyticsServer, other.analyticsServer);
+            Objects.equals(analyticsServer, other.analyticsServer) &&
+            Objects.equals(resolver, other.resolver) &&
+            Objects.equals(strategy, other.strategy) &&
+            Objects.equals(tagsTimeToLive, other.tagsTimeToLive) &&
+            Objects.equals(connectionsPerHost, other.connectionsPerHost) &&
+            Objects.equals(resolverConcurrency, other.resolverConcurrency);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(cookbooks, analyticsServer);
+        return Objects.hash(cookbooks, analyticsServer, resolver, strategy, tagsTimeToLive, connectionsPerHost, resolverConcurrency);
     }
 
     @Override
@@ -41,18 +66,70 @@ public final class BuckarooConfig {
         return MoreObjects.toStringHelper(this)
             .add("cookbooks", cookbooks)
             .add("analyticsServer", analyticsServer)
+            .add("resolver", resolver)
+            .add("strategy", strategy)
+            .add("tagsTimeToLive", tagsTimeToLive)
+            .add("connectionsPerHost", connectionsPerHost)
+            .add("resolverConcurrency", resolverConcurrency)
             .toString();
     }
 
+    public static BuckarooConfig of(
+        final ImmutableList<RemoteCookbook> cookBooks,
+        final Optional<URL> analyticsServer,
+        final Optional<ResolverEngine> resolver,
+        final Optional<ResolutionPreference> strategy,
+        final Optional<Duration> tagsTimeToLive,
+        final Optional<Integer> connectionsPerHost,
+        final Optional<Integer> resolverConcurrency) {
+        return new BuckarooConfig(
+            cookBooks, analyticsServer, resolver, strategy, tagsTimeToLive, connectionsPerHost, resolverConcurrency);
+    }
+
+    public static BuckarooConfig of(
+        final ImmutableList<RemoteCookbook> cookBooks,
+        final Optional<URL> analyticsServer,
+        final Optional<ResolverEngine> resolver,
+        final Optional<ResolutionPreference> strategy,
+        final Optional<Duration> tagsTimeToLive,
+        final Optional<Integer> connectionsPerHost) {
+        return new BuckarooConfig(
+            cookBooks, analyticsServer, resolver, strategy, tagsTimeToLive, connectionsPerHost, Optional.empty());
+    }
+
+    public static BuckarooConfig of(
+        final ImmutableList<RemoteCookbook> cookBooks,
+        final Optional<URL> analyticsServer,
+        final Optional<ResolverEngine> resolver,
+        final Optional<ResolutionPreference> strategy,
+        final Optional<Duration> tagsTimeToLive) {
+        return new BuckarooConfig(cookBooks, analyticsServer, resolver, strategy, tagsTimeToLive, Optional.empty(), Optional.empty());
+    }
+
+    public static BuckarooConfig of(
+        final ImmutableList<RemoteCookbook> cookBooks,
+        final Optional<URL> analyticsServer,
+        final Optional<ResolverEngine> resolver,
+        final Optional<ResolutionPreference> strategy) {
+        return new BuckarooConfig(cookBooks, analyticsServer, resolver, strategy, Optional.empty(), Optional.empty(), Optional.empty());
+    }
+
+    public static BuckarooConfig of(
+        final ImmutableList<RemoteCookbook> cookBooks,
+        final Optional<URL> analyticsServer,
+        final Optional<ResolverEngine> resolver) {
+        return new BuckarooConfig(cookBooks, analyticsServer, resolver, Optional.empty(), Optional.empty(), Optional.empty(), Optional.empty());
+    }
+
     public static BuckarooConfig of(final ImmutableList<RemoteCookbook> cookBooks, final Optional<URL> analyticsServer) {
-        return new BuckarooConfig(cookBooks, analyticsServer);
+        return new BuckarooConfig(cookBooks, analyticsServer, Optional.empty(), Optional.empty(), Optional.empty(), Optional.empty(), Optional.empty());
     }
 
     public static BuckarooConfig of(final ImmutableList<RemoteCookbook> cookBooks, final URL analyticsServer) {
-        return new BuckarooConfig(cookBooks, Optional.of(analyticsServer));
+        return new BuckarooConfig(cookBooks, Optional.of(analyticsServer), Optional.empty(), Optional.empty(), Optional.empty(), Optional.empty(), Optional.empty());
     }
 
     public static BuckarooConfig of(final ImmutableList<RemoteCookbook> cookBooks) {
-        return new BuckarooConfig(cookBooks, Optional.empty());
+        return new BuckarooConfig(cookBooks, Optional.empty(), Optional.empty(), Optional.empty(), Optional.empty(), Optional.empty(), Optional.empty());
     }
 }
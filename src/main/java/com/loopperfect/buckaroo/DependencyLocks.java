@@ -4,10 +4,11 @@ import com.google.common.base.MoreObjects;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.loopperfect.buckaroo.versioning.ExactSemanticVersion;
+import org.javatuples.Pair;
 
-import java.util.Collection;
-import java.util.Map;
-import java.util.Objects;
+import java.util.*;
+import java.util.function.Predicate;
 
 public final class DependencyLocks {
 
@@ -30,6 +31,85 @@ public final class DependencyLocks {
             .collect(ImmutableList.toImmutableList());
     }
 
+    private Set<RecipeIdentifier> reachable(
+        final Collection<Dependency> dependencies, final Predicate<RecipeIdentifier> predicate) {
+
+        final Set<RecipeIdentifier> visited = new HashSet<>();
+        final Deque<RecipeIdentifier> queue = new ArrayDeque<>();
+
+        for (final Dependency dependency : dependencies) {
+            if (predicate.test(dependency.project) && visited.add(dependency.project)) {
+                queue.add(dependency.project);
+            }
+        }
+
+        while (!queue.isEmpty()) {
+            for (final ResolvedDependencyReference reference : locks.get(queue.remove()).dependencies) {
+                if (predicate.test(reference.identifier) && visited.add(reference.identifier)) {
+                    queue.add(reference.identifier);
+                }
+            }
+        }
+
+        return visited;
+    }
+
+    /**
+     * Finds the locked entries that can be kept when resolving the given dependencies.
+     *
+     * An entry is kept when it is reachable from the dependencies, records its version,
+     * satisfies any direct requirement on it and everything it references is also kept.
+     * The dependencies of each kept entry are pinned to the locked versions, so the
+     * result is a complete starting point for a resolver.
+     */
+    public ResolvedDependencies seed(final Collection<Dependency> dependencies) {
+
+        Preconditions.checkNotNull(dependencies);
+
+        final Set<RecipeIdentifier> candidates = reachable(dependencies, x -> locks.containsKey(x) &&
+            locks.get(x).version.isPresent() &&
+            dependencies.stream()
+                .filter(dependency -> dependency.project.equals(x))
+                .allMatch(dependency -> dependency.requirement.isSatisfiedBy(locks.get(x).version.get())));
+
+        // Anything that references a dropped entry must be re-resolved too
+        boolean changed = true;
+        while (changed) {
+            changed = candidates.removeIf(x -> locks.get(x).dependencies.stream()
+                .anyMatch(reference -> !candidates.contains(reference.identifier)));
+        }
+
+        // Entries that were only referenced by dropped entries are left to the resolver
+        final Set<RecipeIdentifier> kept = reachable(dependencies, candidates::contains);
+
+        final ImmutableMap.Builder<RecipeIdentifier, Pair<SemanticVersion, RecipeVersion>> builder =
+            ImmutableMap.builder();
+
+        for (final RecipeIdentifier identifier : kept) {
+            final ResolvedDependency lock = locks.get(identifier);
+            final DependencyGroup pinned = DependencyGroup.of(lock.dependencies.stream()
+                .collect(ImmutableMap.toImmutableMap(
+                    x -> x.identifier,
+                    x -> ExactSemanticVersion.of(locks.get(x.identifier).version.get()))));
+            builder.put(identifier, Pair.with(
+                lock.version.get(),
+                RecipeVersion.of(lock.source, lock.target, pinned, lock.buckResource)));
+        }
+
+        return ResolvedDependencies.of(builder.build());
+    }
+
+    /**
+     * The dependencies that are not covered by the seed, and so will need to be resolved.
+     */
+    public ImmutableList<Dependency> uncovered(final ImmutableList<Dependency> dependencies) {
+        Preconditions.checkNotNull(dependencies);
+        final ResolvedDependencies seed = seed(dependencies);
+        return dependencies.stream()
+            .filter(x -> !seed.dependencies.containsKey(x.project))
+            .collect(ImmutableList.toImmutableList());
+    }
+
     @Override
     public int hashCode() {
         return Objects.hash(locks);
@@ -54,8 +134,10 @@ public final class DependencyLocks {
         Preconditions.checkNotNull(resolvedDependencies);
         Preconditions.checkArgument(resolvedDependencies.isComplete());
 
+        // The resolved dependencies are in no particular order, so sort them to keep the lock file stable
         final ImmutableList<DependencyLock> locks = resolvedDependencies.dependencies.entrySet()
             .stream()
+            .sorted(Comparator.comparing(entry -> entry.getKey().encode()))
             .map(entry -> {
 
                 final RecipeVersion recipeVersion = entry.getValue().getValue1();
@@ -74,7 +156,8 @@ public final class DependencyLocks {
                         recipeVersion.source,
                         recipeVersion.target,
                         recipeVersion.buckResource,
-                        xs));
+                        xs,
+                        Optional.of(entry.getValue().getValue0())));
             })
             .collect(ImmutableList.toImmutableList());
 
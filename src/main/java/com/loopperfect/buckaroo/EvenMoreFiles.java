@@ -1,15 +1,17 @@
 package com.loopperfect.buckaroo;
 
 import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Streams;
 import com.google.common.hash.HashCode;
-import com.google.common.hash.HashFunction;
 import com.google.common.hash.Hashing;
 import com.google.common.io.MoreFiles;
 
 import java.io.BufferedWriter;
 import java.io.IOException;
 import java.net.URI;
+import java.nio.channels.SeekableByteChannel;
 import java.nio.charset.Charset;
 import java.nio.file.*;
 import java.nio.file.attribute.BasicFileAttributes;
@@ -48,15 +50,71 @@ public final class EvenMoreFiles {
         writeFile(path, content, Charset.defaultCharset(), false);
     }
 
+    /**
+     * Replaces the file in a single step, so that readers never see a partly written file.
+     * Falls back to a plain move on file-systems without atomic moves.
+     */
+    public static void replaceFile(final Path path, final String content) throws IOException {
+
+        Preconditions.checkNotNull(path);
+        Preconditions.checkNotNull(content);
+
+        final Path parent = path.toAbsolutePath().getParent();
+
+        Files.createDirectories(parent);
+
+        final Path temporary = Files.createTempFile(parent, path.getFileName().toString(), ".tmp");
+
+        try {
+            Files.write(temporary, content.getBytes(Charset.defaultCharset()));
+            moveReplacing(temporary, path);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /**
+     * Moves a file over the target, atomically where the file-system allows it,
+     * so that readers of the target never see a partially written file.
+     */
+    public static void moveReplacing(final Path source, final Path target) throws IOException {
+
+        Preconditions.checkNotNull(source);
+        Preconditions.checkNotNull(target);
+
+        try {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (final AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
     public static HashCode hashFile(final Path path) throws IOException {
 
         Preconditions.checkNotNull(path);
 
-        final HashFunction hashFunction = Hashing.sha256();
+        // Streamed, rather than holding the whole file in memory
+        return MoreFiles.asByteSource(path).hash(Hashing.sha256());
+    }
+
+    /**
+     * Reads some entries of a zip file, without unpacking the rest of it.
+     */
+    public static ImmutableMap<String, byte[]> readZipEntries(final Path pathToZipFile, final ImmutableSet<String> names) throws IOException {
+
+        Preconditions.checkNotNull(pathToZipFile);
+        Preconditions.checkNotNull(names);
+
+        try (final SeekableByteChannel channel = Files.newByteChannel(pathToZipFile, StandardOpenOption.READ)) {
+            return ZipEntryReader.read(channel, names);
+        }
+    }
+
+    public static Optional<byte[]> readZipEntry(final Path pathToZipFile, final String name) throws IOException {
+
+        Preconditions.checkNotNull(name);
 
-        return hashFunction.newHasher()
-            .putBytes(MoreFiles.asByteSource(path).read())
-            .hash();
+        return Optional.ofNullable(readZipEntries(pathToZipFile, ImmutableSet.of(name)).get(name));
     }
 
     public static FileSystem zipFileSystem(final Path pathToZipFile) throws IOException {
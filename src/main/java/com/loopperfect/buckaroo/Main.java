@@ -5,7 +5,9 @@ import com.google.common.collect.Streams;
 import com.loopperfect.buckaroo.cli.CLICommand;
 import com.loopperfect.buckaroo.cli.CLIParsers;
 import com.loopperfect.buckaroo.sources.RecipeNotFoundException;
+import com.loopperfect.buckaroo.tasks.CommonTasks;
 import com.loopperfect.buckaroo.tasks.LoggingTasks;
+import com.loopperfect.buckaroo.tasks.SharedHttpClient;
 import com.loopperfect.buckaroo.views.GenericEventRenderer;
 import com.loopperfect.buckaroo.views.ProgressView;
 import com.loopperfect.buckaroo.views.StatsView;
@@ -29,6 +31,7 @@ import java.nio.file.FileSystem;
 import java.nio.file.FileSystems;
 import java.time.Instant;
 import java.util.Arrays;
+import java.util.Optional;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -64,6 +67,13 @@ public final class Main {
 
         final String rawCommand = String.join(" ", args);
 
+        // The connection limits apply to every download, so they are read before anything starts
+        CommonTasks.readAndMaybeGenerateConfigFile(fs)
+            .map(x -> x.config.connectionsPerHost)
+            .onErrorReturnItem(Optional.empty())
+            .blockingGet()
+            .ifPresent(SharedHttpClient::configure);
+
         final CountDownLatch latch = new CountDownLatch(2);
 
         // Send the command to the logging server, if present
@@ -1,6 +1,7 @@
 package com.loopperfect.buckaroo;
 
 import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 
 import static com.google.common.collect.ImmutableList.toImmutableList;
@@ -26,4 +27,18 @@ public final class MoreMaps {
             .putAll(y)
             .build();
     }
+
+    /**
+     * Pairs each key with the value at the same position.
+     */
+    public static <K, V> ImmutableMap<K, V> zip(final ImmutableList<K> keys, final ImmutableList<V> values) {
+        Preconditions.checkNotNull(keys);
+        Preconditions.checkNotNull(values);
+        Preconditions.checkArgument(keys.size() == values.size());
+        final ImmutableMap.Builder<K, V> builder = ImmutableMap.builder();
+        for (int i = 0; i < keys.size(); i++) {
+            builder.put(keys.get(i), values.get(i));
+        }
+        return builder.build();
+    }
 }
@@ -0,0 +1,363 @@
+package com.loopperfect.buckaroo;
+
+import com.google.common.base.Preconditions;
+
+import java.util.*;
+
+/**
+ * An immutable hash map that shares structure between versions.
+ *
+ * The map is a hash array mapped trie, so with and without copy only the
+ * O(log n) nodes along the path to the key, rather than the entire map.
+ * Null keys and values are not permitted.
+ */
+public final class PersistentHashMap<K, V> extends AbstractMap<K, V> {
+
+    private static final int BITS = 5;
+    private static final int MASK = (1 << BITS) - 1;
+
+    private static final PersistentHashMap<?, ?> EMPTY = new PersistentHashMap<>(null, 0);
+
+    private final Node<K, V> root;
+    private final int size;
+
+    private PersistentHashMap(final Node<K, V> root, final int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    private static int hash(final Object key) {
+        final int h = key.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    private static int bit(final int hash, final int shift) {
+        return 1 << ((hash >>> shift) & MASK);
+    }
+
+    private static final class Leaf<K, V> extends AbstractMap.SimpleImmutableEntry<K, V> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int hash;
+
+        private Leaf(final int hash, final K key, final V value) {
+            super(key, value);
+            this.hash = hash;
+        }
+    }
+
+    private interface Node<K, V> {
+
+        Leaf<K, V> find(final int shift, final int hash, final Object key);
+
+        // Sets added[0] when the key was not already present
+        Node<K, V> with(final int shift, final Leaf<K, V> leaf, final boolean[] added);
+
+        // Returns null when the node becomes empty
+        Node<K, V> without(final int shift, final int hash, final Object key);
+
+        void collect(final List<Map.Entry<K, V>> entries);
+    }
+
+    private static <K, V> Node<K, V> merge(final int shift, final Leaf<K, V> a, final Leaf<K, V> b) {
+        if (a.hash == b.hash || shift >= 32) {
+            return new CollisionNode<>(a.hash, Arrays.asList(a, b));
+        }
+        final boolean[] added = new boolean[1];
+        return new BitmapNode<K, V>(0, new Object[0])
+            .with(shift, a, added)
+            .with(shift, b, added);
+    }
+
+    private static final class BitmapNode<K, V> implements Node<K, V> {
+
+        private final int bitmap;
+
+        // Each slot is either a Leaf or a child Node
+        private final Object[] slots;
+
+        private BitmapNode(final int bitmap, final Object[] slots) {
+            this.bitmap = bitmap;
+            this.slots = slots;
+        }
+
+        private int index(final int bit) {
+            return Integer.bitCount(bitmap & (bit - 1));
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public Leaf<K, V> find(final int shift, final int hash, final Object key) {
+            final int bit = bit(hash, shift);
+            if ((bitmap & bit) == 0) {
+                return null;
+            }
+            final Object slot = slots[index(bit)];
+            if (slot instanceof Leaf) {
+                final Leaf<K, V> leaf = (Leaf<K, V>) slot;
+                return leaf.hash == hash && leaf.getKey().equals(key) ? leaf : null;
+            }
+            return ((Node<K, V>) slot).find(shift + BITS, hash, key);
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public Node<K, V> with(final int shift, final Leaf<K, V> leaf, final boolean[] added) {
+
+            final int bit = bit(leaf.hash, shift);
+            final int index = index(bit);
+
+            if ((bitmap & bit) == 0) {
+                final Object[] next = new Object[slots.length + 1];
+                System.arraycopy(slots, 0, next, 0, index);
+                next[index] = leaf;
+                System.arraycopy(slots, index, next, index + 1, slots.length - index);
+                added[0] = true;
+                return new BitmapNode<>(bitmap | bit, next);
+            }
+
+            final Object slot = slots[index];
+            final Object replacement;
+
+            if (slot instanceof Leaf) {
+                final Leaf<K, V> existing = (Leaf<K, V>) slot;
+                if (existing.hash == leaf.hash && existing.getKey().equals(leaf.getKey())) {
+                    if (existing.getValue().equals(leaf.getValue())) {
+                        return this;
+                    }
+                    replacement = leaf;
+                } else {
+                    replacement = merge(shift + BITS, existing, leaf);
+                    added[0] = true;
+                }
+            } else {
+                final Node<K, V> child = (Node<K, V>) slot;
+                final Node<K, V> nextChild = child.with(shift + BITS, leaf, added);
+                if (nextChild == child) {
+                    return this;
+                }
+                replacement = nextChild;
+            }
+
+            final Object[] next = slots.clone();
+            next[index] = replacement;
+            return new BitmapNode<>(bitmap, next);
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public Node<K, V> without(final int shift, final int hash, final Object key) {
+
+            final int bit = bit(hash, shift);
+
+            if ((bitmap & bit) == 0) {
+                return this;
+            }
+
+            final int index = index(bit);
+            final Object slot = slots[index];
+            final Object replacement;
+
+            if (slot instanceof Leaf) {
+                final Leaf<K, V> existing = (Leaf<K, V>) slot;
+                if (existing.hash != hash || !existing.getKey().equals(key)) {
+                    return this;
+                }
+                replacement = null;
+            } else {
+                final Node<K, V> child = (Node<K, V>) slot;
+                final Node<K, V> nextChild = child.without(shift + BITS, hash, key);
+                if (nextChild == child) {
+                    return this;
+                }
+                replacement = nextChild;
+            }
+
+            if (replacement != null) {
+                final Object[] next = slots.clone();
+                next[index] = replacement;
+                return new BitmapNode<>(bitmap, next);
+            }
+
+            if (slots.length == 1) {
+                return null;
+            }
+
+            final Object[] next = new Object[slots.length - 1];
+            System.arraycopy(slots, 0, next, 0, index);
+            System.arraycopy(slots, index + 1, next, index, slots.length - index - 1);
+            return new BitmapNode<>(bitmap & ~bit, next);
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public void collect(final List<Map.Entry<K, V>> entries) {
+            for (final Object slot : slots) {
+                if (slot instanceof Leaf) {
+                    entries.add((Leaf<K, V>) slot);
+                } else {
+                    ((Node<K, V>) slot).collect(entries);
+                }
+            }
+        }
+    }
+
+    private static final class CollisionNode<K, V> implements Node<K, V> {
+
+        private final int hash;
+        private final List<Leaf<K, V>> leaves;
+
+        private CollisionNode(final int hash, final List<Leaf<K, V>> leaves) {
+            this.hash = hash;
+            this.leaves = leaves;
+        }
+
+        private int indexOf(final Object key) {
+            for (int i = 0; i < leaves.size(); i++) {
+                if (leaves.get(i).getKey().equals(key)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        @Override
+        public Leaf<K, V> find(final int shift, final int hash, final Object key) {
+            if (hash != this.hash) {
+                return null;
+            }
+            final int index = indexOf(key);
+            return index < 0 ? null : leaves.get(index);
+        }
+
+        @Override
+        public Node<K, V> with(final int shift, final Leaf<K, V> leaf, final boolean[] added) {
+
+            if (leaf.hash != hash) {
+                // Push this node down a level, next to the new leaf
+                return new BitmapNode<K, V>(bit(hash, shift), new Object[] { this })
+                    .with(shift, leaf, added);
+            }
+
+            final int index = indexOf(leaf.getKey());
+            final List<Leaf<K, V>> next = new ArrayList<>(leaves);
+
+            if (index < 0) {
+                next.add(leaf);
+                added[0] = true;
+            } else if (leaves.get(index).getValue().equals(leaf.getValue())) {
+                return this;
+            } else {
+                next.set(index, leaf);
+            }
+
+            return new CollisionNode<>(hash, next);
+        }
+
+        @Override
+        public Node<K, V> without(final int shift, final int hash, final Object key) {
+            final int index = hash == this.hash ? indexOf(key) : -1;
+            if (index < 0) {
+                return this;
+            }
+            if (leaves.size() == 1) {
+                return null;
+            }
+            final List<Leaf<K, V>> next = new ArrayList<>(leaves);
+            next.remove(index);
+            return new CollisionNode<>(hash, next);
+        }
+
+        @Override
+        public void collect(final List<Map.Entry<K, V>> entries) {
+            entries.addAll(leaves);
+        }
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean containsKey(final Object key) {
+        return key != null && root != null && root.find(0, hash(key), key) != null;
+    }
+
+    @Override
+    public V get(final Object key) {
+        if (key == null || root == null) {
+            return null;
+        }
+        final Leaf<K, V> leaf = root.find(0, hash(key), key);
+        return leaf == null ? null : leaf.getValue();
+    }
+
+    public PersistentHashMap<K, V> with(final K key, final V value) {
+
+        Preconditions.checkNotNull(key);
+        Preconditions.checkNotNull(value);
+
+        final Leaf<K, V> leaf = new Leaf<>(hash(key), key, value);
+        final boolean[] added = new boolean[1];
+
+        final Node<K, V> next = root == null ?
+            new BitmapNode<K, V>(0, new Object[0]).with(0, leaf, added) :
+            root.with(0, leaf, added);
+
+        return next == root ? this : new PersistentHashMap<>(next, added[0] ? size + 1 : size);
+    }
+
+    public PersistentHashMap<K, V> without(final Object key) {
+
+        Preconditions.checkNotNull(key);
+
+        if (root == null) {
+            return this;
+        }
+
+        final Node<K, V> next = root.without(0, hash(key), key);
+
+        return next == root ? this : new PersistentHashMap<>(next, size - 1);
+    }
+
+    @Override
+    public Set<Map.Entry<K, V>> entrySet() {
+        return new AbstractSet<Map.Entry<K, V>>() {
+
+            @Override
+            public Iterator<Map.Entry<K, V>> iterator() {
+                final List<Map.Entry<K, V>> entries = new ArrayList<>(size);
+                if (root != null) {
+                    root.collect(entries);
+                }
+                return Collections.unmodifiableList(entries).iterator();
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <K, V> PersistentHashMap<K, V> of() {
+        return (PersistentHashMap<K, V>) EMPTY;
+    }
+
+    public static <K, V> PersistentHashMap<K, V> copyOf(final Map<? extends K, ? extends V> map) {
+        Preconditions.checkNotNull(map);
+        if (map instanceof PersistentHashMap) {
+            @SuppressWarnings("unchecked")
+            final PersistentHashMap<K, V> persistent = (PersistentHashMap<K, V>) map;
+            return persistent;
+        }
+        PersistentHashMap<K, V> result = of();
+        for (final Map.Entry<? extends K, ? extends V> entry : map.entrySet()) {
+            result = result.with(entry.getKey(), entry.getValue());
+        }
+        return result;
+    }
+}
@@ -2,8 +2,13 @@ package com.loopperfect.buckaroo;
 
 import com.google.common.base.MoreObjects;
 import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSortedMap;
+import com.loopperfect.buckaroo.versioning.SemanticVersionInterval;
+import com.loopperfect.buckaroo.versioning.SemanticVersionIntervalSet;
 
+import java.util.Map;
 import java.util.Objects;
 
 public final class Recipe {
@@ -12,11 +17,37 @@ public final class Recipe {
     public final String url;
     public final ImmutableMap<SemanticVersion, RecipeVersion> versions;
 
+    // The same versions in ascending order, built once so that range queries need not sort
+    private final ImmutableSortedMap<SemanticVersion, RecipeVersion> index;
+
     private Recipe(final String name, final String url, final ImmutableMap<SemanticVersion, RecipeVersion> versions) {
         super();
         this.name = Preconditions.checkNotNull(name);
         this.url = Preconditions.checkNotNull(url);
         this.versions = Preconditions.checkNotNull(versions);
+        this.index = ImmutableSortedMap.copyOf(versions);
+    }
+
+    /**
+     * The versions within the given set, newest first.
+     * Each interval is a range lookup on the sorted index, so versions outside the set are never visited.
+     */
+    public ImmutableList<Map.Entry<SemanticVersion, RecipeVersion>> versionsWithin(final SemanticVersionIntervalSet set) {
+        Preconditions.checkNotNull(set);
+        final ImmutableList.Builder<Map.Entry<SemanticVersion, RecipeVersion>> builder = ImmutableList.builder();
+        for (final SemanticVersionInterval interval : set.intervals.reverse()) {
+            builder.addAll(index.subMap(interval.lower, true, interval.upper, true).descendingMap().entrySet());
+        }
+        return builder.build();
+    }
+
+    /**
+     * The versions that satisfy the given requirement, newest first.
+     */
+    public ImmutableList<Map.Entry<SemanticVersion, RecipeVersion>> versionsSatisfying(
+        final SemanticVersionRequirement requirement) {
+        Preconditions.checkNotNull(requirement);
+        return versionsWithin(requirement.toIntervalSet());
     }
 
     @Override
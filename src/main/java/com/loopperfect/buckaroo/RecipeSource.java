@@ -1,12 +1,89 @@
 package com.loopperfect.buckaroo;
 
+import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.loopperfect.buckaroo.versioning.AnySemanticVersion;
+
+import java.util.Collection;
 
 @FunctionalInterface
 public interface RecipeSource {
 
     Process<Event, Recipe> fetch(final RecipeIdentifier identifier);
 
+    /**
+     * Fetches a recipe that has at least the versions satisfying the requirement.
+     *
+     * A source may leave out the other versions when they are expensive to fetch,
+     * so callers must not look beyond the requirement.
+     * By default, the whole recipe is fetched.
+     */
+    default Process<Event, Recipe> fetch(final RecipeIdentifier identifier, final SemanticVersionRequirement requirement) {
+        Preconditions.checkNotNull(identifier);
+        Preconditions.checkNotNull(requirement);
+        return fetch(identifier);
+    }
+
+    /**
+     * True if fetch always gives the whole recipe of the identifier, whatever the requirement,
+     * so that one fetch can serve every requirement. By default, this is not assumed.
+     */
+    default boolean fetchesWholeRecipes(final RecipeIdentifier identifier) {
+        Preconditions.checkNotNull(identifier);
+        return false;
+    }
+
+    /**
+     * Fetches several recipes at once, so that a source can share work between them.
+     *
+     * The result has an entry for every identifier, holding either the recipe or the
+     * reason it could not be fetched, so one missing recipe does not fail the others.
+     * Each recipe has at least the versions satisfying its requirement, as with fetch.
+     * By default, each recipe is fetched separately and all of them at the same time.
+     */
+    default Process<Event, ImmutableMap<RecipeIdentifier, Either<Throwable, Recipe>>> fetchAll(
+        final ImmutableMap<RecipeIdentifier, SemanticVersionRequirement> requirements) {
+
+        Preconditions.checkNotNull(requirements);
+
+        final ImmutableList<RecipeIdentifier> identifiers = requirements.keySet().asList();
+
+        return Process.merge(identifiers.stream()
+            .map(x -> fetch(x, requirements.get(x))
+                .map(Either::<Throwable, Recipe>right)
+                .onErrorReturn(Either::left))
+            .collect(ImmutableList.toImmutableList()))
+            .map(recipes -> MoreMaps.zip(identifiers, recipes));
+    }
+
+    /**
+     * Fetches several whole recipes at once.
+     */
+    default Process<Event, ImmutableMap<RecipeIdentifier, Either<Throwable, Recipe>>> fetchAll(
+        final Collection<RecipeIdentifier> identifiers) {
+
+        Preconditions.checkNotNull(identifiers);
+
+        final ImmutableMap<RecipeIdentifier, SemanticVersionRequirement> requirements = ImmutableSet.copyOf(identifiers)
+            .stream()
+            .collect(ImmutableMap.toImmutableMap(x -> x, x -> AnySemanticVersion.of()));
+
+        return fetchAll(requirements);
+    }
+
+    /**
+     * Turns a version that this source fetched into one that can be locked and installed,
+     * for example by downloading and hashing an archive that fetching did not need.
+     * This is done once a version has been selected. By default, versions are returned unchanged.
+     */
+    default Process<Event, RecipeVersion> pin(final RecipeIdentifier identifier, final RecipeVersion recipeVersion) {
+        Preconditions.checkNotNull(identifier);
+        Preconditions.checkNotNull(recipeVersion);
+        return Process.just(recipeVersion);
+    }
+
     default Iterable<RecipeIdentifier> findCandidates(final RecipeIdentifier identifier) {
         return ImmutableList.of();
     }
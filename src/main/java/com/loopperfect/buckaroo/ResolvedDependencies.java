@@ -2,7 +2,9 @@ package com.loopperfect.buckaroo;
 
 import com.google.common.base.MoreObjects;
 import com.google.common.base.Preconditions;
-import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableList;
+import com.loopperfect.buckaroo.versioning.SemanticVersionInterval;
+import com.loopperfect.buckaroo.versioning.SemanticVersionIntervalSet;
 import org.javatuples.Pair;
 
 import java.util.Map;
@@ -10,20 +12,72 @@ import java.util.Objects;
 
 public final class ResolvedDependencies {
 
-    public final ImmutableMap<RecipeIdentifier, Pair<SemanticVersion, RecipeVersion>> dependencies;
+    public final Map<RecipeIdentifier, Pair<SemanticVersion, RecipeVersion>> dependencies;
 
-    private ResolvedDependencies(final Map<RecipeIdentifier, Pair<SemanticVersion, RecipeVersion>> dependencies) {
-        Preconditions.checkNotNull(dependencies);
-        this.dependencies = ImmutableMap.copyOf(dependencies);
+    // The same map as dependencies, kept with its persistent type for adding to
+    private final PersistentHashMap<RecipeIdentifier, Pair<SemanticVersion, RecipeVersion>> entries;
+
+    // Requirements of resolved projects on projects that are not resolved yet
+    private final PersistentHashMap<RecipeIdentifier, ImmutableList<SemanticVersionRequirement>> pending;
+
+    // The number of requirements between resolved projects that are not satisfied
+    private final int violations;
+
+    private ResolvedDependencies(
+        final PersistentHashMap<RecipeIdentifier, Pair<SemanticVersion, RecipeVersion>> dependencies,
+        final PersistentHashMap<RecipeIdentifier, ImmutableList<SemanticVersionRequirement>> pending,
+        final int violations) {
+        this.entries = Preconditions.checkNotNull(dependencies);
+        this.dependencies = entries;
+        this.pending = Preconditions.checkNotNull(pending);
+        this.violations = violations;
     }
 
+    /**
+     * Adds a resolved project, replacing it if it was already resolved. This only copies the
+     * O(log n) path to the new entry and updates completeness using the requirements touching
+     * that project.
+     */
     public ResolvedDependencies add(final RecipeIdentifier identifier, final Pair<SemanticVersion, RecipeVersion> dependency) {
+
         Preconditions.checkNotNull(identifier);
         Preconditions.checkNotNull(dependency);
-        return ResolvedDependencies.of(
-            MoreMaps.with(
-                dependencies,
-                identifier, dependency));
+
+        // Replacing a project is rare, so completeness is recomputed rather than undone
+        if (entries.containsKey(identifier)) {
+            return of(entries.with(identifier, dependency));
+        }
+
+        final PersistentHashMap<RecipeIdentifier, Pair<SemanticVersion, RecipeVersion>> nextDependencies =
+            entries.with(identifier, dependency);
+
+        final SemanticVersion version = dependency.getValue0();
+
+        int nextViolations = violations + (int) pending.getOrDefault(identifier, ImmutableList.of())
+            .stream()
+            .filter(x -> !x.isSatisfiedBy(version))
+            .count();
+
+        PersistentHashMap<RecipeIdentifier, ImmutableList<SemanticVersionRequirement>> nextPending =
+            pending.without(identifier);
+
+        for (final Dependency next : dependency.getValue1().dependencies.map(DependencyGroup::entries).orElse(ImmutableList.of())) {
+            final Pair<SemanticVersion, RecipeVersion> resolved = nextDependencies.get(next.project);
+            if (resolved != null) {
+                if (!next.requirement.isSatisfiedBy(resolved.getValue0())) {
+                    nextViolations++;
+                }
+            } else {
+                nextPending = nextPending.with(
+                    next.project,
+                    ImmutableList.<SemanticVersionRequirement>builder()
+                        .addAll(nextPending.getOrDefault(next.project, ImmutableList.of()))
+                        .add(next.requirement)
+                        .build());
+            }
+        }
+
+        return new ResolvedDependencies(nextDependencies, nextPending, nextViolations);
     }
 
     public boolean equals(final ResolvedDependencies other) {
@@ -37,17 +91,41 @@ public final class ResolvedDependencies {
         return dependencies.get(identifier);
     }
 
+    /**
+     * The versions of a project that are consistent with everything resolved so far.
+     */
+    public SemanticVersionIntervalSet admissible(final RecipeIdentifier identifier) {
+        Preconditions.checkNotNull(identifier);
+        final Pair<SemanticVersion, RecipeVersion> resolved = entries.get(identifier);
+        if (resolved != null) {
+            return SemanticVersionIntervalSet.of(SemanticVersionInterval.of(resolved.getValue0()));
+        }
+        SemanticVersionIntervalSet result = SemanticVersionIntervalSet.all();
+        for (final SemanticVersionRequirement requirement : pending.getOrDefault(identifier, ImmutableList.of())) {
+            result = result.intersect(requirement.toIntervalSet());
+        }
+        return result;
+    }
+
+    /**
+     * True if some version could still satisfy the dependency alongside everything resolved so far.
+     * This only looks at version requirements, so it never needs a recipe to be fetched.
+     */
+    public boolean admits(final Dependency dependency) {
+        Preconditions.checkNotNull(dependency);
+        return !admissible(dependency.project).intersect(dependency.requirement.toIntervalSet()).isEmpty();
+    }
+
+    /**
+     * False if a resolved project requires a version of another resolved project that was not chosen.
+     * Adding more projects never removes a violation, so such a resolution can never be completed.
+     */
+    public boolean isConsistent() {
+        return violations == 0;
+    }
+
     public boolean isComplete() {
-        return dependencies.entrySet()
-            .stream()
-            .allMatch(entry -> {
-                final RecipeVersion recipeVersion = entry.getValue().getValue1();
-                return recipeVersion.dependencies.map(dependencyGroup -> dependencyGroup.dependencies.entrySet()
-                    .stream()
-                    .allMatch(x -> dependencies.containsKey(x.getKey()) &&
-                        x.getValue().isSatisfiedBy(dependencies.get(x.getKey()).getValue0())))
-                    .orElse(true);
-            });
+        return violations == 0 && pending.isEmpty();
     }
 
     @Override
@@ -71,10 +149,15 @@ public final class ResolvedDependencies {
     }
 
     public static ResolvedDependencies of(final Map<RecipeIdentifier, Pair<SemanticVersion, RecipeVersion>> dependencies) {
-        return new ResolvedDependencies(dependencies);
+        Preconditions.checkNotNull(dependencies);
+        ResolvedDependencies result = of();
+        for (final Map.Entry<RecipeIdentifier, Pair<SemanticVersion, RecipeVersion>> entry : dependencies.entrySet()) {
+            result = result.add(entry.getKey(), entry.getValue());
+        }
+        return result;
     }
 
     public static ResolvedDependencies of() {
-        return new ResolvedDependencies(ImmutableMap.of());
+        return new ResolvedDependencies(PersistentHashMap.of(), PersistentHashMap.of(), 0);
     }
 }
@@ -19,11 +19,15 @@ public final class ResolvedDependency {
     public final Optional<RemoteFile> buckResource;
     public final ImmutableList<ResolvedDependencyReference> dependencies;
 
+    // The version that was resolved, which lock files written by older releases do not record
+    public final Optional<SemanticVersion> version;
+
     private ResolvedDependency(
         final Either<GitCommit, RemoteArchive> source,
         final Optional<String> target,
         final Optional<RemoteFile> buckResource,
-        final ImmutableList<ResolvedDependencyReference> dependencies) {
+        final ImmutableList<ResolvedDependencyReference> dependencies,
+        final Optional<SemanticVersion> version) {
 
         super();
 
@@ -31,18 +35,21 @@ public final class ResolvedDependency {
         Preconditions.checkNotNull(target);
         Preconditions.checkNotNull(buckResource);
         Preconditions.checkNotNull(dependencies);
+        Preconditions.checkNotNull(version);
 
         this.source = source;
         this.target = target;
         this.buckResource = buckResource;
         this.dependencies = dependencies;
+        this.version = version;
     }
 
     public boolean equals(final ResolvedDependency other) {
         return Objects.equals(source, other.source) &&
             Objects.equals(target, other.target) &&
             Objects.equals(buckResource, other.buckResource) &&
-            Objects.equals(dependencies, other.dependencies);
+            Objects.equals(dependencies, other.dependencies) &&
+            Objects.equals(version, other.version);
     }
 
     @Override
@@ -54,7 +61,7 @@ public final class ResolvedDependency {
 
     @Override
     public int hashCode() {
-        return Objects.hash(source, target, buckResource, dependencies);
+        return Objects.hash(source, target, buckResource, dependencies, version);
     }
 
     @Override
@@ -64,25 +71,35 @@ public final class ResolvedDependency {
             .add("target", target)
             .add("buckResource", buckResource)
             .add("dependencies", dependencies)
+            .add("version", version)
             .toString();
     }
 
+    public static ResolvedDependency of(
+        final Either<GitCommit, RemoteArchive> source,
+        final Optional<String> target,
+        final Optional<RemoteFile> buckResource,
+        final ImmutableList<ResolvedDependencyReference> dependencies,
+        final Optional<SemanticVersion> version) {
+        return new ResolvedDependency(source, target, buckResource, dependencies, version);
+    }
+
     public static ResolvedDependency of(
         final Either<GitCommit, RemoteArchive> source,
         final Optional<String> target,
         final Optional<RemoteFile> buckResource,
         final ImmutableList<ResolvedDependencyReference> dependencies) {
-        return new ResolvedDependency(source, target, buckResource, dependencies);
+        return new ResolvedDependency(source, target, buckResource, dependencies, Optional.empty());
     }
 
     public static ResolvedDependency of(
         final Either<GitCommit, RemoteArchive> source,
         final ImmutableList<ResolvedDependencyReference> dependencies) {
-        return new ResolvedDependency(source, Optional.empty(), Optional.empty(), dependencies);
+        return new ResolvedDependency(source, Optional.empty(), Optional.empty(), dependencies, Optional.empty());
     }
 
     public static ResolvedDependency of(final Either<GitCommit, RemoteArchive> source) {
-        return new ResolvedDependency(source, Optional.empty(), Optional.empty(), ImmutableList.of());
+        return new ResolvedDependency(source, Optional.empty(), Optional.empty(), ImmutableList.of(), Optional.empty());
     }
 
 //    public static ResolvedDependency from(final RecipeVersion recipeVersion) {
@@ -1,8 +1,16 @@
 package com.loopperfect.buckaroo;
 
+import com.loopperfect.buckaroo.versioning.SemanticVersionIntervalSet;
+
 public interface SemanticVersionRequirement {
 
     boolean isSatisfiedBy(final SemanticVersion version);
 
+    /**
+     * The versions that satisfy this requirement, in a form that can be
+     * intersected with other requirements without enumerating any versions.
+     */
+    SemanticVersionIntervalSet toIntervalSet();
+
     String encode();
 }
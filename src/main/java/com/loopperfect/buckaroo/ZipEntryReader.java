@@ -0,0 +1,236 @@
+package com.loopperfect.buckaroo;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.SeekableByteChannel;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+/**
+ * Reads individual entries out of a zip archive.
+ *
+ * Entries are found using the central directory at the end of the archive,
+ * so only the directory and the requested entries are read, and nothing is unpacked.
+ * Stored and deflated entries are supported; Zip64 archives are not.
+ */
+public final class ZipEntryReader {
+
+    private static final int END_OF_CENTRAL_DIRECTORY_SIGNATURE = 0x06054b50;
+    private static final int CENTRAL_DIRECTORY_SIGNATURE = 0x02014b50;
+    private static final int LOCAL_HEADER_SIGNATURE = 0x04034b50;
+
+    private static final int END_OF_CENTRAL_DIRECTORY_LENGTH = 22;
+    private static final int CENTRAL_DIRECTORY_HEADER_LENGTH = 46;
+    private static final int LOCAL_HEADER_LENGTH = 30;
+    private static final int MAX_COMMENT_LENGTH = 0xFFFF;
+
+    private static final int STORED = 0;
+    private static final int DEFLATED = 8;
+
+    private ZipEntryReader() {
+
+    }
+
+    private static ByteBuffer readFully(final SeekableByteChannel channel, final long position, final int length) throws IOException {
+
+        final ByteBuffer buffer = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+
+        channel.position(position);
+
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                throw new EOFException("The zip archive ended unexpectedly. ");
+            }
+        }
+
+        buffer.flip();
+
+        return buffer;
+    }
+
+    private static int toLength(final long x) throws ZipException {
+        if (x > Integer.MAX_VALUE - 1) {
+            throw new ZipException("The zip entry is too large to read. ");
+        }
+        return (int) x;
+    }
+
+    // The record is followed by a comment of up to 64k, so it is searched for from the end
+    private static ByteBuffer findEndOfCentralDirectory(final SeekableByteChannel channel) throws IOException {
+
+        final long size = channel.size();
+        final int length = (int) Math.min(size, END_OF_CENTRAL_DIRECTORY_LENGTH + MAX_COMMENT_LENGTH);
+        final ByteBuffer tail = readFully(channel, size - length, length);
+
+        for (int i = length - END_OF_CENTRAL_DIRECTORY_LENGTH; i >= 0; i--) {
+            if (tail.getInt(i) == END_OF_CENTRAL_DIRECTORY_SIGNATURE) {
+                tail.position(i);
+                return tail.slice().order(ByteOrder.LITTLE_ENDIAN);
+            }
+        }
+
+        throw new ZipException("Could not find the central directory. Is this a zip archive? ");
+    }
+
+    private static byte[] readEntry(
+        final SeekableByteChannel channel,
+        final String name,
+        final int method,
+        final long crc,
+        final long compressedSize,
+        final long uncompressedSize,
+        final long localHeaderOffset) throws IOException {
+
+        final ByteBuffer localHeader = readFully(channel, localHeaderOffset, LOCAL_HEADER_LENGTH);
+
+        if (localHeader.getInt(0) != LOCAL_HEADER_SIGNATURE) {
+            throw new ZipException("The local header of " + name + " is malformed. ");
+        }
+
+        // The extra field of the local header can differ from the one in the central directory
+        final long dataOffset = localHeaderOffset + LOCAL_HEADER_LENGTH +
+            (localHeader.getShort(26) & 0xFFFF) + (localHeader.getShort(28) & 0xFFFF);
+
+        final ByteBuffer data = readFully(channel, dataOffset, toLength(compressedSize));
+
+        final byte[] content;
+
+        switch (method) {
+            case STORED:
+                content = data.array();
+                break;
+            case DEFLATED:
+                content = inflate(data.array(), toLength(uncompressedSize), name);
+                break;
+            default:
+                throw new ZipException(name + " uses an unsupported compression method (" + method + "). ");
+        }
+
+        final CRC32 checksum = new CRC32();
+
+        checksum.update(content);
+
+        if (content.length != uncompressedSize || checksum.getValue() != crc) {
+            throw new ZipException(name + " is corrupt. ");
+        }
+
+        return content;
+    }
+
+    private static byte[] inflate(final byte[] compressed, final int uncompressedSize, final String name) throws ZipException {
+
+        final Inflater inflater = new Inflater(true);
+
+        try {
+            // Without the zlib wrapper the inflater may need one byte past the end of the data
+            inflater.setInput(Arrays.copyOf(compressed, compressed.length + 1));
+
+            final byte[] content = new byte[uncompressedSize];
+            int inflated = 0;
+
+            while (!inflater.finished() && inflated < content.length) {
+                final int n = inflater.inflate(content, inflated, content.length - inflated);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                inflated += n;
+            }
+
+            if (inflated != content.length) {
+                throw new ZipException(name + " is shorter than its recorded size. ");
+            }
+
+            return content;
+        } catch (final DataFormatException e) {
+            throw new ZipException(name + " could not be inflated: " + e.getMessage());
+        } finally {
+            inflater.end();
+        }
+    }
+
+    /**
+     * Reads the entries with the given names, skipping any that the archive does not have.
+     * Each name is the full path of an entry inside the archive, such as "a/b.txt".
+     * The central directory is only read once, however many entries are requested.
+     */
+    public static ImmutableMap<String, byte[]> read(final SeekableByteChannel channel, final ImmutableSet<String> names) throws IOException {
+
+        Preconditions.checkNotNull(channel);
+        Preconditions.checkNotNull(names);
+
+        final ByteBuffer end = findEndOfCentralDirectory(channel);
+
+        final int entries = end.getShort(10) & 0xFFFF;
+        final long centralDirectorySize = end.getInt(12) & 0xFFFFFFFFL;
+        final long centralDirectoryOffset = end.getInt(16) & 0xFFFFFFFFL;
+
+        if (entries == 0xFFFF || centralDirectoryOffset == 0xFFFFFFFFL) {
+            throw new ZipException("Zip64 archives are not supported. ");
+        }
+
+        final ByteBuffer centralDirectory = readFully(
+            channel, centralDirectoryOffset, toLength(centralDirectorySize));
+
+        final Map<String, byte[]> found = new HashMap<>();
+
+        for (int i = 0; i < entries; i++) {
+
+            final int p = centralDirectory.position();
+
+            if (centralDirectory.remaining() < CENTRAL_DIRECTORY_HEADER_LENGTH ||
+                centralDirectory.getInt(p) != CENTRAL_DIRECTORY_SIGNATURE) {
+                throw new ZipException("The central directory is malformed. ");
+            }
+
+            final int nameLength = centralDirectory.getShort(p + 28) & 0xFFFF;
+            final int extraLength = centralDirectory.getShort(p + 30) & 0xFFFF;
+            final int commentLength = centralDirectory.getShort(p + 32) & 0xFFFF;
+
+            final byte[] entryName = new byte[nameLength];
+
+            centralDirectory.position(p + CENTRAL_DIRECTORY_HEADER_LENGTH);
+            centralDirectory.get(entryName);
+
+            final String name = new String(entryName, Charsets.UTF_8);
+
+            if (names.contains(name) && !found.containsKey(name)) {
+                found.put(name, readEntry(
+                    channel,
+                    name,
+                    centralDirectory.getShort(p + 10) & 0xFFFF,
+                    centralDirectory.getInt(p + 16) & 0xFFFFFFFFL,
+                    centralDirectory.getInt(p + 20) & 0xFFFFFFFFL,
+                    centralDirectory.getInt(p + 24) & 0xFFFFFFFFL,
+                    centralDirectory.getInt(p + 42) & 0xFFFFFFFFL));
+            }
+
+            centralDirectory.position(p + CENTRAL_DIRECTORY_HEADER_LENGTH + nameLength + extraLength + commentLength);
+        }
+
+        return ImmutableMap.copyOf(found);
+    }
+
+    /**
+     * Reads the entry with the given name, or nothing if the archive has no such entry.
+     */
+    public static Optional<byte[]> read(final SeekableByteChannel channel, final String name) throws IOException {
+
+        Preconditions.checkNotNull(channel);
+        Preconditions.checkNotNull(name);
+
+        return Optional.ofNullable(read(channel, ImmutableSet.of(name)).get(name));
+    }
+}
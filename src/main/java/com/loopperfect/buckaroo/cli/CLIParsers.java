@@ -86,6 +86,9 @@ public final class CLIParsers {
     static final Parser<Void> resolveTokenParser =
         Scanners.stringCaseInsensitive("resolve");
 
+    static final Parser<Void> refreshFlagParser =
+        Scanners.stringCaseInsensitive("--refresh");
+
     static final Parser<InstallExistingCommand> installExistingCommandParser =
         installTokenParser
             .between(ignoreParser, ignoreParser)
@@ -127,7 +130,8 @@ public final class CLIParsers {
 
     static final Parser<ResolveCommand> resolveCommandParser =
         resolveTokenParser.between(ignoreParser, ignoreParser)
-            .map(x -> ResolveCommand.of());
+            .next(refreshFlagParser.between(ignoreParser, ignoreParser).retn(true).asOptional())
+            .map(x -> ResolveCommand.of(x.isPresent()));
 
     public static final Parser<CLICommand> commandParser =
         Parsers.longest(
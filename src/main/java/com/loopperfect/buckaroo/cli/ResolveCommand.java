@@ -5,30 +5,38 @@ import com.loopperfect.buckaroo.tasks.ResolveTasks;
 import io.reactivex.Observable;
 
 import java.nio.file.FileSystem;
+import java.util.Objects;
 import java.util.function.Function;
 
 public final class ResolveCommand implements CLICommand {
 
-    private ResolveCommand() {
+    // Ignore the cached tag listings and resolutions
+    public final boolean refresh;
 
+    private ResolveCommand(final boolean refresh) {
+        this.refresh = refresh;
     }
 
     @Override
     public Function<FileSystem, Observable<Event>> routine() {
-        return ResolveTasks::resolveDependenciesInWorkingDirectory;
+        return fs -> ResolveTasks.resolveDependenciesInWorkingDirectory(fs, refresh);
     }
 
     @Override
     public int hashCode() {
-        return 0;
+        return Objects.hash(refresh);
     }
 
     @Override
     public boolean equals(final Object obj) {
-        return obj != null && obj instanceof ResolveCommand;
+        return obj != null && obj instanceof ResolveCommand && refresh == ((ResolveCommand) obj).refresh;
+    }
+
+    public static ResolveCommand of(final boolean refresh) {
+        return new ResolveCommand(refresh);
     }
 
     public static ResolveCommand of() {
-        return new ResolveCommand();
+        return new ResolveCommand(false);
     }
 }
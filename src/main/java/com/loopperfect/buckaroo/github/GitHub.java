@@ -4,6 +4,7 @@ import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Streams;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonParser;
 import com.loopperfect.buckaroo.*;
@@ -11,24 +12,32 @@ import com.loopperfect.buckaroo.Process;
 import com.loopperfect.buckaroo.github.serialization.GitHubSerializer;
 import com.loopperfect.buckaroo.tasks.DownloadTask;
 import io.reactivex.Observable;
+import io.reactivex.Scheduler;
 import io.reactivex.Single;
-import org.eclipse.jgit.api.LsRemoteCommand;
+import io.reactivex.schedulers.Schedulers;
+import org.eclipse.jgit.api.Git;
 import org.eclipse.jgit.api.errors.GitAPIException;
 import org.eclipse.jgit.lib.Ref;
-import org.eclipse.jgit.lib.Repository;
-import org.eclipse.jgit.storage.file.FileRepositoryBuilder;
 
 import java.io.IOException;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.nio.file.Path;
-import java.nio.file.Paths;
 import java.util.Collection;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.Executors;
 import java.util.stream.StreamSupport;
 
 public final class GitHub {
 
+    // Each listing is a network round-trip, so several run at once, but not so many that GitHub refuses them
+    public static final int LS_REMOTE_CONCURRENCY = 8;
+
+    private static final Scheduler lsRemoteScheduler = Schedulers.from(Executors.newFixedThreadPool(
+        LS_REMOTE_CONCURRENCY,
+        new ThreadFactoryBuilder().setDaemon(true).setNameFormat("ls-remote-%d").build()));
+
     private GitHub() {
 
     }
@@ -47,6 +56,14 @@ public final class GitHub {
         }
     }
 
+    public static String cloneURL(final Identifier owner, final Identifier project) {
+
+        Objects.requireNonNull(owner);
+        Objects.requireNonNull(project);
+
+        return "https://github.com/" + owner.name + "/" + project.name + ".git";
+    }
+
     public static URL fileURL(final Identifier owner, final Identifier project, final GitCommitHash commit, final Path path) {
 
         Objects.requireNonNull(owner);
@@ -58,7 +75,7 @@ public final class GitHub {
 
         try {
             return new URL("https://raw.githubusercontent.com/" + owner.name + "/" +
-                project.name + "/" + commit.hash + "/" + pathSection);
+                project.name + "/" + commit.hash + pathSection);
         } catch (final MalformedURLException e) {
             // Should not happen because we build the URL from sanitized inputs
             throw new IllegalStateException(e);
@@ -72,9 +89,7 @@ public final class GitHub {
 
         final String gitURL = "git@github.com:" + owner.name + "/" + repo.name + ".git";
 
-        // The repository is not actually used, JGit just seems to require it.
-        final Repository repository = FileRepositoryBuilder.create(Paths.get("").toFile());
-        final Collection<Ref> refs = new LsRemoteCommand(repository)
+        final Collection<Ref> refs = Git.lsRemoteRepository()
             .setRemote(gitURL)
             .setTags(true)
             .call();
@@ -93,7 +108,32 @@ public final class GitHub {
         Preconditions.checkNotNull(owner);
         Preconditions.checkNotNull(repo);
 
-        return Process.of(Single.fromCallable(() -> fetchTags(owner, repo)));
+        return Process.of(Single.fromCallable(() -> fetchTags(owner, repo)).subscribeOn(lsRemoteScheduler));
+    }
+
+    /**
+     * Lists the tags using the cache when its entry is fresh enough, and refreshes the entry otherwise.
+     */
+    public static Process<Event, ImmutableMap<String, GitCommitHash>> fetchReleases(
+        final Identifier owner, final Identifier repo, final TagCache cache)  {
+
+        Preconditions.checkNotNull(owner);
+        Preconditions.checkNotNull(repo);
+        Preconditions.checkNotNull(cache);
+
+        return Process.of(Single.fromCallable(() -> {
+            final Optional<ImmutableMap<String, GitCommitHash>> cached = cache.get(owner, repo);
+            if (cached.isPresent()) {
+                return cached.get();
+            }
+            final ImmutableMap<String, GitCommitHash> tags = fetchTags(owner, repo);
+            try {
+                cache.put(owner, repo, tags);
+            } catch (final IOException ignored) {
+                // A failure to write the cache should not fail the listing
+            }
+            return tags;
+        }).subscribeOn(lsRemoteScheduler));
     }
 
     // We are not using this because the GitHub API limits are quite strict without an access token.
@@ -1,34 +1,65 @@
 package com.loopperfect.buckaroo.github;
 
+import com.google.common.base.Charsets;
 import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
-import com.google.common.jimfs.Jimfs;
+import com.google.common.collect.ImmutableSet;
 import com.loopperfect.buckaroo.*;
 import com.loopperfect.buckaroo.Process;
 import com.loopperfect.buckaroo.events.*;
+import com.loopperfect.buckaroo.serialization.Serializers;
 import com.loopperfect.buckaroo.tasks.CacheTasks;
-import com.loopperfect.buckaroo.tasks.CommonTasks;
 import com.loopperfect.buckaroo.tasks.DownloadTask;
+import com.loopperfect.buckaroo.tasks.RemoteZipReader;
+import com.loopperfect.buckaroo.versioning.AnySemanticVersion;
 import io.reactivex.Observable;
 import io.reactivex.Single;
+import io.reactivex.schedulers.Schedulers;
+import org.javatuples.Pair;
 
 import java.net.URL;
 import java.nio.file.FileSystem;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 public final class GitHubRecipeSource implements RecipeSource {
 
+    // Enough to overlap the round-trips without tripping GitHub's abuse detection
+    public static final int DEFAULT_CONCURRENCY = 4;
+
     private final FileSystem fs;
 
-    private GitHubRecipeSource(final FileSystem fs) {
+    private final RecipeVersionStore store;
+    private final TagCache tagCache;
+
+    // These live as long as the source, which is a single command
+    private final ConcurrentMap<RecipeIdentifier, ImmutableMap<SemanticVersion, GitCommitHash>> tags;
+    private final ConcurrentMap<Pair<RecipeIdentifier, GitCommitHash>, RecipeVersion> recipeVersions;
+
+    private GitHubRecipeSource(final FileSystem fs, final RecipeVersionStore store, final TagCache tagCache) {
 
         Preconditions.checkNotNull(fs);
+        Preconditions.checkNotNull(store);
+        Preconditions.checkNotNull(tagCache);
 
         this.fs = fs;
+        this.store = store;
+        this.tagCache = tagCache;
+        this.tags = new ConcurrentHashMap<>();
+        this.recipeVersions = new ConcurrentHashMap<>();
     }
 
+    /**
+     * Reads the version from its project file alone, without downloading the whole archive.
+     * The project file is read out of the archive if it is cached, or with range requests
+     * if GitHub serves the archive in ranges, or else from its raw URL, which is one small request.
+     * The version is found by its commit until it is pinned to an archive.
+     */
     private static Process<Event, RecipeVersion> fetchRecipeVersion(
         final FileSystem fs, final Identifier owner, final Identifier project, final GitCommitHash commit) {
 
@@ -37,101 +68,272 @@ public final class GitHubRecipeSource implements RecipeSource {
         Preconditions.checkNotNull(project);
         Preconditions.checkNotNull(commit);
 
+        final URL projectFile = GitHub.fileURL(owner, project, commit, fs.getPath("buckaroo.json"));
+        final URL release = GitHub.zipURL(owner, project, commit);
+        final Path archive = CacheTasks.getCachePath(fs, release, Optional.of("zip"));
+        final String entry = project.name + "-" + commit.hash + "/buckaroo.json";
+
+        // When the archive has already been downloaded, the project file is read out of it instead
+        final Process<Event, Optional<String>> cached = Process.of(Single.fromCallable(() ->
+            Files.exists(archive) ?
+                EvenMoreFiles.readZipEntry(archive, entry).map(x -> new String(x, Charsets.UTF_8)) :
+                Optional.<String>empty())
+            .onErrorReturnItem(Optional.empty())
+            .subscribeOn(Schedulers.io()));
+
+        // Otherwise only the end of the remote archive and the project file are transferred, if possible
+        final Process<Event, Optional<String>> ranged = Process.of(
+            RemoteZipReader.readEntriesUsingRanges(release, ImmutableSet.of(entry))
+                .result()
+                .map(entries -> entries.flatMap(x -> Optional.ofNullable(x.get(entry)))
+                    .map(x -> new String(x, Charsets.UTF_8)))
+                .onErrorReturnItem(Optional.empty()));
+
+        return cached
+            .chain(content -> content.isPresent() ? Process.just(content) : ranged)
+            .chain(content -> content.isPresent() ? Process.just(content.get()) : DownloadTask.download(projectFile))
+            .chain(content -> Process.<Event, Project>of(Single.fromCallable(() ->
+                Either.orThrow(Serializers.parseProject(content)))
+                .onErrorResumeNext(error -> Single.error(new FetchRecipeException(
+                    "Could not read the project file at " + projectFile + ". ", error)))))
+            .map(p -> RecipeVersion.of(
+                GitCommit.of(GitHub.cloneURL(owner, project), commit.hash),
+                p.target,
+                p.dependencies,
+                Optional.empty()));
+    }
+
+    private static Process<Event, RemoteArchive> fetchRemoteArchive(
+        final FileSystem fs, final Identifier owner, final Identifier project, final GitCommitHash commit) {
+
+        Preconditions.checkNotNull(fs);
+        Preconditions.checkNotNull(owner);
+        Preconditions.checkNotNull(project);
+        Preconditions.checkNotNull(commit);
+
         final URL release = GitHub.zipURL(owner, project, commit);
         final Path cachePath = CacheTasks.getCachePath(fs, release, Optional.of("zip"));
+        final String subPath = fs.getPath(fs.getSeparator(), project.name + "-" + commit.hash).toString();
 
-        return Process.concat(
+        final RecipeIdentifier identifier = RecipeIdentifier.of(Identifier.of("github"), owner, project);
 
-            // 1. Download the release to the cache
-            Process.of(
-                Observable.combineLatest(
-                    Observable.just(RecipeIdentifier.of(Identifier.of("github"), owner, project)),
-                    DownloadTask.download(release, cachePath, true),
-                    FetchGithubProgressEvent::of
-                ),
-                Single.just(FileDownloadedEvent.of(release, cachePath))),
+        // The archive is hashed as it is downloaded to the cache
+        return DownloadTask.downloadResumably(release, cachePath)
+            .<Event>mapStates(downloadProgress -> FetchGithubProgressEvent.of(identifier, downloadProgress))
+            .chain(sha256 -> Process.<Event, RemoteArchive>just(
+                RemoteArchive.of(release, sha256, subPath),
+                FileDownloadedEvent.of(release, cachePath),
+                FileHashEvent.of(cachePath, sha256)));
+    }
 
-            Process.chain(
+    // Every semantic version tag, before any of them have been materialized
+    private Process<Event, ImmutableMap<SemanticVersion, GitCommitHash>> stubs(final RecipeIdentifier identifier) {
 
-                // 2. Compute the hash
-                Process.of(CommonTasks.hash(cachePath)),
+        Preconditions.checkNotNull(identifier);
 
-                (FileHashEvent fileHashEvent) -> {
+        final ImmutableMap<SemanticVersion, GitCommitHash> existing = tags.get(identifier);
 
-                    final FileSystem inMemoryFS = Jimfs.newFileSystem();
+        if (existing != null) {
+            return Process.just(existing);
+        }
 
-                    final Path unzipTargetPath = inMemoryFS.getPath(fileHashEvent.sha256.toString());
-                    final Path subPath = fs.getPath(fs.getSeparator(), project.name + "-" + commit.hash);
-                    final Path projectFilePath = unzipTargetPath.resolve("buckaroo.json");
+        return GitHub.fetchReleases(identifier.organization, identifier.recipe, tagCache).chain(releases -> {
 
-                    return Process.chain(
+            final ImmutableMap<SemanticVersion, GitCommitHash> semanticVersionReleases = releases.entrySet()
+                .stream()
+                .filter(x -> SemanticVersion.parse(x.getKey()).isPresent())
+                .collect(ImmutableMap.toImmutableMap(
+                    i -> SemanticVersion.parse(i.getKey()).get(),
+                    Map.Entry::getValue));
 
-                        // 3. Unzip
-                        Process.of(CommonTasks.unzip(cachePath, unzipTargetPath, Optional.of(subPath))),
+            if (semanticVersionReleases.isEmpty()) {
+                return Process.error(new FetchRecipeException("No releases found for " + identifier.encode() + ". "));
+            }
 
-                        (FileUnzipEvent fileUnzipEvent) -> Process.chain(
+            tags.put(identifier, semanticVersionReleases);
 
-                            // 4. Read the project file
-                            CommonTasks.readProjectFile(projectFilePath),
+            return Process.just(semanticVersionReleases);
+        });
+    }
 
-                            // 5. Generate a recipe version from the project file and hash
-                            (Project p) -> {
+    private Process<Event, RecipeVersion> materialize(final RecipeIdentifier identifier, final GitCommitHash commit) {
 
-                                final RemoteArchive remoteArchive = RemoteArchive.of(
-                                    release,
-                                    fileHashEvent.sha256,
-                                    subPath.toString());
+        Preconditions.checkNotNull(identifier);
+        Preconditions.checkNotNull(commit);
 
-                                return Process.just(RecipeVersion.of(
-                                    remoteArchive,
-                                    p.target,
-                                    p.dependencies,
-                                    Optional.empty()));
-                            }));
-                })
-        );
+        final Pair<RecipeIdentifier, GitCommitHash> key = Pair.with(identifier, commit);
+        final RecipeVersion existing = recipeVersions.get(key);
+
+        if (existing != null) {
+            return Process.just(existing);
+        }
+
+        // The store is consulted before the network, since a commit never changes
+        return Process.<Event, Optional<RecipeVersion>>of(
+            Single.fromCallable(() -> store.get(identifier.organization, identifier.recipe, commit))
+                .subscribeOn(Schedulers.io()))
+            .chain(stored -> stored.isPresent() ?
+                Process.just(stored.get()) :
+                fetchRecipeVersion(fs, identifier.organization, identifier.recipe, commit)
+                    .chain(recipeVersion -> remember(identifier, commit, recipeVersion)))
+            .map(recipeVersion -> {
+                recipeVersions.put(key, recipeVersion);
+                return recipeVersion;
+            });
+    }
+
+    // A failure to write the store should not fail the fetch
+    private Process<Event, RecipeVersion> remember(
+        final RecipeIdentifier identifier, final GitCommitHash commit, final RecipeVersion recipeVersion) {
+
+        Preconditions.checkNotNull(identifier);
+        Preconditions.checkNotNull(commit);
+        Preconditions.checkNotNull(recipeVersion);
+
+        return Process.of(Single.fromCallable(() -> {
+            store.put(identifier.organization, identifier.recipe, commit, recipeVersion);
+            return recipeVersion;
+        }).subscribeOn(Schedulers.io()).onErrorReturnItem(recipeVersion));
     }
 
     @Override
     public Process<Event, Recipe> fetch(final RecipeIdentifier identifier) {
+        Preconditions.checkNotNull(identifier);
+        return fetch(identifier, AnySemanticVersion.of());
+    }
+
+    /**
+     * Downloads and hashes the archive of a version found by this source.
+     */
+    @Override
+    public Process<Event, RecipeVersion> pin(final RecipeIdentifier identifier, final RecipeVersion recipeVersion) {
 
         Preconditions.checkNotNull(identifier);
+        Preconditions.checkNotNull(recipeVersion);
+
+        final Optional<GitCommit> gitCommit = recipeVersion.source.left()
+            .filter(x -> x.url.equals(GitHub.cloneURL(identifier.organization, identifier.recipe)));
+
+        if (!gitCommit.isPresent()) {
+            return Process.just(recipeVersion);
+        }
+
+        final GitCommitHash commit = GitCommitHash.of(gitCommit.get().commit);
+
+        // Pinned versions are kept in the store, so each archive is only downloaded and hashed once
+        return Process.<Event, Optional<RecipeVersion>>of(
+            Single.fromCallable(() -> store.get(identifier.organization, identifier.recipe, commit)
+                .filter(x -> x.source.isRight()))
+                .subscribeOn(Schedulers.io()))
+            .chain(stored -> stored.isPresent() ?
+                Process.just(stored.get()) :
+                fetchRemoteArchive(fs, identifier.organization, identifier.recipe, commit)
+                    .map(remoteArchive -> RecipeVersion.of(
+                        Either.right(remoteArchive),
+                        recipeVersion.target,
+                        recipeVersion.dependencies,
+                        recipeVersion.buckResource))
+                    .chain(pinned -> remember(identifier, commit, pinned)));
+    }
 
-        return GitHub.fetchReleases(identifier.organization, identifier.recipe).chain(releases -> {
+    /**
+     * Only downloads the releases that satisfy the requirement, newest first.
+     *
+     * A few releases are downloaded at once, so that their round-trips overlap,
+     * but their events still arrive newest first.
+     * The tags of each repository are listed once, and each release is downloaded once,
+     * so later fetches with other requirements only download what is new to them.
+     */
+    @Override
+    public Process<Event, Recipe> fetch(final RecipeIdentifier identifier, final SemanticVersionRequirement requirement) {
 
-            final ImmutableMap<SemanticVersion, GitCommitHash> semanticVersionReleases = releases.entrySet()
-                .stream()
-                .filter(x -> SemanticVersion.parse(x.getKey()).isPresent())
-                .collect(ImmutableMap.toImmutableMap(
-                    i -> SemanticVersion.parse(i.getKey()).get(),
-                    Map.Entry::getValue));
+        Preconditions.checkNotNull(identifier);
+        Preconditions.checkNotNull(requirement);
 
-            if (semanticVersionReleases.isEmpty()) {
-                return Process.error(new FetchRecipeException("No releases found for " + identifier.encode() + ". "));
-            }
+        return stubs(identifier).chain(stubs -> Process.of(Observable.defer(() -> {
 
-            final ImmutableMap<SemanticVersion, Process<Event, RecipeVersion>> tasks = semanticVersionReleases.entrySet()
+            final ImmutableList<Map.Entry<SemanticVersion, GitCommitHash>> satisfying = stubs.entrySet()
                 .stream()
-                .collect(ImmutableMap.toImmutableMap(
-                    Map.Entry::getKey,
-                    x -> fetchRecipeVersion(fs, identifier.organization, identifier.recipe, x.getValue())));
-
-            final Process<Event, ImmutableMap<SemanticVersion, RecipeVersion>> identity = Process.just(ImmutableMap.of());
-
-            return tasks.entrySet().stream()
-                .reduce(
-                    identity,
-                    (state, next) -> Process.chain(state, map ->
-                        next.getValue().map(recipeVersion -> MoreMaps.with(map, next.getKey(), recipeVersion))),
-                    (i, j) -> Process.chain(i, x -> j.map(y -> MoreMaps.merge(x, y))))
-                .map(recipeVersions -> Recipe.of(
+                .filter(x -> requirement.isSatisfiedBy(x.getKey()))
+                .sorted(Map.Entry.<SemanticVersion, GitCommitHash>comparingByKey().reversed())
+                .collect(ImmutableList.toImmutableList());
+
+            final Map<SemanticVersion, RecipeVersion> materialized = new ConcurrentHashMap<>();
+
+            return Observable.fromIterable(satisfying)
+                .concatMapEager(
+                    next -> materialize(identifier, next.getValue())
+                        .toObservable()
+                        .filter(x -> {
+                            if (x.isRight()) {
+                                materialized.put(next.getKey(), x.right().get());
+                            }
+                            return x.isLeft();
+                        })
+                        .map(x -> Either.<Event, Recipe>left(x.left().get())),
+                    DEFAULT_CONCURRENCY,
+                    Observable.bufferSize())
+                .concatWith(Observable.fromCallable(() -> Either.right(Recipe.of(
                     identifier.recipe.name,
                     "https://github.com/" + identifier.organization + "/" + identifier.recipe,
-                    recipeVersions));
-        });
+                    satisfying.stream().collect(ImmutableMap.toImmutableMap(
+                        Map.Entry::getKey,
+                        x -> materialized.get(x.getKey())))))));
+        })));
+    }
+
+    /**
+     * Lists the tags of every repository together, then fetches the recipes a few
+     * at a time, so that the round-trips of different repositories overlap.
+     */
+    @Override
+    public Process<Event, ImmutableMap<RecipeIdentifier, Either<Throwable, Recipe>>> fetchAll(
+        final ImmutableMap<RecipeIdentifier, SemanticVersionRequirement> requirements) {
+
+        Preconditions.checkNotNull(requirements);
+
+        return Process.of(Observable.defer(() -> {
+
+            final ImmutableList<RecipeIdentifier> distinct = requirements.keySet().asList();
+            final Map<RecipeIdentifier, Either<Throwable, Recipe>> recipes = new ConcurrentHashMap<>();
+
+            // Every listing is started at once, since GitHub.fetchReleases bounds how many run together
+            final Observable<Either<Event, ImmutableMap<RecipeIdentifier, Either<Throwable, Recipe>>>> listings =
+                Observable.fromIterable(distinct)
+                    .flatMap(identifier -> stubs(identifier).states()
+                        // A listing that fails is retried and reported by the fetch
+                        .onErrorResumeNext(Observable.empty()))
+                    .map(Either::left);
+
+            return listings.concatWith(Observable.fromIterable(distinct)
+                .flatMap(
+                    identifier -> fetch(identifier, requirements.get(identifier))
+                        .map(Either::<Throwable, Recipe>right)
+                        .onErrorReturn(Either::left)
+                        .toObservable()
+                        .filter(x -> {
+                            if (x.isRight()) {
+                                recipes.put(identifier, x.right().get());
+                            }
+                            return x.isLeft();
+                        })
+                        .map(x -> Either.<Event, ImmutableMap<RecipeIdentifier, Either<Throwable, Recipe>>>left(
+                            x.left().get())),
+                    DEFAULT_CONCURRENCY)
+                .concatWith(Observable.fromCallable(() -> Either.right(distinct.stream()
+                    .collect(ImmutableMap.toImmutableMap(x -> x, recipes::get))))));
+        }));
+    }
+
+    public static RecipeSource of(final FileSystem fs, final RecipeVersionStore store, final TagCache tagCache) {
+        return new GitHubRecipeSource(fs, store, tagCache);
+    }
+
+    public static RecipeSource of(final FileSystem fs, final RecipeVersionStore store) {
+        return new GitHubRecipeSource(fs, store, TagCache.of(fs));
     }
 
     public static RecipeSource of(final FileSystem fs) {
-        return new GitHubRecipeSource(fs);
+        return new GitHubRecipeSource(fs, RecipeVersionStore.of(fs), TagCache.of(fs));
     }
 }
@@ -0,0 +1,69 @@
+package com.loopperfect.buckaroo.github;
+
+import com.google.common.base.Preconditions;
+import com.loopperfect.buckaroo.*;
+import com.loopperfect.buckaroo.serialization.Serializers;
+import com.loopperfect.buckaroo.tasks.CacheTasks;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.Optional;
+
+/**
+ * Remembers the recipe version found at each commit of a GitHub project, under the cache folder.
+ *
+ * A commit never changes, so entries never expire. An entry is only replaced when
+ * its version is pinned. Entries that cannot be read are treated as missing.
+ */
+public final class RecipeVersionStore {
+
+    private final Path folder;
+
+    private RecipeVersionStore(final Path folder) {
+        this.folder = Preconditions.checkNotNull(folder);
+    }
+
+    public Path getPath(final Identifier owner, final Identifier project, final GitCommitHash commit) {
+
+        Preconditions.checkNotNull(owner);
+        Preconditions.checkNotNull(project);
+        Preconditions.checkNotNull(commit);
+
+        return folder.resolve(owner.name).resolve(project.name).resolve(commit.hash + ".json");
+    }
+
+    public Optional<RecipeVersion> get(final Identifier owner, final Identifier project, final GitCommitHash commit) {
+
+        final Path path = getPath(owner, project, commit);
+
+        try {
+            if (!Files.exists(path)) {
+                return Optional.empty();
+            }
+            return Serializers.parseRecipeVersion(EvenMoreFiles.read(path)).toOptional();
+        } catch (final IOException e) {
+            return Optional.empty();
+        }
+    }
+
+    public void put(
+        final Identifier owner,
+        final Identifier project,
+        final GitCommitHash commit,
+        final RecipeVersion recipeVersion) throws IOException {
+
+        Preconditions.checkNotNull(recipeVersion);
+
+        // Readers never see a partly written entry
+        EvenMoreFiles.replaceFile(getPath(owner, project, commit), Serializers.serialize(recipeVersion));
+    }
+
+    public static RecipeVersionStore of(final Path folder) {
+        return new RecipeVersionStore(folder);
+    }
+
+    public static RecipeVersionStore of(final FileSystem fs) {
+        Preconditions.checkNotNull(fs);
+        return new RecipeVersionStore(CacheTasks.getCacheFolder(fs).resolve("github"));
+    }
+}
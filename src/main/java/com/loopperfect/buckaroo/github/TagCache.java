@@ -0,0 +1,119 @@
+package com.loopperfect.buckaroo.github;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableMap;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.loopperfect.buckaroo.EvenMoreFiles;
+import com.loopperfect.buckaroo.GitCommitHash;
+import com.loopperfect.buckaroo.Identifier;
+import com.loopperfect.buckaroo.tasks.CacheTasks;
+
+import java.io.IOException;
+import java.nio.file.FileSystem;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Remembers the tags of each GitHub project, under the cache folder.
+ *
+ * Unlike commits, tags can be added or moved, so an entry is only used until
+ * it is older than the time-to-live. A time-to-live of zero forces a refresh.
+ * Entries that cannot be read are treated as missing.
+ */
+public final class TagCache {
+
+    public static final Duration DEFAULT_TIME_TO_LIVE = Duration.ofHours(1);
+
+    private final Path folder;
+    private final Duration timeToLive;
+    private final Clock clock;
+
+    private TagCache(final Path folder, final Duration timeToLive, final Clock clock) {
+
+        Preconditions.checkNotNull(folder);
+        Preconditions.checkNotNull(timeToLive);
+        Preconditions.checkNotNull(clock);
+        Preconditions.checkArgument(!timeToLive.isNegative());
+
+        this.folder = folder;
+        this.timeToLive = timeToLive;
+        this.clock = clock;
+    }
+
+    public Path getPath(final Identifier owner, final Identifier project) {
+
+        Preconditions.checkNotNull(owner);
+        Preconditions.checkNotNull(project);
+
+        return folder.resolve(owner.name).resolve(project.name + ".json");
+    }
+
+    public Optional<ImmutableMap<String, GitCommitHash>> get(final Identifier owner, final Identifier project) {
+
+        final Path path = getPath(owner, project);
+
+        try {
+            if (!Files.exists(path)) {
+                return Optional.empty();
+            }
+
+            final JsonObject jsonObject = new JsonParser().parse(EvenMoreFiles.read(path)).getAsJsonObject();
+            final long age = clock.millis() - jsonObject.get("fetched").getAsLong();
+
+            if (age < 0 || age >= timeToLive.toMillis()) {
+                return Optional.empty();
+            }
+
+            return Optional.of(jsonObject.getAsJsonObject("tags").entrySet()
+                .stream()
+                .collect(ImmutableMap.toImmutableMap(
+                    Map.Entry::getKey,
+                    x -> GitCommitHash.of(x.getValue().getAsString()))));
+        } catch (final IOException | RuntimeException e) {
+            return Optional.empty();
+        }
+    }
+
+    public void put(
+        final Identifier owner,
+        final Identifier project,
+        final ImmutableMap<String, GitCommitHash> tags) throws IOException {
+
+        Preconditions.checkNotNull(tags);
+
+        final JsonObject tagsObject = new JsonObject();
+
+        for (final Map.Entry<String, GitCommitHash> entry : tags.entrySet()) {
+            tagsObject.addProperty(entry.getKey(), entry.getValue().hash);
+        }
+
+        final JsonObject jsonObject = new JsonObject();
+
+        jsonObject.addProperty("fetched", clock.millis());
+        jsonObject.add("tags", tagsObject);
+
+        EvenMoreFiles.replaceFile(getPath(owner, project), jsonObject.toString());
+    }
+
+    public static TagCache of(final Path folder, final Duration timeToLive, final Clock clock) {
+        return new TagCache(folder, timeToLive, clock);
+    }
+
+    public static TagCache of(final Path folder, final Duration timeToLive) {
+        return new TagCache(folder, timeToLive, Clock.systemUTC());
+    }
+
+    public static TagCache of(final FileSystem fs, final Duration timeToLive) {
+        Preconditions.checkNotNull(fs);
+        return new TagCache(CacheTasks.getCacheFolder(fs).resolve("github-tags"), timeToLive, Clock.systemUTC());
+    }
+
+    public static TagCache of(final FileSystem fs) {
+        return of(fs, DEFAULT_TIME_TO_LIVE);
+    }
+}
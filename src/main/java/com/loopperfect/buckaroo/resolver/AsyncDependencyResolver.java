@@ -4,102 +4,231 @@ import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableList;
 import com.loopperfect.buckaroo.*;
 import com.loopperfect.buckaroo.Process;
+import com.loopperfect.buckaroo.sources.ConcurrencyLimitedRecipeSource;
 import io.reactivex.Observable;
 import io.reactivex.Single;
 import org.javatuples.Pair;
 
 import java.util.Comparator;
-import java.util.Map;
-import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Function;
+import java.util.function.Predicate;
 
 import static com.google.common.collect.ImmutableList.toImmutableList;
 
+/**
+ * A dependency resolver that explores the candidate versions of each project in parallel
+ * and keeps the resolution that scores best.
+ *
+ * Candidates are explored best scoring first, then newest first, with a limit on how many
+ * recipes are fetched at once across the whole resolution. Any branch that can no longer beat
+ * the best resolution found so far, or that conflicts with a requirement it has already taken on,
+ * is disposed along with its pending fetches.
+ * Scores are carried along each branch and updated as projects are added,
+ * so a resolution is never scored from scratch.
+ */
 public final class AsyncDependencyResolver {
 
+    public static final int DEFAULT_CONCURRENCY = 4;
+
     private AsyncDependencyResolver() {}
 
-    private static Process<Event, ResolvedDependencies> step(
+    /**
+     * A partial resolution together with its score.
+     */
+    private static final class Scored {
+
+        public final ResolvedDependencies dependencies;
+        public final int score;
+
+        private Scored(final ResolvedDependencies dependencies, final int score) {
+            this.dependencies = Preconditions.checkNotNull(dependencies);
+            this.score = score;
+        }
+
+        public Scored add(
+            final ResolutionStrategy strategy,
+            final RecipeIdentifier identifier,
+            final Pair<SemanticVersion, RecipeVersion> dependency) {
+            return new Scored(
+                dependencies.add(identifier, dependency),
+                strategy.score(score, dependencies, identifier, dependency));
+        }
+    }
+
+    private static Process<Event, Scored> step(
         final RecipeSource recipeSource,
-        final ResolvedDependencies resolved,
+        final Scored resolved,
         final Dependency next,
-        final ResolutionStrategy strategy) {
+        final ResolutionStrategy strategy,
+        final Predicate<Scored> abandoned) {
 
         Preconditions.checkNotNull(recipeSource);
         Preconditions.checkNotNull(resolved);
         Preconditions.checkNotNull(next);
         Preconditions.checkNotNull(strategy);
+        Preconditions.checkNotNull(abandoned);
 
-        if (resolved.dependencies.containsKey(next.project)) {
-            final SemanticVersion resolvedVersion = resolved.dependencies.get(next.project).getValue0();
+        if (abandoned.test(resolved)) {
+            return Process.error(new DependencyResolutionException("Abandoned " + next + " since it cannot improve on the best resolution"));
+        }
+
+        if (resolved.dependencies.dependencies.containsKey(next.project)) {
+            final SemanticVersion resolvedVersion = resolved.dependencies.dependencies.get(next.project).getValue0();
             return Process.of(
-                Observable.just(ResolvedDependenciesEvent.of(resolved)),
+                Observable.just(ResolvedDependenciesEvent.of(resolved.dependencies)),
                 next.requirement.isSatisfiedBy(resolvedVersion) ?
                     Single.just(resolved) :
                     Single.error(new DependencyResolutionException(
                         next.project.encode() + "@" + resolvedVersion.encode() + " does not satisfy " + next.encode())));
         }
 
-        return recipeSource.fetch(next.project).chain(recipe -> {
+        // The requirements on this project already have no version in common, so there is no need to fetch it
+        if (!resolved.dependencies.admits(next)) {
+            return Process.error(new DependencyResolutionException("Could not satisfy " + next));
+        }
 
-            final ImmutableList<Process<Event, ResolvedDependencies>> candidates = recipe.versions.entrySet()
+        return recipeSource.fetch(next.project, next.requirement).chain(recipe -> {
+
+            // Best scoring first and then newest first, so that the most promising branches set the bar early
+            final ImmutableList<Scored> candidates = recipe.versionsSatisfying(next.requirement)
                 .stream()
-                .filter(x -> next.requirement.isSatisfiedBy(x.getKey()))
-                .sorted(Comparator.comparing(Map.Entry::getKey))
-                .map(entry -> {
+                .filter(x -> x.getValue().dependencies.orElse(DependencyGroup.of()).entries()
+                    .stream()
+                    .allMatch(resolved.dependencies::admits))
+                .map(entry -> resolved.add(strategy, next.project, Pair.with(entry.getKey(), entry.getValue())))
+                .sorted(Comparator.comparingInt((Scored x) -> x.score).reversed())
+                .collect(toImmutableList());
+
+            return Process.of(Observable.defer(() -> {
+
+                // Only touched from the serialized output of flatMap, but read by branches on other threads
+                final AtomicInteger best = new AtomicInteger(Integer.MIN_VALUE);
+                final AtomicReference<Pair<Integer, Scored>> winner = new AtomicReference<>();
+
+                // A branch is abandoned once it cannot beat the best so far, or cannot be completed at all,
+                // or when its parent is
+                final Predicate<Scored> beaten = x -> {
+                    final int bound = strategy.upperBound(x.dependencies, x.score);
+                    return bound == Integer.MIN_VALUE || bound < best.get();
+                };
+
+                return Observable.range(0, candidates.size())
+                    .flatMap(
+                        i -> explore(recipeSource, candidates.get(i), next, strategy, abandoned.or(beaten))
+                            .map(x -> x.rightMap(y -> Pair.with(i, y))))
+                    .filter(x -> {
+                        if (x.isLeft()) {
+                            return true;
+                        }
+                        final Pair<Integer, Scored> result = x.right().get();
+                        final int score = result.getValue1().score;
+                        final Pair<Integer, Scored> current = winner.get();
+                        // Ties go to the candidate explored first, whatever order the branches finish in
+                        if (current == null || score > best.get() ||
+                            score == best.get() && result.getValue0() < current.getValue0()) {
+                            winner.set(result);
+                            best.set(score);
+                        }
+                        return false;
+                    })
+                    .map(x -> Either.<Event, Scored>left(x.left().get()))
+                    .concatWith(Observable.defer(() -> winner.get() == null ?
+                        Observable.error(new DependencyResolutionException("Could not satisfy " + next)) :
+                        Observable.just(Either.right(winner.get().getValue1()))));
+            }));
+        });
+    }
 
-                    final ResolvedDependencies nextResolved = resolved.add(
-                        next.project,
-                        Pair.with(entry.getKey(), entry.getValue()));
+    /**
+     * Resolves the dependencies of a single candidate.
+     *
+     * A branch that fails, or is abandoned part-way through, simply produces no result.
+     * Since the failure ends the branch, any fetches still pending inside it are disposed.
+     */
+    private static Observable<Either<Event, Scored>> explore(
+        final RecipeSource recipeSource,
+        final Scored candidate,
+        final Dependency next,
+        final ResolutionStrategy strategy,
+        final Predicate<Scored> abandoned) {
 
-                    final ImmutableList<Dependency> nextDependencies = ImmutableList.copyOf(
-                        entry.getValue().dependencies.orElse(DependencyGroup.of()).entries());
+        return Observable.defer(() -> {
 
-                    return resolve(
-                        recipeSource,
-                        nextResolved,
-                        nextDependencies,
-                        strategy);
-                }).collect(toImmutableList());
+            if (abandoned.test(candidate)) {
+                return Observable.empty();
+            }
 
-            return Process.of(
-                Process.merge(candidates.stream()
-                    .map(x -> x.map(Optional::of)
-                        .onErrorReturn(error -> Optional.empty()))
-                    .collect(ImmutableList.toImmutableList()))
-                    .map(x -> x.stream()
-                        .filter(Optional::isPresent)
-                        .map(Optional::get)
-                        .max(Comparator.comparing(strategy::score)))
-                    .toObservable()
-                    .flatMap(x -> {
-                        if (x.isLeft() || x.isRight() && x.right().get().isPresent()) {
-                            final Either<Event, ResolvedDependencies> e = x.rightMap(Optional::get);
-                            return Observable.just(e);
-                        }
-                        return Observable.error(new DependencyResolutionException("Could not satisfy " + next));
-                    }));
+            final ImmutableList<Dependency> nextDependencies = candidate.dependencies.get(next.project)
+                .getValue1()
+                .dependencies
+                .map(DependencyGroup::entries)
+                .orElse(ImmutableList.of());
+
+            return resolve(recipeSource, candidate, nextDependencies, strategy, abandoned)
+                .toObservable()
+                .onErrorResumeNext(Observable.empty());
         });
     }
 
-    private static Process<Event, ResolvedDependencies> resolve(
+    private static Process<Event, Scored> resolve(
+        final RecipeSource recipeSource,
+        final Scored resolved,
+        final ImmutableList<Dependency> dependencies,
+        final ResolutionStrategy strategy,
+        final Predicate<Scored> abandoned) {
+
+        return Process.chainN(
+            Process.just(resolved),
+            dependencies.stream()
+                .map((Dependency dependency) ->
+                    (Function<Scored, Process<Event, Scored>>) x ->
+                        step(recipeSource, x, dependency, strategy, abandoned))
+                .collect(ImmutableList.toImmutableList()));
+    }
+
+    /**
+     * Resolves the dependencies, choosing the resolution with the best score.
+     *
+     * @param maxConcurrency the number of recipes fetched at once, across the whole resolution.
+     */
+    public static Process<Event, ResolvedDependencies> resolve(
         final RecipeSource recipeSource,
         final ResolvedDependencies resolved,
         final ImmutableList<Dependency> dependencies,
-        final ResolutionStrategy strategy) {
+        final ResolutionStrategy strategy,
+        final int maxConcurrency) {
 
         Preconditions.checkNotNull(recipeSource);
         Preconditions.checkNotNull(resolved);
         Preconditions.checkNotNull(dependencies);
         Preconditions.checkNotNull(strategy);
+        Preconditions.checkArgument(maxConcurrency > 0);
+
+        // Every branch shares the one limit, however deep it goes
+        final RecipeSource limited = ConcurrencyLimitedRecipeSource.of(recipeSource, maxConcurrency);
+
+        return Process.of(Observable.defer(() -> resolve(
+            limited,
+            new Scored(resolved, strategy.score(resolved)),
+            dependencies,
+            strategy,
+            ignored -> false)
+            .map(x -> x.dependencies)
+            .toObservable()));
+    }
 
-        return Process.chainN(
-            Process.just(resolved),
-            dependencies.stream()
-                .map((Dependency dependency) ->
-                    (Function<ResolvedDependencies, Process<Event, ResolvedDependencies>>) x ->
-                        step(recipeSource, x, dependency, strategy))
-                .collect(ImmutableList.toImmutableList()));
+    public static Process<Event, ResolvedDependencies> resolve(
+        final RecipeSource recipeSource,
+        final ResolvedDependencies seed,
+        final ImmutableList<Dependency> dependencies) {
+
+        Preconditions.checkNotNull(recipeSource);
+        Preconditions.checkNotNull(seed);
+        Preconditions.checkNotNull(dependencies);
+
+        return resolve(recipeSource, seed, dependencies, SumResolutionStrategy.of(), DEFAULT_CONCURRENCY);
     }
 
     public static Process<Event, ResolvedDependencies> resolve(
@@ -109,6 +238,6 @@ public final class AsyncDependencyResolver {
         Preconditions.checkNotNull(recipeSource);
         Preconditions.checkNotNull(dependencies);
 
-        return resolve(recipeSource, ResolvedDependencies.of(), dependencies, SumResolutionStrategy.of());
+        return resolve(recipeSource, ResolvedDependencies.of(), dependencies, SumResolutionStrategy.of(), DEFAULT_CONCURRENCY);
     }
 }
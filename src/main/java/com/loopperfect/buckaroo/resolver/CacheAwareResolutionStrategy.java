@@ -0,0 +1,69 @@
+package com.loopperfect.buckaroo.resolver;
+
+import com.google.common.base.Preconditions;
+import com.loopperfect.buckaroo.*;
+import com.loopperfect.buckaroo.tasks.CacheTasks;
+import org.javatuples.Pair;
+
+import java.nio.file.FileSystem;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Scores resolutions like {@link SumResolutionStrategy}, except that every version
+ * whose source is already in the local cache is worth more than any newer version that is not.
+ *
+ * Each source is only looked up in the cache once.
+ */
+public final class CacheAwareResolutionStrategy implements ResolutionStrategy {
+
+    // Outweighs the score difference between any two versions less than 100 major versions apart
+    public static final int CACHED_WEIGHT = 100 * 100 * 100;
+
+    private final FileSystem fs;
+    private final Map<Either<GitCommit, RemoteArchive>, Boolean> cached = new ConcurrentHashMap<>();
+
+    private CacheAwareResolutionStrategy(final FileSystem fs) {
+        this.fs = Preconditions.checkNotNull(fs);
+    }
+
+    private int score(final RecipeIdentifier identifier, final Pair<SemanticVersion, RecipeVersion> dependency) {
+        final boolean isCached = cached.computeIfAbsent(
+            dependency.getValue1().source,
+            x -> CacheTasks.isCached(fs, identifier, dependency.getValue1()));
+        return SumResolutionStrategy.score(dependency.getValue0()) + (isCached ? CACHED_WEIGHT : 0);
+    }
+
+    @Override
+    public int score(final ResolvedDependencies resolvedDependencies) {
+        Preconditions.checkNotNull(resolvedDependencies);
+        return resolvedDependencies.dependencies.entrySet().stream()
+            .mapToInt(x -> score(x.getKey(), x.getValue()))
+            .sum();
+    }
+
+    @Override
+    public int score(
+        final int parentScore,
+        final ResolvedDependencies parent,
+        final RecipeIdentifier identifier,
+        final Pair<SemanticVersion, RecipeVersion> added) {
+        Preconditions.checkNotNull(identifier);
+        Preconditions.checkNotNull(added);
+        return parentScore + score(identifier, added);
+    }
+
+    // As for the sum, since cached versions only ever add to the score
+    @Override
+    public int upperBound(final ResolvedDependencies partial, final int score) {
+        Preconditions.checkNotNull(partial);
+        if (!partial.isConsistent()) {
+            return Integer.MIN_VALUE;
+        }
+        return partial.isComplete() ? score : Integer.MAX_VALUE;
+    }
+
+    public static ResolutionStrategy of(final FileSystem fs) {
+        return new CacheAwareResolutionStrategy(fs);
+    }
+}
@@ -0,0 +1,378 @@
+package com.loopperfect.buckaroo.resolver;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.loopperfect.buckaroo.*;
+import com.loopperfect.buckaroo.Process;
+import com.loopperfect.buckaroo.versioning.SemanticVersionIntervalSet;
+import org.javatuples.Pair;
+
+import java.util.*;
+
+/**
+ * A dependency resolver that performs a conflict-driven search.
+ *
+ * Projects are decided one at a time, preferring the version that adds the most to the score.
+ * When no version of a project can be chosen, the decisions responsible for the conflict are
+ * learned as an incompatibility and the search jumps back to the most recent of them, skipping
+ * any unrelated decisions in between. Learned incompatibilities are kept for the rest of the
+ * search, so a conflict is never explored twice.
+ *
+ * Recipes are only fetched when the search needs to decide the project they describe,
+ * and not at all when the constraints on that project already have no version in common.
+ */
+public final class ConflictDrivenDependencyResolver {
+
+    private ConflictDrivenDependencyResolver() {
+
+    }
+
+    /**
+     * The mutable state of a single resolution.
+     *
+     * The search is only ever advanced by one thread at a time,
+     * since each fetch is chained onto the previous step.
+     */
+    private static final class Search {
+
+        private final ImmutableList<Dependency> dependencies;
+        private final ResolutionStrategy strategy;
+
+        private final Map<RecipeIdentifier, Recipe> recipes = Maps.newHashMap();
+        private final Map<RecipeIdentifier, Throwable> failures = Maps.newHashMap();
+
+        // The decisions made so far, in order
+        private final List<RecipeIdentifier> trail = Lists.newArrayList();
+        private final Map<RecipeIdentifier, Pair<SemanticVersion, RecipeVersion>> assignments = Maps.newHashMap();
+
+        // Sets of decisions that are known to be incompatible, indexed by each project they mention
+        private final Map<RecipeIdentifier, List<ImmutableMap<RecipeIdentifier, SemanticVersion>>> incompatibilities =
+            Maps.newHashMap();
+
+        private Search(
+            final ResolvedDependencies seed,
+            final ImmutableList<Dependency> dependencies,
+            final ResolutionStrategy strategy) {
+            Preconditions.checkNotNull(seed);
+            this.dependencies = Preconditions.checkNotNull(dependencies);
+            this.strategy = Preconditions.checkNotNull(strategy);
+            // Seeded decisions are treated like any other, so they can be revisited if they cause a conflict
+            for (final Map.Entry<RecipeIdentifier, Pair<SemanticVersion, RecipeVersion>> entry :
+                seed.dependencies.entrySet()) {
+                trail.add(entry.getKey());
+                assignments.put(entry.getKey(), entry.getValue());
+            }
+        }
+
+        private static ImmutableList<Dependency> dependenciesOf(final RecipeVersion recipeVersion) {
+            return recipeVersion.dependencies.map(DependencyGroup::entries).orElse(ImmutableList.of());
+        }
+
+        private boolean isRequiredByRoot(final RecipeIdentifier project) {
+            return dependencies.stream().anyMatch(x -> x.project.equals(project));
+        }
+
+        // Seeded decisions may outlive the decisions that required them
+        private Set<RecipeIdentifier> reachable() {
+            final Set<RecipeIdentifier> visited = new HashSet<>();
+            final Deque<RecipeIdentifier> queue = new ArrayDeque<>();
+            for (final Dependency dependency : dependencies) {
+                if (visited.add(dependency.project)) {
+                    queue.add(dependency.project);
+                }
+            }
+            while (!queue.isEmpty()) {
+                for (final Dependency dependency : dependenciesOf(assignments.get(queue.remove()).getValue1())) {
+                    if (visited.add(dependency.project)) {
+                        queue.add(dependency.project);
+                    }
+                }
+            }
+            return visited;
+        }
+
+        private Optional<RecipeIdentifier> nextUndecided() {
+            for (final Dependency dependency : dependencies) {
+                if (!assignments.containsKey(dependency.project)) {
+                    return Optional.of(dependency.project);
+                }
+            }
+            for (final RecipeIdentifier decided : trail) {
+                for (final Dependency dependency : dependenciesOf(assignments.get(decided).getValue1())) {
+                    if (!assignments.containsKey(dependency.project)) {
+                        return Optional.of(dependency.project);
+                    }
+                }
+            }
+            return Optional.empty();
+        }
+
+        // Each constraint is paired with the decision that introduced it, or empty for the root
+        private ImmutableList<Pair<Optional<RecipeIdentifier>, SemanticVersionRequirement>> constraints(
+            final RecipeIdentifier project) {
+
+            final ImmutableList.Builder<Pair<Optional<RecipeIdentifier>, SemanticVersionRequirement>> builder =
+                ImmutableList.builder();
+
+            for (final Dependency dependency : dependencies) {
+                if (dependency.project.equals(project)) {
+                    builder.add(Pair.with(Optional.empty(), dependency.requirement));
+                }
+            }
+
+            for (final RecipeIdentifier decided : trail) {
+                for (final Dependency dependency : dependenciesOf(assignments.get(decided).getValue1())) {
+                    if (dependency.project.equals(project)) {
+                        builder.add(Pair.with(Optional.of(decided), dependency.requirement));
+                    }
+                }
+            }
+
+            return builder.build();
+        }
+
+        private static SemanticVersionIntervalSet allowed(
+            final Collection<Pair<Optional<RecipeIdentifier>, SemanticVersionRequirement>> constraints) {
+            SemanticVersionIntervalSet result = SemanticVersionIntervalSet.all();
+            for (final Pair<Optional<RecipeIdentifier>, SemanticVersionRequirement> constraint : constraints) {
+                result = result.intersect(constraint.getValue1().toIntervalSet());
+            }
+            return result;
+        }
+
+        private static ImmutableSet<RecipeIdentifier> sources(
+            final Collection<Pair<Optional<RecipeIdentifier>, SemanticVersionRequirement>> constraints) {
+            return constraints.stream()
+                .map(Pair::getValue0)
+                .filter(Optional::isPresent)
+                .map(Optional::get)
+                .collect(ImmutableSet.toImmutableSet());
+        }
+
+        private int depth(final Collection<RecipeIdentifier> decisions) {
+            return decisions.stream()
+                .mapToInt(trail::indexOf)
+                .max()
+                .orElse(-1);
+        }
+
+        /**
+         * Finds the decisions that prevent project from taking the given version.
+         *
+         * Of all of the reasons, the one that depends on the oldest decisions is returned,
+         * since it allows the search to jump back the furthest.
+         */
+        private Optional<ImmutableSet<RecipeIdentifier>> rejection(
+            final RecipeIdentifier project,
+            final SemanticVersion version,
+            final RecipeVersion recipeVersion,
+            final ImmutableList<Pair<Optional<RecipeIdentifier>, SemanticVersionRequirement>> constraints) {
+
+            final List<ImmutableSet<RecipeIdentifier>> reasons = Lists.newArrayList();
+
+            for (final Pair<Optional<RecipeIdentifier>, SemanticVersionRequirement> constraint : constraints) {
+                if (!constraint.getValue1().isSatisfiedBy(version)) {
+                    reasons.add(constraint.getValue0().map(ImmutableSet::of).orElse(ImmutableSet.of()));
+                }
+            }
+
+            for (final Dependency dependency : dependenciesOf(recipeVersion)) {
+                final Pair<SemanticVersion, RecipeVersion> assigned = assignments.get(dependency.project);
+                if (assigned != null) {
+                    if (!dependency.requirement.isSatisfiedBy(assigned.getValue0())) {
+                        reasons.add(ImmutableSet.of(dependency.project));
+                    }
+                } else {
+                    // Taking this version would leave the dependency with no allowed versions
+                    final ImmutableList<Pair<Optional<RecipeIdentifier>, SemanticVersionRequirement>> existing =
+                        constraints(dependency.project);
+                    if (allowed(existing).intersect(dependency.requirement.toIntervalSet()).isEmpty()) {
+                        reasons.add(sources(existing));
+                    }
+                }
+            }
+
+            for (final ImmutableMap<RecipeIdentifier, SemanticVersion> incompatibility :
+                incompatibilities.getOrDefault(project, ImmutableList.of())) {
+                final boolean applies = incompatibility.entrySet()
+                    .stream()
+                    .allMatch(x -> x.getKey().equals(project) ?
+                        x.getValue().equals(version) :
+                        assignments.containsKey(x.getKey()) &&
+                            assignments.get(x.getKey()).getValue0().equals(x.getValue()));
+                if (applies) {
+                    reasons.add(incompatibility.keySet()
+                        .stream()
+                        .filter(x -> !x.equals(project))
+                        .collect(ImmutableSet.toImmutableSet()));
+                }
+            }
+
+            return reasons.stream().min(Comparator.comparingInt(this::depth));
+        }
+
+        private void learn(final Set<RecipeIdentifier> conflict) {
+            final ImmutableMap<RecipeIdentifier, SemanticVersion> incompatibility = conflict.stream()
+                .collect(ImmutableMap.toImmutableMap(x -> x, x -> assignments.get(x).getValue0()));
+            for (final RecipeIdentifier project : incompatibility.keySet()) {
+                incompatibilities.computeIfAbsent(project, x -> Lists.newArrayList()).add(incompatibility);
+            }
+        }
+
+        private void backjump(final int depth) {
+            while (trail.size() > depth) {
+                assignments.remove(trail.remove(trail.size() - 1));
+            }
+        }
+
+        private void decide(final RecipeIdentifier project) throws Throwable {
+
+            final Recipe recipe = recipes.getOrDefault(project, Recipe.of(project.recipe.name, "", ImmutableMap.of()));
+            final ImmutableList<Pair<Optional<RecipeIdentifier>, SemanticVersionRequirement>> constraints =
+                constraints(project);
+
+            // The candidates that add the most to the score come first, newest first among equals
+            final ImmutableList<Map.Entry<SemanticVersion, RecipeVersion>> candidates =
+                recipe.versionsWithin(SemanticVersionIntervalSet.all())
+                    .stream()
+                    .sorted(Comparator.comparingInt((Map.Entry<SemanticVersion, RecipeVersion> x) ->
+                        strategy.score(0, ResolvedDependencies.of(), project, Pair.with(x.getKey(), x.getValue())))
+                        .reversed())
+                    .collect(ImmutableList.toImmutableList());
+
+            final Set<RecipeIdentifier> conflict = new HashSet<>();
+
+            if (allowed(constraints).isEmpty()) {
+                // No version can satisfy every constraint, so every decision that introduced one is to blame
+                conflict.addAll(sources(constraints));
+            } else {
+                for (final Map.Entry<SemanticVersion, RecipeVersion> candidate : candidates) {
+                    final Optional<ImmutableSet<RecipeIdentifier>> reason = rejection(
+                        project, candidate.getKey(), candidate.getValue(), constraints);
+                    if (!reason.isPresent()) {
+                        trail.add(project);
+                        assignments.put(project, Pair.with(candidate.getKey(), candidate.getValue()));
+                        return;
+                    }
+                    conflict.addAll(reason.get());
+                }
+            }
+
+            // The project only needs a version because some decision depends on it.
+            if (!isRequiredByRoot(project)) {
+                constraints.stream()
+                    .map(Pair::getValue0)
+                    .filter(Optional::isPresent)
+                    .map(Optional::get)
+                    .min(Comparator.comparingInt(trail::indexOf))
+                    .ifPresent(conflict::add);
+            }
+
+            if (conflict.isEmpty()) {
+                if (failures.containsKey(project)) {
+                    throw failures.get(project);
+                }
+                throw new DependencyResolutionException("Could not satisfy " + project.encode() + " with " +
+                    constraints.stream()
+                        .map(x -> x.getValue1().encode() +
+                            x.getValue0().map(i -> " (from " + i.encode() + ")").orElse(""))
+                        .reduce((x, y) -> x + " and " + y)
+                        .orElse("no constraints") + ". ");
+            }
+
+            learn(conflict);
+            backjump(depth(conflict));
+        }
+
+        /**
+         * Advances the search as far as possible without fetching.
+         *
+         * @return either the project whose recipe is needed next, or the complete resolution.
+         */
+        private Either<RecipeIdentifier, ResolvedDependencies> run() throws Throwable {
+            while (true) {
+                final Optional<RecipeIdentifier> next = nextUndecided();
+                if (!next.isPresent()) {
+                    final Set<RecipeIdentifier> reachable = reachable();
+                    return Either.right(ResolvedDependencies.of(trail.stream()
+                        .filter(reachable::contains)
+                        .collect(ImmutableMap.toImmutableMap(x -> x, assignments::get))));
+                }
+                final RecipeIdentifier project = next.get();
+                if (!recipes.containsKey(project) && !failures.containsKey(project) &&
+                    !allowed(constraints(project)).isEmpty()) {
+                    return Either.left(project);
+                }
+                decide(project);
+            }
+        }
+    }
+
+    private static Process<Event, ResolvedDependencies> search(final RecipeSource recipeSource, final Search search) {
+
+        Preconditions.checkNotNull(recipeSource);
+        Preconditions.checkNotNull(search);
+
+        final Either<RecipeIdentifier, ResolvedDependencies> next;
+
+        try {
+            next = search.run();
+        } catch (final Throwable e) {
+            return Process.error(e);
+        }
+
+        return next.join(
+            project -> recipeSource.fetch(project)
+                .map(Either::<Throwable, Recipe>right)
+                .onErrorReturn(Either::left)
+                .chain(fetched -> {
+                    fetched.join(
+                        error -> search.failures.put(project, error),
+                        recipe -> search.recipes.put(project, recipe));
+                    return search(recipeSource, search);
+                }),
+            Process::just);
+    }
+
+    public static Process<Event, ResolvedDependencies> resolve(
+        final RecipeSource recipeSource,
+        final ResolvedDependencies seed,
+        final ImmutableList<Dependency> dependencies,
+        final ResolutionStrategy strategy) {
+
+        Preconditions.checkNotNull(recipeSource);
+        Preconditions.checkNotNull(seed);
+        Preconditions.checkNotNull(dependencies);
+        Preconditions.checkNotNull(strategy);
+
+        return Process.chain(
+            Process.just(dependencies),
+            x -> search(recipeSource, new Search(seed, x, strategy)));
+    }
+
+    public static Process<Event, ResolvedDependencies> resolve(
+        final RecipeSource recipeSource,
+        final ResolvedDependencies seed,
+        final ImmutableList<Dependency> dependencies) {
+
+        Preconditions.checkNotNull(recipeSource);
+        Preconditions.checkNotNull(seed);
+        Preconditions.checkNotNull(dependencies);
+
+        return resolve(recipeSource, seed, dependencies, SumResolutionStrategy.of());
+    }
+
+    public static Process<Event, ResolvedDependencies> resolve(
+        final RecipeSource recipeSource,
+        final ImmutableList<Dependency> dependencies) {
+
+        Preconditions.checkNotNull(recipeSource);
+        Preconditions.checkNotNull(dependencies);
+
+        return resolve(recipeSource, ResolvedDependencies.of(), dependencies);
+    }
+}
@@ -0,0 +1,42 @@
+package com.loopperfect.buckaroo.resolver;
+
+import com.google.common.collect.ImmutableList;
+import com.loopperfect.buckaroo.*;
+import com.loopperfect.buckaroo.Process;
+
+@FunctionalInterface
+public interface DependencyResolver {
+
+    /**
+     * Resolves the dependencies, starting from a set of decisions that have already been made.
+     * The seed must be complete, and any entry in it may be kept in the result.
+     */
+    Process<Event, ResolvedDependencies> resolve(
+        final RecipeSource recipeSource, final ResolvedDependencies seed, final ImmutableList<Dependency> dependencies);
+
+    default Process<Event, ResolvedDependencies> resolve(
+        final RecipeSource recipeSource, final ImmutableList<Dependency> dependencies) {
+        return resolve(recipeSource, ResolvedDependencies.of(), dependencies);
+    }
+
+    /**
+     * Resolves the dependencies, keeping whatever is still valid in the existing locks.
+     * If the locked entries cannot be extended to a solution, resolution starts again from scratch.
+     */
+    default Process<Event, ResolvedDependencies> resolve(
+        final RecipeSource recipeSource, final DependencyLocks locks, final ImmutableList<Dependency> dependencies) {
+
+        final ResolvedDependencies seed = locks.seed(dependencies);
+
+        if (seed.dependencies.isEmpty()) {
+            return resolve(recipeSource, dependencies);
+        }
+
+        return resolve(recipeSource, seed, dependencies)
+            .map(Either::<Throwable, ResolvedDependencies>right)
+            .onErrorReturn(Either::left)
+            .chain(x -> x.join(
+                error -> resolve(recipeSource, dependencies),
+                Process::just));
+    }
+}
@@ -0,0 +1,138 @@
+package com.loopperfect.buckaroo.resolver;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.loopperfect.buckaroo.*;
+import com.loopperfect.buckaroo.Process;
+import org.javatuples.Pair;
+
+import java.util.Comparator;
+import java.util.Map;
+
+import static com.google.common.collect.ImmutableList.toImmutableList;
+
+/**
+ * A dependency resolver that takes the best satisfying version of everything.
+ *
+ * Candidates are tried in descending order of score and the first complete
+ * assignment is returned. The next candidate is only tried when a branch fails,
+ * so in the common case each recipe is visited once. Candidates whose dependencies
+ * already conflict with what has been resolved are skipped without being explored.
+ */
+public final class GreedyDependencyResolver {
+
+    private GreedyDependencyResolver() {
+
+    }
+
+    private static Process<Event, ResolvedDependencies> attempt(
+        final RecipeSource recipeSource,
+        final ResolvedDependencies resolved,
+        final Dependency next,
+        final ImmutableList<Dependency> remaining,
+        final ResolutionStrategy strategy,
+        final ImmutableList<Map.Entry<SemanticVersion, RecipeVersion>> candidates) {
+
+        Preconditions.checkNotNull(recipeSource);
+        Preconditions.checkNotNull(resolved);
+        Preconditions.checkNotNull(next);
+        Preconditions.checkNotNull(remaining);
+        Preconditions.checkNotNull(strategy);
+        Preconditions.checkNotNull(candidates);
+
+        if (candidates.isEmpty()) {
+            return Process.error(new DependencyResolutionException("Could not satisfy " + next.encode()));
+        }
+
+        final Map.Entry<SemanticVersion, RecipeVersion> candidate = candidates.get(0);
+
+        final ImmutableList<Dependency> nextRemaining = ImmutableList.<Dependency>builder()
+            .addAll(remaining)
+            .addAll(candidate.getValue().dependencies.orElse(DependencyGroup.of()).entries())
+            .build();
+
+        return resolve(
+            recipeSource,
+            resolved.add(next.project, Pair.with(candidate.getKey(), candidate.getValue())),
+            nextRemaining,
+            strategy)
+            .map(Either::<Throwable, ResolvedDependencies>right)
+            .onErrorReturn(Either::left)
+            .chain(x -> x.join(
+                error -> attempt(recipeSource, resolved, next, remaining, strategy, candidates.subList(1, candidates.size())),
+                Process::just));
+    }
+
+    /**
+     * Resolves the dependencies, trying the candidates that add the most to the score first.
+     * Candidates that add the same are tried newest first.
+     */
+    public static Process<Event, ResolvedDependencies> resolve(
+        final RecipeSource recipeSource,
+        final ResolvedDependencies resolved,
+        final ImmutableList<Dependency> dependencies,
+        final ResolutionStrategy strategy) {
+
+        Preconditions.checkNotNull(recipeSource);
+        Preconditions.checkNotNull(resolved);
+        Preconditions.checkNotNull(dependencies);
+        Preconditions.checkNotNull(strategy);
+
+        if (dependencies.isEmpty()) {
+            return Process.just(resolved);
+        }
+
+        final Dependency next = dependencies.get(0);
+        final ImmutableList<Dependency> remaining = dependencies.subList(1, dependencies.size());
+
+        if (resolved.dependencies.containsKey(next.project)) {
+            final SemanticVersion resolvedVersion = resolved.dependencies.get(next.project).getValue0();
+            return next.requirement.isSatisfiedBy(resolvedVersion) ?
+                resolve(recipeSource, resolved, remaining, strategy) :
+                Process.error(new DependencyResolutionException(
+                    next.project.encode() + "@" + resolvedVersion.encode() + " does not satisfy " + next.encode()));
+        }
+
+        // The requirements on this project already have no version in common, so there is no need to fetch it
+        if (!resolved.admits(next)) {
+            return Process.error(new DependencyResolutionException("Could not satisfy " + next.encode()));
+        }
+
+        return recipeSource.fetch(next.project, next.requirement).chain(recipe -> attempt(
+            recipeSource,
+            resolved,
+            next,
+            remaining,
+            strategy,
+            recipe.versionsSatisfying(next.requirement)
+                .stream()
+                .filter(x -> x.getValue().dependencies.orElse(DependencyGroup.of()).entries()
+                    .stream()
+                    .allMatch(resolved::admits))
+                .sorted(Comparator.comparingInt((Map.Entry<SemanticVersion, RecipeVersion> x) ->
+                    strategy.score(0, resolved, next.project, Pair.with(x.getKey(), x.getValue()))).reversed())
+                .collect(toImmutableList())));
+    }
+
+    public static Process<Event, ResolvedDependencies> resolve(
+        final RecipeSource recipeSource,
+        final ResolvedDependencies resolved,
+        final ImmutableList<Dependency> dependencies) {
+
+        Preconditions.checkNotNull(recipeSource);
+        Preconditions.checkNotNull(resolved);
+        Preconditions.checkNotNull(dependencies);
+
+        return resolve(recipeSource, resolved, dependencies, SumResolutionStrategy.of());
+    }
+
+    public static Process<Event, ResolvedDependencies> resolve(
+        final RecipeSource recipeSource,
+        final ImmutableList<Dependency> dependencies) {
+
+        Preconditions.checkNotNull(recipeSource);
+        Preconditions.checkNotNull(dependencies);
+
+        return resolve(recipeSource, ResolvedDependencies.of(), dependencies);
+    }
+}
@@ -0,0 +1,50 @@
+package com.loopperfect.buckaroo.resolver;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.base.Preconditions;
+import com.loopperfect.buckaroo.Event;
+
+import java.util.Objects;
+
+public final class PrefetchProgressEvent extends Event {
+
+    public final int fetched;
+    public final int discovered;
+
+    private PrefetchProgressEvent(final int fetched, final int discovered) {
+        Preconditions.checkArgument(fetched >= 0);
+        Preconditions.checkArgument(discovered >= fetched);
+        this.fetched = fetched;
+        this.discovered = discovered;
+    }
+
+    public boolean equals(final PrefetchProgressEvent other) {
+        Preconditions.checkNotNull(other);
+        return fetched == other.fetched && discovered == other.discovered;
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+        return obj == this ||
+            obj != null &&
+                obj instanceof PrefetchProgressEvent &&
+                equals((PrefetchProgressEvent) obj);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(fetched, discovered);
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+            .add("fetched", fetched)
+            .add("discovered", discovered)
+            .toString();
+    }
+
+    public static PrefetchProgressEvent of(final int fetched, final int discovered) {
+        return new PrefetchProgressEvent(fetched, discovered);
+    }
+}
@@ -0,0 +1,98 @@
+package com.loopperfect.buckaroo.resolver;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.loopperfect.buckaroo.*;
+import com.loopperfect.buckaroo.Process;
+import io.reactivex.Observable;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Crawls the recipes that a resolver is likely to need, so that they are
+ * already in a memoizing RecipeSource when the search asks for them.
+ *
+ * The crawl is breadth-first, fetching one level of the dependency graph at a time
+ * in a single batch, and follows the dependencies of every version that satisfies a requirement.
+ * Failed fetches are skipped; the resolver will report them if they matter.
+ */
+public final class RecipePrefetcher {
+
+    private RecipePrefetcher() {
+
+    }
+
+    private static ImmutableList<Dependency> candidateDependencies(final Recipe recipe, final Dependency dependency) {
+        return recipe.versionsSatisfying(dependency.requirement)
+            .stream()
+            .flatMap(x -> x.getValue().dependencies.map(DependencyGroup::entries).orElse(ImmutableList.of()).stream())
+            .distinct()
+            .collect(ImmutableList.toImmutableList());
+    }
+
+    /**
+     * Fetches every recipe reachable from the given dependencies.
+     * How many recipes of a batch are fetched at once is up to the recipe source.
+     *
+     * @return the number of recipes that were fetched successfully.
+     */
+    public static Process<Event, Integer> prefetch(
+        final RecipeSource recipeSource, final ImmutableList<Dependency> dependencies) {
+
+        Preconditions.checkNotNull(recipeSource);
+        Preconditions.checkNotNull(dependencies);
+
+        return Process.of(Observable.defer(() -> {
+
+            final Set<RecipeIdentifier> discovered = new HashSet<>();
+            final AtomicInteger fetched = new AtomicInteger(0);
+
+            final Observable<Either<Event, Integer>> crawl = level(recipeSource, dependencies, discovered, fetched);
+
+            return crawl.concatWith(Observable.fromCallable(() -> Either.right(fetched.get())));
+        }));
+    }
+
+    private static Observable<Either<Event, Integer>> level(
+        final RecipeSource recipeSource,
+        final ImmutableList<Dependency> frontier,
+        final Set<RecipeIdentifier> discovered,
+        final AtomicInteger fetched) {
+
+        // Only the first requirement seen for each project is followed
+        final ImmutableMap<RecipeIdentifier, Dependency> next = frontier.stream()
+            .filter(x -> discovered.add(x.project))
+            .collect(ImmutableMap.toImmutableMap(x -> x.project, x -> x));
+
+        if (next.isEmpty()) {
+            return Observable.empty();
+        }
+
+        final int total = discovered.size();
+        final List<Dependency> nextFrontier = new ArrayList<>();
+
+        // The whole level is fetched in one batch
+        return recipeSource.fetchAll(next.entrySet()
+            .stream()
+            .collect(ImmutableMap.toImmutableMap(Map.Entry::getKey, x -> x.getValue().requirement)))
+            .toObservable()
+            .map(x -> {
+                if (x.isLeft()) {
+                    return Either.<Event, Integer>left(x.left().get());
+                }
+                for (final Map.Entry<RecipeIdentifier, Either<Throwable, Recipe>> entry : x.right().get().entrySet()) {
+                    if (entry.getValue().isRight()) {
+                        fetched.incrementAndGet();
+                        nextFrontier.addAll(candidateDependencies(entry.getValue().right().get(), next.get(entry.getKey())));
+                    }
+                }
+                return Either.<Event, Integer>left(PrefetchProgressEvent.of(fetched.get(), total));
+            })
+            // A batch that fails outright is skipped, like a failed fetch
+            .onErrorResumeNext(Observable.<Either<Event, Integer>>empty())
+            .concatWith(Observable.defer(() -> level(
+                recipeSource, ImmutableList.copyOf(nextFrontier), discovered, fetched)));
+    }
+}
@@ -0,0 +1,37 @@
+package com.loopperfect.buckaroo.resolver;
+
+import com.google.common.base.Preconditions;
+
+import java.nio.file.FileSystem;
+import java.util.Arrays;
+import java.util.Optional;
+
+/**
+ * The resolution strategies that can be selected from the configuration file.
+ */
+public enum ResolutionPreference {
+
+    NEWEST,
+    CACHED;
+
+    public ResolutionStrategy strategy(final FileSystem fs) {
+        Preconditions.checkNotNull(fs);
+        switch (this) {
+            case CACHED:
+                return CacheAwareResolutionStrategy.of(fs);
+            default:
+                return SumResolutionStrategy.of();
+        }
+    }
+
+    public String encode() {
+        return name().toLowerCase().replace('_', '-');
+    }
+
+    public static Optional<ResolutionPreference> parse(final String x) {
+        Preconditions.checkNotNull(x);
+        return Arrays.stream(values())
+            .filter(preference -> preference.encode().equalsIgnoreCase(x.trim()))
+            .findFirst();
+    }
+}
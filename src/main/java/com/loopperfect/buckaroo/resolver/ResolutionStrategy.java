@@ -1,9 +1,42 @@
 package com.loopperfect.buckaroo.resolver;
 
+import com.loopperfect.buckaroo.RecipeIdentifier;
+import com.loopperfect.buckaroo.RecipeVersion;
 import com.loopperfect.buckaroo.ResolvedDependencies;
+import com.loopperfect.buckaroo.SemanticVersion;
+import org.javatuples.Pair;
 
 @FunctionalInterface
 public interface ResolutionStrategy {
 
     int score(final ResolvedDependencies resolvedDependencies);
+
+    /**
+     * The score of parent once the given project has been added to it,
+     * where parentScore is the score of parent.
+     *
+     * Strategies that can update a score in place should override this,
+     * since the default scores the whole of the new resolution.
+     */
+    default int score(
+        final int parentScore,
+        final ResolvedDependencies parent,
+        final RecipeIdentifier identifier,
+        final Pair<SemanticVersion, RecipeVersion> added) {
+        return score(parent.add(identifier, added));
+    }
+
+    /**
+     * The best score that any completion of a partial resolution could reach,
+     * where score is the score of partial. Completing a resolution means choosing
+     * versions for its unexplored dependencies, and then for theirs in turn.
+     *
+     * Branches whose bound is below the best complete resolution are abandoned,
+     * so the bound must never underestimate. A bound of Integer.MIN_VALUE means that
+     * there is no completion at all, and the branch is abandoned straight away.
+     * By default only inconsistent resolutions are abandoned.
+     */
+    default int upperBound(final ResolvedDependencies partial, final int score) {
+        return partial.isConsistent() ? Integer.MAX_VALUE : Integer.MIN_VALUE;
+    }
 }
@@ -0,0 +1,55 @@
+package com.loopperfect.buckaroo.resolver;
+
+import com.google.common.base.Preconditions;
+
+import java.util.Arrays;
+import java.util.Optional;
+
+/**
+ * The dependency resolvers that can be selected from the configuration file.
+ */
+public enum ResolverEngine {
+
+    ASYNC,
+    CONFLICT_DRIVEN,
+    GREEDY;
+
+    /**
+     * The resolver, where maxConcurrency limits the recipes that the async resolver fetches at once.
+     */
+    public DependencyResolver resolver(final ResolutionStrategy strategy, final int maxConcurrency) {
+        Preconditions.checkNotNull(strategy);
+        Preconditions.checkArgument(maxConcurrency > 0);
+        switch (this) {
+            case CONFLICT_DRIVEN:
+                return (recipeSource, seed, dependencies) ->
+                    ConflictDrivenDependencyResolver.resolve(recipeSource, seed, dependencies, strategy);
+            case GREEDY:
+                return (recipeSource, seed, dependencies) ->
+                    GreedyDependencyResolver.resolve(recipeSource, seed, dependencies, strategy);
+            default:
+                return (recipeSource, seed, dependencies) ->
+                    AsyncDependencyResolver.resolve(
+                        recipeSource, seed, dependencies, strategy, maxConcurrency);
+        }
+    }
+
+    public DependencyResolver resolver(final ResolutionStrategy strategy) {
+        return resolver(strategy, AsyncDependencyResolver.DEFAULT_CONCURRENCY);
+    }
+
+    public DependencyResolver resolver() {
+        return resolver(SumResolutionStrategy.of());
+    }
+
+    public String encode() {
+        return name().toLowerCase().replace('_', '-');
+    }
+
+    public static Optional<ResolverEngine> parse(final String x) {
+        Preconditions.checkNotNull(x);
+        return Arrays.stream(values())
+            .filter(engine -> engine.encode().equalsIgnoreCase(x.trim()))
+            .findFirst();
+    }
+}
@@ -1,6 +1,8 @@
 package com.loopperfect.buckaroo.resolver;
 
 import com.google.common.base.Preconditions;
+import com.loopperfect.buckaroo.RecipeIdentifier;
+import com.loopperfect.buckaroo.RecipeVersion;
 import com.loopperfect.buckaroo.ResolvedDependencies;
 import com.loopperfect.buckaroo.SemanticVersion;
 import org.javatuples.Pair;
@@ -21,7 +23,7 @@ public final class SumResolutionStrategy implements ResolutionStrategy {
         return obj != null && obj instanceof SumResolutionStrategy;
     }
 
-    private static int score(final SemanticVersion version) {
+    static int score(final SemanticVersion version) {
         Preconditions.checkNotNull(version);
         return version.major * 100 * 100 + version.minor * 100 + version.patch;
     }
@@ -34,6 +36,27 @@ public final class SumResolutionStrategy implements ResolutionStrategy {
             .mapToInt(SumResolutionStrategy::score).sum();
     }
 
+    @Override
+    public int score(
+        final int parentScore,
+        final ResolvedDependencies parent,
+        final RecipeIdentifier identifier,
+        final Pair<SemanticVersion, RecipeVersion> added) {
+        Preconditions.checkNotNull(added);
+        return parentScore + score(added.getValue0());
+    }
+
+    // An inconsistent resolution has no completion. Otherwise, any unexplored dependency could
+    // pull in arbitrarily many more projects, each adding to the sum, so there is no upper bound until none remain.
+    @Override
+    public int upperBound(final ResolvedDependencies partial, final int score) {
+        Preconditions.checkNotNull(partial);
+        if (!partial.isConsistent()) {
+            return Integer.MIN_VALUE;
+        }
+        return partial.isComplete() ? score : Integer.MAX_VALUE;
+    }
+
     public static ResolutionStrategy of() {
         return new SumResolutionStrategy();
     }
@@ -6,9 +6,12 @@ import com.google.common.collect.Streams;
 import com.google.gson.*;
 import com.loopperfect.buckaroo.BuckarooConfig;
 import com.loopperfect.buckaroo.RemoteCookbook;
+import com.loopperfect.buckaroo.resolver.ResolutionPreference;
+import com.loopperfect.buckaroo.resolver.ResolverEngine;
 
 import java.lang.reflect.Type;
 import java.net.URL;
+import java.time.Duration;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
@@ -34,6 +37,63 @@ public final class BuckarooConfigDeserializer implements JsonDeserializer<Buckar
             Optional.of(context.deserialize(jsonObject.get("analytics"), URL.class)) :
             Optional.empty();
 
-        return BuckarooConfig.of(cookBooks, analyticsServer);
+        final Optional<ResolverEngine> resolver;
+
+        if (jsonObject.has("resolver")) {
+            final String x = jsonObject.get("resolver").getAsString();
+            resolver = Optional.of(ResolverEngine.parse(x)
+                .orElseThrow(() -> new JsonParseException("\"" + x + "\" is not a valid resolver")));
+        } else {
+            resolver = Optional.empty();
+        }
+
+        final Optional<ResolutionPreference> strategy;
+
+        if (jsonObject.has("strategy")) {
+            final String x = jsonObject.get("strategy").getAsString();
+            strategy = Optional.of(ResolutionPreference.parse(x)
+                .orElseThrow(() -> new JsonParseException("\"" + x + "\" is not a valid strategy")));
+        } else {
+            strategy = Optional.empty();
+        }
+
+        final Optional<Duration> tagsTimeToLive;
+
+        if (jsonObject.has("tags-ttl")) {
+            final JsonElement x = jsonObject.get("tags-ttl");
+            if (!x.isJsonPrimitive() || !x.getAsJsonPrimitive().isNumber() || x.getAsLong() < 0) {
+                throw new JsonParseException(x + " is not a valid tags-ttl. It should be a number of seconds. ");
+            }
+            tagsTimeToLive = Optional.of(Duration.ofSeconds(x.getAsLong()));
+        } else {
+            tagsTimeToLive = Optional.empty();
+        }
+
+        final Optional<Integer> connectionsPerHost;
+
+        if (jsonObject.has("connections-per-host")) {
+            final JsonElement x = jsonObject.get("connections-per-host");
+            if (!x.isJsonPrimitive() || !x.getAsJsonPrimitive().isNumber() || x.getAsInt() < 1) {
+                throw new JsonParseException(x + " is not a valid connections-per-host. It should be at least 1. ");
+            }
+            connectionsPerHost = Optional.of(x.getAsInt());
+        } else {
+            connectionsPerHost = Optional.empty();
+        }
+
+        final Optional<Integer> resolverConcurrency;
+
+        if (jsonObject.has("resolver-concurrency")) {
+            final JsonElement x = jsonObject.get("resolver-concurrency");
+            if (!x.isJsonPrimitive() || !x.getAsJsonPrimitive().isNumber() || x.getAsInt() < 1) {
+                throw new JsonParseException(x + " is not a valid resolver-concurrency. It should be at least 1. ");
+            }
+            resolverConcurrency = Optional.of(x.getAsInt());
+        } else {
+            resolverConcurrency = Optional.empty();
+        }
+
+        return BuckarooConfig.of(
+            cookBooks, analyticsServer, resolver, strategy, tagsTimeToLive, connectionsPerHost, resolverConcurrency);
     }
 }
@@ -30,6 +30,26 @@ public final class BuckarooConfigSerializer implements JsonSerializer<BuckarooCo
             jsonObject.addProperty("analytics", buckarooConfig.analyticsServer.get().toExternalForm());
         }
 
+        if (buckarooConfig.resolver.isPresent()) {
+            jsonObject.addProperty("resolver", buckarooConfig.resolver.get().encode());
+        }
+
+        if (buckarooConfig.strategy.isPresent()) {
+            jsonObject.addProperty("strategy", buckarooConfig.strategy.get().encode());
+        }
+
+        if (buckarooConfig.tagsTimeToLive.isPresent()) {
+            jsonObject.addProperty("tags-ttl", buckarooConfig.tagsTimeToLive.get().getSeconds());
+        }
+
+        if (buckarooConfig.connectionsPerHost.isPresent()) {
+            jsonObject.addProperty("connections-per-host", buckarooConfig.connectionsPerHost.get());
+        }
+
+        if (buckarooConfig.resolverConcurrency.isPresent()) {
+            jsonObject.addProperty("resolver-concurrency", buckarooConfig.resolverConcurrency.get());
+        }
+
         return jsonObject;
     }
 }
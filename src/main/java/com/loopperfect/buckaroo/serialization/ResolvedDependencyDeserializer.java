@@ -43,6 +43,10 @@ public final class ResolvedDependencyDeserializer implements JsonDeserializer<Re
             Optional.of(context.deserialize(jsonObject.get("buck"), RemoteFile.class)) :
             Optional.empty();
 
-        return ResolvedDependency.of(source, target, buckResource, dependencies);
+        final Optional<SemanticVersion> version = jsonObject.has("version") ?
+            Optional.of(context.deserialize(jsonObject.get("version"), SemanticVersion.class)) :
+            Optional.empty();
+
+        return ResolvedDependency.of(source, target, buckResource, dependencies, version);
     }
 }
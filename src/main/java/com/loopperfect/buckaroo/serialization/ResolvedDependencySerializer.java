@@ -8,6 +8,7 @@ import com.google.gson.JsonSerializer;
 import com.loopperfect.buckaroo.Either;
 import com.loopperfect.buckaroo.RemoteFile;
 import com.loopperfect.buckaroo.ResolvedDependency;
+import com.loopperfect.buckaroo.SemanticVersion;
 
 import java.lang.reflect.Type;
 
@@ -30,6 +31,10 @@ public final class ResolvedDependencySerializer implements JsonSerializer<Resolv
 
         jsonObject.add("source", sourceElement);
 
+        if (resolvedDependency.version.isPresent()) {
+            jsonObject.add("version", context.serialize(resolvedDependency.version.get(), SemanticVersion.class));
+        }
+
         if (resolvedDependency.target.isPresent()) {
             jsonObject.addProperty("target", resolvedDependency.target.get());
         }
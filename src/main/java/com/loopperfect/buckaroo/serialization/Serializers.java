@@ -50,6 +50,15 @@ public final class Serializers {
         return parse(x, Recipe.class);
     }
 
+    public static String serialize(final RecipeVersion recipeVersion) {
+        Preconditions.checkNotNull(recipeVersion);
+        return gson.toJson(recipeVersion);
+    }
+
+    public static Either<JsonParseException, RecipeVersion> parseRecipeVersion(final String x) {
+        return parse(x, RecipeVersion.class);
+    }
+
     public static String serialize(final BuckarooConfig config) {
         Preconditions.checkNotNull(config);
         return gson.toJson(config);
@@ -64,6 +73,11 @@ public final class Serializers {
         return gson.toJson(dependency);
     }
 
+    public static String serialize(final DependencyGroup dependencyGroup) {
+        Preconditions.checkNotNull(dependencyGroup);
+        return gson.toJson(dependencyGroup);
+    }
+
     public static Either<JsonParseException, DependencyLocks> parseDependencyLocks(final String x) {
         return parse(x, DependencyLocks.class);
     }
@@ -0,0 +1,132 @@
+package com.loopperfect.buckaroo.sources;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableMap;
+import com.loopperfect.buckaroo.*;
+import com.loopperfect.buckaroo.Process;
+import io.reactivex.Observable;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A RecipeSource that lets only so many fetches run at once, however many are requested.
+ *
+ * Fetches beyond the limit wait in the order that they were requested, without holding a thread,
+ * and a fetch that is disposed whilst waiting never starts. Pinning is not limited.
+ */
+public final class ConcurrencyLimitedRecipeSource implements RecipeSource {
+
+    private final RecipeSource source;
+    private final int maxConcurrency;
+    private final AtomicInteger running;
+    private final Queue<Runnable> waiting;
+
+    private ConcurrencyLimitedRecipeSource(final RecipeSource source, final int maxConcurrency) {
+        Preconditions.checkArgument(maxConcurrency > 0);
+        this.source = Preconditions.checkNotNull(source);
+        this.maxConcurrency = maxConcurrency;
+        this.running = new AtomicInteger();
+        this.waiting = new ConcurrentLinkedQueue<>();
+    }
+
+    // Starts waiting fetches until the limit is reached or none are left
+    private void drain() {
+        while (!waiting.isEmpty()) {
+            final int current = running.get();
+            if (current >= maxConcurrency) {
+                return;
+            }
+            if (running.compareAndSet(current, current + 1)) {
+                final Runnable next = waiting.poll();
+                if (next == null) {
+                    running.decrementAndGet();
+                } else {
+                    next.run();
+                }
+            }
+        }
+    }
+
+    private void release() {
+        running.decrementAndGet();
+        drain();
+    }
+
+    // The slot is given up before the fetch terminates downstream, since whatever follows
+    // the fetch may run synchronously and need a slot of its own
+    private <T> Process<Event, T> limit(final Process<Event, T> process) {
+        return Process.of(Observable.<Either<Event, T>>create(emitter -> {
+            waiting.add(() -> {
+                final AtomicBoolean released = new AtomicBoolean(false);
+                final Runnable releaseOnce = () -> {
+                    if (released.compareAndSet(false, true)) {
+                        release();
+                    }
+                };
+                if (emitter.isDisposed()) {
+                    releaseOnce.run();
+                    return;
+                }
+                emitter.setDisposable(process.toObservable()
+                    .doOnDispose(releaseOnce::run)
+                    .subscribe(
+                        emitter::onNext,
+                        error -> {
+                            releaseOnce.run();
+                            emitter.onError(error);
+                        },
+                        () -> {
+                            releaseOnce.run();
+                            emitter.onComplete();
+                        }));
+            });
+            drain();
+        }));
+    }
+
+    @Override
+    public Process<Event, Recipe> fetch(final RecipeIdentifier identifier) {
+        Preconditions.checkNotNull(identifier);
+        return limit(source.fetch(identifier));
+    }
+
+    @Override
+    public Process<Event, Recipe> fetch(final RecipeIdentifier identifier, final SemanticVersionRequirement requirement) {
+        Preconditions.checkNotNull(identifier);
+        Preconditions.checkNotNull(requirement);
+        return limit(source.fetch(identifier, requirement));
+    }
+
+    @Override
+    public boolean fetchesWholeRecipes(final RecipeIdentifier identifier) {
+        Preconditions.checkNotNull(identifier);
+        return source.fetchesWholeRecipes(identifier);
+    }
+
+    // A batch counts as one fetch, so that the source can still share work between its recipes
+    @Override
+    public Process<Event, ImmutableMap<RecipeIdentifier, Either<Throwable, Recipe>>> fetchAll(
+        final ImmutableMap<RecipeIdentifier, SemanticVersionRequirement> requirements) {
+        Preconditions.checkNotNull(requirements);
+        return limit(source.fetchAll(requirements));
+    }
+
+    @Override
+    public Process<Event, RecipeVersion> pin(final RecipeIdentifier identifier, final RecipeVersion recipeVersion) {
+        Preconditions.checkNotNull(identifier);
+        Preconditions.checkNotNull(recipeVersion);
+        return source.pin(identifier, recipeVersion);
+    }
+
+    @Override
+    public Iterable<RecipeIdentifier> findCandidates(final RecipeIdentifier identifier) {
+        return source.findCandidates(identifier);
+    }
+
+    public static RecipeSource of(final RecipeSource source, final int maxConcurrency) {
+        return new ConcurrencyLimitedRecipeSource(source, maxConcurrency);
+    }
+}
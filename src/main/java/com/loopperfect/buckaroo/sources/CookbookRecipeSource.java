@@ -43,6 +43,12 @@ public final class CookbookRecipeSource implements RecipeSource {
         }));
     }
 
+    @Override
+    public boolean fetchesWholeRecipes(final RecipeIdentifier identifier) {
+        Preconditions.checkNotNull(identifier);
+        return true;
+    }
+
     public static RecipeSource of(final Cookbook cookbook) {
         return new CookbookRecipeSource(cookbook);
     }
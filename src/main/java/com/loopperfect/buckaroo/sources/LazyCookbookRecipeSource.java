@@ -2,10 +2,13 @@ package com.loopperfect.buckaroo.sources;
 
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.loopperfect.buckaroo.*;
 import com.loopperfect.buckaroo.Process;
+import com.loopperfect.buckaroo.serialization.Serializers;
 import com.loopperfect.buckaroo.tasks.CommonTasks;
 import io.reactivex.Single;
+import io.reactivex.schedulers.Schedulers;
 
 import java.nio.file.Path;
 import java.util.Optional;
@@ -42,6 +45,53 @@ public final class LazyCookbookRecipeSource implements RecipeSource {
             })));
     }
 
+    @Override
+    public boolean fetchesWholeRecipes(final RecipeIdentifier identifier) {
+        Preconditions.checkNotNull(identifier);
+        return true;
+    }
+
+    /**
+     * Reads every recipe file in a single task, rather than scheduling one per recipe.
+     * Recipe files are cheap to read whole, so the requirements are ignored.
+     */
+    @Override
+    public Process<Event, ImmutableMap<RecipeIdentifier, Either<Throwable, Recipe>>> fetchAll(
+        final ImmutableMap<RecipeIdentifier, SemanticVersionRequirement> requirements) {
+
+        Preconditions.checkNotNull(requirements);
+
+        return Process.of(Single.fromCallable(() -> {
+            final ImmutableMap.Builder<RecipeIdentifier, Either<Throwable, Recipe>> builder = ImmutableMap.builder();
+            for (final RecipeIdentifier identifier : requirements.keySet()) {
+                builder.put(identifier, read(identifier));
+            }
+            return builder.build();
+        }).subscribeOn(Schedulers.io()));
+    }
+
+    private Either<Throwable, Recipe> read(final RecipeIdentifier identifier) {
+
+        Preconditions.checkNotNull(identifier);
+
+        if (identifier.source.isPresent()) {
+            return Either.left(new IllegalArgumentException(
+                identifier.encode() + " should be found on " + identifier.source.get()));
+        }
+
+        final Path pathToRecipe = path.getFileSystem().getPath(
+            path.toString(),
+            "recipes",
+            identifier.organization.name,
+            identifier.recipe.name + ".json");
+
+        try {
+            return Either.right(Either.orThrow(Serializers.parseRecipe(EvenMoreFiles.read(pathToRecipe))));
+        } catch (final Throwable e) {
+            return Either.left(new RecipeNotFoundException(this, identifier));
+        }
+    }
+
     @Override
     public Iterable<RecipeIdentifier> findCandidates(final RecipeIdentifier identifier) {
         try {
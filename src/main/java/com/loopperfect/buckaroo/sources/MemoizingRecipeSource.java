@@ -0,0 +1,218 @@
+package com.loopperfect.buckaroo.sources;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.loopperfect.buckaroo.*;
+import com.loopperfect.buckaroo.Process;
+import com.loopperfect.buckaroo.versioning.AnySemanticVersion;
+import io.reactivex.Observable;
+import org.javatuples.Pair;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A RecipeSource that performs at most one fetch per RecipeIdentifier and requirement.
+ * A whole recipe is used for every requirement once it has been fetched, and recipes
+ * of a source that only fetches whole recipes are fetched once per RecipeIdentifier.
+ *
+ * Concurrent callers share the same in-flight fetch, and later callers are
+ * given a replay of the completed fetch. Failed fetches are forgotten so
+ * that they may be retried.
+ *
+ * Instances are intended to live for the duration of a single command.
+ */
+public final class MemoizingRecipeSource implements RecipeSource {
+
+    private final RecipeSource source;
+    private final ConcurrentMap<Pair<RecipeIdentifier, SemanticVersionRequirement>, Observable<Either<Event, Recipe>>> fetches;
+    private final AtomicLong hits;
+    private final AtomicLong misses;
+
+    private MemoizingRecipeSource(final RecipeSource source) {
+        this.source = Preconditions.checkNotNull(source);
+        this.fetches = new ConcurrentHashMap<>();
+        this.hits = new AtomicLong(0L);
+        this.misses = new AtomicLong(0L);
+    }
+
+    public long hits() {
+        return hits.get();
+    }
+
+    public long misses() {
+        return misses.get();
+    }
+
+    /**
+     * The hits and misses so far, as an event that can be reported once the fetching is done.
+     */
+    public RecipeFetchStatisticsEvent statistics() {
+        return RecipeFetchStatisticsEvent.of(hits(), misses());
+    }
+
+    // The requirement that a fetch is remembered under
+    private SemanticVersionRequirement key(final RecipeIdentifier identifier, final SemanticVersionRequirement requirement) {
+        return source.fetchesWholeRecipes(identifier) ? AnySemanticVersion.of() : requirement;
+    }
+
+    // Returns null when nothing that covers the requirement has been fetched
+    private Observable<Either<Event, Recipe>> existing(
+        final RecipeIdentifier identifier, final SemanticVersionRequirement requirement) {
+        final Observable<Either<Event, Recipe>> whole = fetches.get(Pair.with(identifier, AnySemanticVersion.of()));
+        return whole != null ? whole : fetches.get(Pair.with(identifier, requirement));
+    }
+
+    private Observable<Either<Event, Recipe>> shared(
+        final RecipeIdentifier identifier, final SemanticVersionRequirement requirement) {
+
+        Preconditions.checkNotNull(identifier);
+        Preconditions.checkNotNull(requirement);
+
+        final Observable<Either<Event, Recipe>> existing = existing(identifier, requirement);
+
+        if (existing != null) {
+            hits.incrementAndGet();
+            return existing;
+        }
+
+        final Pair<RecipeIdentifier, SemanticVersionRequirement> key = Pair.with(identifier, key(identifier, requirement));
+        final Mutable<Observable<Either<Event, Recipe>>> created = new Mutable<>(null);
+
+        created.value = source.fetch(identifier, key.getValue1())
+            .toObservable()
+            .doOnError(error -> fetches.remove(key, created.value))
+            .cache();
+
+        final Observable<Either<Event, Recipe>> raced = fetches.putIfAbsent(key, created.value);
+
+        if (raced != null) {
+            hits.incrementAndGet();
+            return raced;
+        }
+
+        misses.incrementAndGet();
+        return created.value;
+    }
+
+    @Override
+    public Process<Event, Recipe> fetch(final RecipeIdentifier identifier) {
+        Preconditions.checkNotNull(identifier);
+        return Process.of(Observable.defer(() -> shared(identifier, AnySemanticVersion.of())));
+    }
+
+    @Override
+    public Process<Event, Recipe> fetch(final RecipeIdentifier identifier, final SemanticVersionRequirement requirement) {
+        Preconditions.checkNotNull(identifier);
+        Preconditions.checkNotNull(requirement);
+        return Process.of(Observable.defer(() -> shared(identifier, requirement)));
+    }
+
+    /**
+     * Fetches the recipes that are not already known in one batch from the underlying source.
+     *
+     * Each recipe of the batch is remembered separately, so a failure only forgets that recipe.
+     */
+    @Override
+    public Process<Event, ImmutableMap<RecipeIdentifier, Either<Throwable, Recipe>>> fetchAll(
+        final ImmutableMap<RecipeIdentifier, SemanticVersionRequirement> requirements) {
+
+        Preconditions.checkNotNull(requirements);
+
+        return Process.of(Observable.defer(() -> {
+
+            final ImmutableList<RecipeIdentifier> distinct = requirements.keySet().asList();
+
+            final ImmutableMap<RecipeIdentifier, SemanticVersionRequirement> missing = requirements.entrySet()
+                .stream()
+                .filter(x -> existing(x.getKey(), x.getValue()) == null)
+                .collect(ImmutableMap.toImmutableMap(Map.Entry::getKey, x -> key(x.getKey(), x.getValue())));
+
+            final Observable<Either<Event, ImmutableMap<RecipeIdentifier, Either<Throwable, Recipe>>>> batch =
+                missing.isEmpty() ?
+                    Observable.just(Either.right(ImmutableMap.of())) :
+                    source.fetchAll(missing).toObservable().cache();
+
+            final Map<RecipeIdentifier, Observable<Either<Event, Recipe>>> shared = new HashMap<>();
+
+            for (final RecipeIdentifier identifier : missing.keySet()) {
+
+                final Pair<RecipeIdentifier, SemanticVersionRequirement> key = Pair.with(identifier, missing.get(identifier));
+                final Mutable<Observable<Either<Event, Recipe>>> created = new Mutable<>(null);
+
+                // The states of the batch are pushed once, below, rather than once per recipe
+                created.value = batch
+                    .filter(Either::isRight)
+                    .flatMap(x -> x.right().get().get(identifier).join(
+                        Observable::<Either<Event, Recipe>>error,
+                        recipe -> Observable.just(Either.<Event, Recipe>right(recipe))))
+                    .doOnError(error -> fetches.remove(key, created.value))
+                    .cache();
+
+                final Observable<Either<Event, Recipe>> raced = fetches.putIfAbsent(key, created.value);
+
+                if (raced != null) {
+                    hits.incrementAndGet();
+                    shared.put(identifier, raced);
+                } else {
+                    misses.incrementAndGet();
+                    shared.put(identifier, created.value);
+                }
+            }
+
+            for (final RecipeIdentifier identifier : distinct) {
+                if (!shared.containsKey(identifier)) {
+                    shared.put(identifier, shared(identifier, requirements.get(identifier)));
+                }
+            }
+
+            final ImmutableList<Process<Event, Either<Throwable, Recipe>>> each = distinct.stream()
+                .map(x -> {
+                    final Process<Event, Recipe> fetch = Process.of(shared.get(x));
+                    return fetch.map(Either::<Throwable, Recipe>right).onErrorReturn(Either::left);
+                })
+                .collect(ImmutableList.toImmutableList());
+
+            return Process.merge(
+                Process.of(batch.filter(Either::isLeft)
+                    .concatWith(Observable.just(Either.right(ImmutableMap.of())))
+                    .onErrorReturnItem(Either.right(ImmutableMap.of()))),
+                Process.merge(each))
+                .map(x -> MoreMaps.zip(distinct, x.getValue1()))
+                .toObservable();
+        }));
+    }
+
+    @Override
+    public boolean fetchesWholeRecipes(final RecipeIdentifier identifier) {
+        return source.fetchesWholeRecipes(identifier);
+    }
+
+    @Override
+    public Process<Event, RecipeVersion> pin(final RecipeIdentifier identifier, final RecipeVersion recipeVersion) {
+        return source.pin(identifier, recipeVersion);
+    }
+
+    @Override
+    public Iterable<RecipeIdentifier> findCandidates(final RecipeIdentifier identifier) {
+        return source.findCandidates(identifier);
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+            .add("source", source)
+            .add("hits", hits.get())
+            .add("misses", misses.get())
+            .toString();
+    }
+
+    public static MemoizingRecipeSource of(final RecipeSource source) {
+        return new MemoizingRecipeSource(source);
+    }
+}
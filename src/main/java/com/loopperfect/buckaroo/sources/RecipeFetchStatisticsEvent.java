@@ -0,0 +1,53 @@
+package com.loopperfect.buckaroo.sources;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.base.Preconditions;
+import com.loopperfect.buckaroo.Event;
+
+import java.util.Objects;
+
+/**
+ * How many recipe fetches a resolution made, and how many of those were served by an earlier fetch.
+ */
+public final class RecipeFetchStatisticsEvent extends Event {
+
+    public final long hits;
+    public final long misses;
+
+    private RecipeFetchStatisticsEvent(final long hits, final long misses) {
+        Preconditions.checkArgument(hits >= 0);
+        Preconditions.checkArgument(misses >= 0);
+        this.hits = hits;
+        this.misses = misses;
+    }
+
+    public boolean equals(final RecipeFetchStatisticsEvent other) {
+        Preconditions.checkNotNull(other);
+        return hits == other.hits && misses == other.misses;
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+        return obj == this ||
+            obj != null &&
+                obj instanceof RecipeFetchStatisticsEvent &&
+                equals((RecipeFetchStatisticsEvent) obj);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(hits, misses);
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+            .add("hits", hits)
+            .add("misses", misses)
+            .toString();
+    }
+
+    public static RecipeFetchStatisticsEvent of(final long hits, final long misses) {
+        return new RecipeFetchStatisticsEvent(hits, misses);
+    }
+}
@@ -1,17 +1,21 @@
 package com.loopperfect.buckaroo.sources;
 
 import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.loopperfect.buckaroo.*;
 import com.loopperfect.buckaroo.Process;
 import com.loopperfect.buckaroo.github.GitHubRecipeSource;
-import com.loopperfect.buckaroo.resolver.DependencyResolutionException;
+import com.loopperfect.buckaroo.github.RecipeVersionStore;
+import com.loopperfect.buckaroo.github.TagCache;
 import com.loopperfect.buckaroo.versioning.ExactSemanticVersion;
 import io.reactivex.Single;
+import org.javatuples.Pair;
 
 import java.io.IOException;
 import java.nio.file.FileSystem;
 import java.nio.file.Path;
+import java.time.Duration;
 import java.util.Comparator;
 
 public final class RecipeSources {
@@ -28,32 +32,73 @@ public final class RecipeSources {
     public static RecipeSource routed(final ImmutableMap<Identifier, RecipeSource> routes, final RecipeSource otherwise) {
         Preconditions.checkNotNull(routes);
         Preconditions.checkNotNull(otherwise);
-        return identifier -> {
-            if (identifier.source.isPresent()) {
-                if (routes.containsKey(identifier.source.get())) {
-                    return routes.get(identifier.source.get()).fetch(identifier);
-                }
-                return Process.error(new DependencyResolutionException(
-                    "Could not fetch " + identifier.encode() + " because " + identifier.source.get() + " is not routed. "));
-            }
-            return otherwise.fetch(identifier);
-        };
+        return RoutedRecipeSource.of(routes, otherwise);
     }
 
-    public static RecipeSource standard(final FileSystem fs, final BuckarooConfig config) {
+    public static Path getCookbookPath(final FileSystem fs, final RemoteCookbook cookbook) {
 
         Preconditions.checkNotNull(fs);
-        Preconditions.checkNotNull(config);
+        Preconditions.checkNotNull(cookbook);
 
-        final Path cookbookPath = fs.getPath(
+        return fs.getPath(
             System.getProperty("user.home"),
             ".buckaroo",
-            config.cookbooks.get(0).name.name);
+            cookbook.name.name);
+    }
+
+    /**
+     * The recipe source used by the commands.
+     * When refresh is set, the cached tag listings are ignored and replaced.
+     */
+    public static MemoizingRecipeSource standard(final FileSystem fs, final BuckarooConfig config, final boolean refresh) {
+
+        Preconditions.checkNotNull(fs);
+        Preconditions.checkNotNull(config);
 
-        return RecipeSources.routed(
+        final Path cookbookPath = getCookbookPath(fs, config.cookbooks.get(0));
+
+        final TagCache tagCache = TagCache.of(
+            fs, refresh ? Duration.ZERO : config.tagsTimeToLive.orElse(TagCache.DEFAULT_TIME_TO_LIVE));
+
+        return MemoizingRecipeSource.of(RecipeSources.routed(
             ImmutableMap.of(
-                Identifier.of("github"), GitHubRecipeSource.of(fs)),
-            LazyCookbookRecipeSource.of(cookbookPath));
+                Identifier.of("github"), GitHubRecipeSource.of(fs, RecipeVersionStore.of(fs), tagCache)),
+            LazyCookbookRecipeSource.of(cookbookPath)));
+    }
+
+    public static MemoizingRecipeSource standard(final FileSystem fs, final BuckarooConfig config) {
+        return standard(fs, config, false);
+    }
+
+    /**
+     * Pins every version of a resolution, so that it can be locked.
+     */
+    public static Process<Event, ResolvedDependencies> pin(final RecipeSource source, final ResolvedDependencies resolved) {
+
+        Preconditions.checkNotNull(source);
+        Preconditions.checkNotNull(resolved);
+
+        final ImmutableList<RecipeIdentifier> identifiers = ImmutableList.copyOf(resolved.dependencies.keySet());
+
+        return Process.merge(identifiers.stream()
+            .map(x -> {
+                final Pair<SemanticVersion, RecipeVersion> selected = resolved.dependencies.get(x);
+                return source.pin(x, selected.getValue1()).map(selected::setAt1);
+            })
+            .collect(ImmutableList.toImmutableList()))
+            .map(pinned -> ResolvedDependencies.of(MoreMaps.zip(identifiers, pinned)));
+    }
+
+    private static Dependency newest(final PartialDependency dependency, final Recipe recipe) throws IOException {
+
+        Preconditions.checkNotNull(dependency);
+        Preconditions.checkNotNull(recipe);
+
+        return Dependency.of(
+            RecipeIdentifier.of(dependency.source, dependency.organization, dependency.project),
+            ExactSemanticVersion.of(recipe.versions.keySet().stream()
+                .max(Comparator.naturalOrder())
+                .orElseThrow(() -> new IOException(dependency.encode() + " has no versions! "))));
     }
 
     public static Process<Event, Dependency> resolve(final RecipeSource source, final PartialDependency dependency) {
@@ -62,10 +107,33 @@ public final class RecipeSources {
         Preconditions.checkNotNull(dependency);
 
         return source.fetch(RecipeIdentifier.of(dependency.source, dependency.organization, dependency.project))
-            .chain(recipe -> Process.of(Single.just(recipe).map(x -> Dependency.of(
-                RecipeIdentifier.of(dependency.source, dependency.organization, dependency.project),
-                ExactSemanticVersion.of(x.versions.keySet().stream()
-                    .max(Comparator.naturalOrder())
-                    .orElseThrow(() -> new IOException(dependency.encode() + " has no versions! ")))))));
+            .chain(recipe -> Process.of(Single.just(recipe).map(x -> newest(dependency, x))));
+    }
+
+    /**
+     * Completes each partial dependency with the newest version of its recipe,
+     * fetching all of the recipes in one batch.
+     */
+    public static Process<Event, ImmutableList<Dependency>> resolve(
+        final RecipeSource source, final ImmutableList<PartialDependency> dependencies) {
+
+        Preconditions.checkNotNull(source);
+        Preconditions.checkNotNull(dependencies);
+
+        final ImmutableList<RecipeIdentifier> identifiers = dependencies.stream()
+            .map(x -> RecipeIdentifier.of(x.source, x.organization, x.project))
+            .collect(ImmutableList.toImmutableList());
+
+        return source.fetchAll(identifiers).chain(recipes -> Process.of(Single.defer(() -> {
+            final ImmutableList.Builder<Dependency> builder = ImmutableList.builder();
+            for (int i = 0; i < dependencies.size(); i++) {
+                final Either<Throwable, Recipe> recipe = recipes.get(identifiers.get(i));
+                if (recipe.isLeft()) {
+                    return Single.error(recipe.left().get());
+                }
+                builder.add(newest(dependencies.get(i), recipe.right().get()));
+            }
+            return Single.just(builder.build());
+        })));
     }
 }
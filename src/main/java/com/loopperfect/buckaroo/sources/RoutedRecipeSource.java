@@ -0,0 +1,103 @@
+package com.loopperfect.buckaroo.sources;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.*;
+import com.loopperfect.buckaroo.*;
+import com.loopperfect.buckaroo.Process;
+import com.loopperfect.buckaroo.resolver.DependencyResolutionException;
+
+import java.util.Optional;
+
+/**
+ * A RecipeSource that sends each identifier to the source named by its prefix,
+ * or to a fallback source when it has none.
+ *
+ * A batch is split by route, so that each source receives all of its recipes in one batch.
+ */
+public final class RoutedRecipeSource implements RecipeSource {
+
+    private final ImmutableMap<Identifier, RecipeSource> routes;
+    private final RecipeSource otherwise;
+
+    private RoutedRecipeSource(final ImmutableMap<Identifier, RecipeSource> routes, final RecipeSource otherwise) {
+        this.routes = Preconditions.checkNotNull(routes);
+        this.otherwise = Preconditions.checkNotNull(otherwise);
+    }
+
+    private Optional<RecipeSource> route(final RecipeIdentifier identifier) {
+        Preconditions.checkNotNull(identifier);
+        return identifier.source.isPresent() ?
+            Optional.ofNullable(routes.get(identifier.source.get())) :
+            Optional.of(otherwise);
+    }
+
+    private static DependencyResolutionException notRouted(final RecipeIdentifier identifier) {
+        return new DependencyResolutionException(
+            "Could not fetch " + identifier.encode() + " because " + identifier.source.get() + " is not routed. ");
+    }
+
+    @Override
+    public Process<Event, Recipe> fetch(final RecipeIdentifier identifier) {
+        Preconditions.checkNotNull(identifier);
+        return route(identifier)
+            .map(x -> x.fetch(identifier))
+            .orElseGet(() -> Process.error(notRouted(identifier)));
+    }
+
+    @Override
+    public Process<Event, Recipe> fetch(final RecipeIdentifier identifier, final SemanticVersionRequirement requirement) {
+        Preconditions.checkNotNull(identifier);
+        Preconditions.checkNotNull(requirement);
+        return route(identifier)
+            .map(x -> x.fetch(identifier, requirement))
+            .orElseGet(() -> Process.error(notRouted(identifier)));
+    }
+
+    @Override
+    public boolean fetchesWholeRecipes(final RecipeIdentifier identifier) {
+        Preconditions.checkNotNull(identifier);
+        return route(identifier).map(x -> x.fetchesWholeRecipes(identifier)).orElse(false);
+    }
+
+    @Override
+    public Process<Event, RecipeVersion> pin(final RecipeIdentifier identifier, final RecipeVersion recipeVersion) {
+        Preconditions.checkNotNull(identifier);
+        Preconditions.checkNotNull(recipeVersion);
+        return route(identifier)
+            .map(x -> x.pin(identifier, recipeVersion))
+            .orElseGet(() -> Process.just(recipeVersion));
+    }
+
+    @Override
+    public Process<Event, ImmutableMap<RecipeIdentifier, Either<Throwable, Recipe>>> fetchAll(
+        final ImmutableMap<RecipeIdentifier, SemanticVersionRequirement> requirements) {
+
+        Preconditions.checkNotNull(requirements);
+
+        final ImmutableMap<RecipeIdentifier, Either<Throwable, Recipe>> unrouted = requirements.keySet()
+            .stream()
+            .filter(x -> !route(x).isPresent())
+            .collect(ImmutableMap.toImmutableMap(x -> x, x -> Either.left(notRouted(x))));
+
+        // Sources are grouped by identity
+        final ImmutableListMultimap<RecipeSource, RecipeIdentifier> byRoute = Multimaps.index(
+            requirements.keySet().stream().filter(x -> route(x).isPresent()).iterator(),
+            x -> route(x).get());
+
+        final ImmutableList<Process<Event, ImmutableMap<RecipeIdentifier, Either<Throwable, Recipe>>>> batches =
+            byRoute.asMap()
+                .entrySet()
+                .stream()
+                .map(x -> x.getKey().fetchAll(x.getValue()
+                    .stream()
+                    .collect(ImmutableMap.toImmutableMap(i -> i, requirements::get))))
+                .collect(ImmutableList.toImmutableList());
+
+        return Process.merge(batches).map(results -> results.stream()
+            .reduce(unrouted, MoreMaps::merge));
+    }
+
+    public static RecipeSource of(final ImmutableMap<Identifier, RecipeSource> routes, final RecipeSource otherwise) {
+        return new RoutedRecipeSource(routes, otherwise);
+    }
+}
@@ -1,17 +1,29 @@
 package com.loopperfect.buckaroo.tasks;
 
+import com.google.common.base.Charsets;
 import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
 import com.loopperfect.buckaroo.*;
+import com.loopperfect.buckaroo.Process;
 import com.loopperfect.buckaroo.events.FileHashEvent;
+import com.loopperfect.buckaroo.github.GitHub;
+import com.loopperfect.buckaroo.serialization.Serializers;
 import io.reactivex.Completable;
 import io.reactivex.Observable;
 
 import java.net.URL;
 import java.nio.file.*;
+import java.util.Comparator;
 import java.util.Optional;
 
 public final class CacheTasks {
 
+    // Shared by every download into the cache in this process
+    private static final DownloadCoordinator downloads = DownloadCoordinator.of();
+
     private CacheTasks() {
 
     }
@@ -66,6 +78,169 @@ public final class CacheTasks {
         return getCachePath(fs, url, Optional.empty());
     }
 
+    public static Path getCachePath(final FileSystem fs, final GitCommit commit) {
+
+        Preconditions.checkNotNull(fs);
+        Preconditions.checkNotNull(commit);
+
+        return getCacheFolder(fs).resolve(StringUtils.escapeStringAsFilename(commit.url));
+    }
+
+    /**
+     * True if the source of the recipe version has already been downloaded to the cache,
+     * so that installing it would not touch the network.
+     */
+    public static boolean isCached(final FileSystem fs, final RecipeVersion recipeVersion) {
+
+        Preconditions.checkNotNull(fs);
+        Preconditions.checkNotNull(recipeVersion);
+
+        return recipeVersion.source.join(
+            gitCommit -> Files.isDirectory(getCachePath(fs, gitCommit)),
+            remoteArchive -> Files.exists(getCachePath(fs, remoteArchive.asRemoteFile())));
+    }
+
+    /**
+     * True if the recipe version of the project is in the cache, as with isCached.
+     *
+     * Versions from GitHub are commits until they are pinned, but pinning downloads
+     * the archive of the commit rather than cloning it, so that is what is looked for.
+     */
+    public static boolean isCached(final FileSystem fs, final RecipeIdentifier identifier, final RecipeVersion recipeVersion) {
+
+        Preconditions.checkNotNull(fs);
+        Preconditions.checkNotNull(identifier);
+        Preconditions.checkNotNull(recipeVersion);
+
+        final boolean isArchiveCached = identifier.source.equals(Optional.of(Identifier.of("github"))) &&
+            recipeVersion.source.left()
+                .filter(x -> x.url.equals(GitHub.cloneURL(identifier.organization, identifier.recipe)))
+                .flatMap(x -> GitCommitHash.parse(x.commit))
+                .map(x -> Files.exists(getCachePath(
+                    fs, GitHub.zipURL(identifier.organization, identifier.recipe, x), Optional.of("zip"))))
+                .orElse(false);
+
+        return isArchiveCached || isCached(fs, recipeVersion);
+    }
+
+    public static Path getResolutionCachePath(final FileSystem fs, final HashCode key) {
+
+        Preconditions.checkNotNull(fs);
+        Preconditions.checkNotNull(key);
+
+        return fs.getPath(getCacheFolder(fs).toString(), "resolutions", key.toString() + ".json");
+    }
+
+    /**
+     * True if the resolution can be cached, which is only the case when every recipe comes
+     * from a cookbook. Recipes from sources such as GitHub change with their tags, which the
+     * key does not capture.
+     */
+    public static boolean isCacheable(final DependencyLocks locks) {
+        Preconditions.checkNotNull(locks);
+        return locks.locks.keySet().stream().noneMatch(x -> x.source.isPresent());
+    }
+
+    // Each string is prefixed by its length, so that different inputs cannot run together
+    private static Hasher putString(final Hasher hasher, final String value) {
+        return hasher.putInt(value.length()).putString(value, Charsets.UTF_8);
+    }
+
+    /**
+     * Computes the key of a cached resolution from everything that it depends on.
+     *
+     * The resolution starts from the entries of the existing locks that can be kept,
+     * so those entries are part of the key, but the rest of the locks are not.
+     *
+     * Nothing is returned if a dependency is not from a cookbook or if the commit of
+     * a cookbook cannot be read, since a cached resolution could then be out-of-date.
+     */
+    public static Optional<HashCode> getResolutionKey(
+        final DependencyGroup dependencies,
+        final DependencyLocks existingLocks,
+        final ImmutableList<Path> cookbooks,
+        final String resolver) {
+
+        Preconditions.checkNotNull(dependencies);
+        Preconditions.checkNotNull(existingLocks);
+        Preconditions.checkNotNull(cookbooks);
+        Preconditions.checkNotNull(resolver);
+
+        if (dependencies.dependencies.keySet().stream().anyMatch(x -> x.source.isPresent())) {
+            return Optional.empty();
+        }
+
+        final ResolvedDependencies seed = existingLocks.seed(dependencies.entries());
+
+        final DependencyLocks kept = DependencyLocks.of(existingLocks.entries()
+            .stream()
+            .filter(x -> seed.dependencies.containsKey(x.identifier))
+            .sorted(Comparator.comparing(x -> x.identifier.encode()))
+            .collect(ImmutableList.toImmutableList()));
+
+        final Hasher hasher = Hashing.sha256().newHasher();
+
+        putString(hasher, Serializers.serialize(dependencies));
+        putString(hasher, Serializers.serialize(kept));
+        putString(hasher, resolver);
+
+        for (final Path cookbook : cookbooks) {
+            final Optional<String> head = GitTasks.readHead(cookbook);
+            if (!head.isPresent()) {
+                return Optional.empty();
+            }
+            putString(hasher, head.get());
+        }
+
+        return Optional.of(hasher.hash());
+    }
+
+    // Downloads to the part file, and only moves it to the target once the hash matches
+    private static Observable<Event> downloadVerified(final RemoteFile file, final Path target) {
+
+        final Path part = DownloadTask.getPartPath(target);
+
+        return Observable.fromCallable(() -> Files.exists(part)).flatMap(resuming -> {
+
+            // A segmented download continues each of its segments, anything else appends to the part file
+            final Process<DownloadProgress, HashCode> download = resuming && !SegmentedDownloadTask.isInterrupted(part) ?
+                DownloadTask.resume(file.url, part) :
+                SegmentedDownloadTask.download(file.url, part);
+
+            return download.toObservable().concatMap(next -> next.join(
+                Observable::<Event>just,
+                (HashCode sha256) -> {
+
+                    // Does it match?
+                    if (sha256.equals(file.sha256)) {
+
+                        // Yes, so the part file becomes the cached file
+                        return Completable.fromAction(() -> EvenMoreFiles.moveReplacing(part, target))
+                            .<Event>toObservable()
+                            .startWith(FileHashEvent.of(part, sha256));
+                    }
+
+                    // No, so throw it away...
+                    final Observable<Event> delete = CommonTasks.deleteIfExists(part)
+                        .toObservable()
+                        .cast(Event.class);
+
+                    // ... and start again from scratch, if it was resumed from an earlier attempt
+                    return delete.concatWith(resuming ?
+                        downloadVerified(file, target) :
+                        Observable.error(new HashMismatchException(file.sha256, sha256)));
+                }));
+        });
+    }
+
+    /**
+     * Ensures that the file is in the cache with the right hash.
+     *
+     * The download goes to a part file next to the cached file, so an interrupted
+     * download is resumed from where it stopped rather than from the first byte.
+     * Large files are fetched as several ranges at once. Concurrent requests
+     * for the same file attach to the download that is already in flight.
+     */
     public static Observable<Event> downloadToCache(final FileSystem fs, final RemoteFile file) {
 
         Preconditions.checkNotNull(file);
@@ -73,7 +248,7 @@ public final class CacheTasks {
         final Path target = getCachePath(fs, file);
 
         // Does the file exist?
-        return Observable.fromCallable(() -> Files.exists(target)).flatMap(fileExists -> {
+        final Observable<Event> download = Observable.fromCallable(() -> Files.exists(target)).flatMap(fileExists -> {
 
             // Yes
             if (fileExists) {
@@ -98,15 +273,18 @@ public final class CacheTasks {
                                 .cast(Event.class),
 
                             // Retry the download
-                            CommonTasks.downloadRemoteFile(fs, file, target)
+                            downloadVerified(file, target)
                         );
                     });
             }
 
             // No...
             // ... so download the file!
-            return CommonTasks.downloadRemoteFile(fs, file, target);
+            return downloadVerified(file, target);
         });
+
+        // Concurrent requests for the same file, such as from two packages of one archive, share one transfer
+        return downloads.download(target, () -> download);
     }
 
     public static Observable<Event> downloadToCache(final FileSystem fs, final URL url) {
@@ -120,7 +298,9 @@ public final class CacheTasks {
             return Observable.empty();
         }
 
-        return DownloadTask.download(url, cachePath).cast(Event.class);
+        return downloads.download(
+            cachePath,
+            () -> DownloadTask.downloadResumably(url, cachePath).states().cast(Event.class));
     }
 
     public static Observable<Event> downloadUsingCache(final RemoteFile file, final Path target) {
@@ -159,8 +339,7 @@ public final class CacheTasks {
         Preconditions.checkNotNull(gitCommit);
         Preconditions.checkNotNull(targetDirectory);
 
-        final Path cachePath = getCacheFolder(targetDirectory.getFileSystem())
-            .resolve(StringUtils.escapeStringAsFilename(gitCommit.url));
+        final Path cachePath = getCachePath(targetDirectory.getFileSystem(), gitCommit);
 
         final Observable<Event> copy = Completable.fromAction(() ->
             EvenMoreFiles.copyDirectory(cachePath, targetDirectory, copyOptions))
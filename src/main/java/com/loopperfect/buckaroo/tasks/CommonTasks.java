@@ -69,6 +69,17 @@ public final class CommonTasks {
             .subscribeOn(Schedulers.io());
     }
 
+    /**
+     * Reads the lock file if there is one. A missing or unreadable lock file
+     * is treated as empty, since it only serves as a starting point for resolution.
+     */
+    public static Single<DependencyLocks> readLockFileOrEmpty(final Path path) {
+        Preconditions.checkNotNull(path);
+        return Single.fromCallable(() -> Files.exists(path))
+            .flatMap(exists -> exists ? readLockFile(path) : Single.just(DependencyLocks.of()))
+            .onErrorReturnItem(DependencyLocks.of());
+    }
+
     public static Single<WriteFileEvent> writeFile(final String content, final Path path, final boolean overwrite) {
         Preconditions.checkNotNull(content);
         Preconditions.checkNotNull(path);
@@ -198,10 +209,13 @@ public final class CommonTasks {
         Preconditions.checkNotNull(path);
         Preconditions.checkNotNull(expected);
 
-        return hash(path).flatMapObservable(
-            event -> event.sha256.equals(expected) ?
-                Observable.empty() :
-                Observable.error(new HashMismatchException(expected, event.sha256)));
+        return hash(path).flatMapObservable(event -> ensureHash(event.sha256, expected));
+    }
+
+    private static Observable<Event> ensureHash(final HashCode actual, final HashCode expected) {
+        return actual.equals(expected) ?
+            Observable.empty() :
+            Observable.error(new HashMismatchException(expected, actual));
     }
 
     public static Observable<Event> downloadRemoteFile(final FileSystem fs, final RemoteFile remoteFile, final Path target) {
@@ -210,23 +224,21 @@ public final class CommonTasks {
         Preconditions.checkNotNull(remoteFile);
         Preconditions.checkNotNull(target);
 
-        return Observable.concat(
+        // Does the file exist?
+        return Observable.fromCallable(() -> Files.exists(target)).flatMap(exists -> {
 
-            // Does the file exist?
-            Observable.fromCallable(() -> Files.exists(target))
-                .flatMap(
-                    exists -> {
-                        if (exists) {
-                            // Then skip the download
-                            return Observable.empty();
-                        }
-                        // Otherwise, download the file
-                        return DownloadTask.download(remoteFile.url, target);
-                    }).cast(Event.class),
-
-            // Verify the hash
-            ensureHash(target, remoteFile.sha256)
-        );
+            if (exists) {
+                // Then skip the download, but verify the hash
+                return ensureHash(target, remoteFile.sha256);
+            }
+
+            // Otherwise, download the file, hashing it on the way to disk
+            return DownloadTask.downloadAndHash(remoteFile.url, target, false)
+                .toObservable()
+                .concatMap(next -> next.join(
+                    Observable::<Event>just,
+                    (HashCode sha256) -> ensureHash(sha256, remoteFile.sha256)));
+        });
     }
 
     public static Observable<Event> downloadRemoteArchive(final FileSystem fs, final RemoteArchive remoteArchive, final Path targetDirectory) {
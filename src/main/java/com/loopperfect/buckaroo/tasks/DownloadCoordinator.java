@@ -0,0 +1,59 @@
+package com.loopperfect.buckaroo.tasks;
+
+import com.google.common.base.Preconditions;
+import com.loopperfect.buckaroo.Event;
+import io.reactivex.Observable;
+
+import java.nio.file.Path;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Lets concurrent downloads to the same file share a single transfer.
+ *
+ * The first request for a path starts the download. Any request for that path that arrives
+ * whilst it is in flight attaches to it instead, receiving the same events from then on,
+ * and completes or fails along with it. Once the transfer ends, the next request starts afresh.
+ */
+public final class DownloadCoordinator {
+
+    private final ConcurrentMap<Path, Observable<Event>> inFlight;
+
+    private DownloadCoordinator() {
+        this.inFlight = new ConcurrentHashMap<>();
+    }
+
+    private Observable<Event> share(final Path key, final Observable<Event> download) {
+
+        final AtomicReference<Observable<Event>> shared = new AtomicReference<>();
+
+        // The transfer ends when it terminates or when every request has been disposed.
+        // It is forgotten before its requests hear that it terminated, so that none can join it afterwards.
+        shared.set(download
+            .doOnTerminate(() -> inFlight.remove(key, shared.get()))
+            .doOnDispose(() -> inFlight.remove(key, shared.get()))
+            .publish()
+            .refCount());
+
+        return shared.get();
+    }
+
+    /**
+     * Runs the download for the target, unless one is already in flight, in which case that is joined.
+     */
+    public Observable<Event> download(final Path target, final Supplier<Observable<Event>> download) {
+
+        Preconditions.checkNotNull(target);
+        Preconditions.checkNotNull(download);
+
+        final Path key = target.toAbsolutePath().normalize();
+
+        return Observable.defer(() -> inFlight.computeIfAbsent(key, ignored -> share(key, download.get())));
+    }
+
+    public static DownloadCoordinator of() {
+        return new DownloadCoordinator();
+    }
+}
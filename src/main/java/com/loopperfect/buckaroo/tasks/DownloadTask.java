@@ -1,15 +1,21 @@
 package com.loopperfect.buckaroo.tasks;
 
 import com.google.common.base.Preconditions;
+import com.google.common.hash.Funnels;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.hash.HashingOutputStream;
+import com.google.common.io.MoreFiles;
 import com.loopperfect.buckaroo.Either;
+import com.loopperfect.buckaroo.EvenMoreFiles;
 import com.loopperfect.buckaroo.Event;
 import com.loopperfect.buckaroo.Process;
+import io.reactivex.Completable;
 import io.reactivex.Observable;
-import io.reactivex.Single;
+import io.reactivex.ObservableEmitter;
 import io.reactivex.schedulers.Schedulers;
-import okhttp3.OkHttpClient;
 import okhttp3.Request;
-import okhttp3.Response;
 
 import java.io.*;
 import java.net.URL;
@@ -17,6 +23,8 @@ import java.nio.charset.Charset;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
 
 public final class DownloadTask {
 
@@ -37,99 +45,278 @@ public final class DownloadTask {
             ByteArrayOutputStream::close));
     }
 
+    private static OutputStream open(final Path target, final boolean overwrite) throws IOException {
+
+        final Path parent = target.getParent();
+
+        if (parent != null && !Files.exists(parent)) {
+            Files.createDirectories(parent);
+        }
+
+        if (overwrite) {
+            return Files.newOutputStream(target, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+        }
+
+        return Files.newOutputStream(target, StandardOpenOption.CREATE_NEW);
+    }
+
     public static Observable<DownloadProgress> download(final URL url, final Path target, final boolean overwrite) {
 
         Preconditions.checkNotNull(url);
         Preconditions.checkNotNull(target);
 
-        return Single.fromCallable(() -> {
+        // The file is closed even if the request fails before the copy starts
+        return Observable.using(
+            () -> open(target, overwrite),
+            outputStream -> download(url, outputStream),
+            OutputStream::close);
+    }
 
-            final Path parent = target.getParent();
+    /**
+     * Downloads to the target, passing the bytes through SHA-256 on their way to disk,
+     * so that the hash of the file is known without reading it back.
+     */
+    public static Process<DownloadProgress, HashCode> downloadAndHash(
+        final URL url, final Path target, final boolean overwrite, final SharedHttpClient client) {
 
-            if (parent != null && !Files.exists(parent)) {
-                Files.createDirectories(parent);
-            }
+        Preconditions.checkNotNull(url);
+        Preconditions.checkNotNull(target);
+        Preconditions.checkNotNull(client);
 
-            if (overwrite) {
-                return Files.newOutputStream(target, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
-            }
+        return Process.of(Observable.using(
+            () -> new HashingOutputStream(Hashing.sha256(), open(target, overwrite)),
+            hashingOutputStream -> Observable.concat(
+                download(url, hashingOutputStream, client).map(Either::<DownloadProgress, HashCode>left),
+                Observable.fromCallable(() -> Either.<DownloadProgress, HashCode>right(hashingOutputStream.hash()))),
+            HashingOutputStream::close));
+    }
 
-            return Files.newOutputStream(target, StandardOpenOption.CREATE_NEW);
-        }).flatMapObservable(outputStream -> download(url, outputStream));
+    public static Process<DownloadProgress, HashCode> downloadAndHash(final URL url, final Path target, final boolean overwrite) {
+        return downloadAndHash(url, target, overwrite, SharedHttpClient.get());
     }
 
     public static Observable<DownloadProgress> download(final URL url, final Path target) {
         return download(url, target, false);
     }
 
-    public static Observable<DownloadProgress> download(final URL url, final OutputStream output) {
+    // Copies the body to the output, reporting progress from the given offset, and closes both,
+    // even if the copy fails part of the way through.
+    // True if the copy finished, in which case the caller should signal completion.
+    private static boolean transfer(
+        final InputStream body,
+        final OutputStream target,
+        final long offset,
+        final long contentLength,
+        final ObservableEmitter<DownloadProgress> emitter) throws IOException {
+
+        final byte[] data = new byte[1024];
+
+        long total = offset;
+        long lastEmissionCount = total;
+
+        try (final OutputStream output = target;
+             final InputStream input = new BufferedInputStream(body)) {
+
+            emitter.onNext(DownloadProgress.of(total, contentLength));
+
+            int count;
+            long lastCount = total;
+
+            while ((count = input.read(data)) != -1) {
+
+                if(emitter.isDisposed()) break;
+
+                total += count;
+                output.write(data, 0, count);
+
+                if ((total - lastCount) >= PROGRESS_REPORT_EVERY_N_BYTES) {
+                    lastEmissionCount = total;
+                    emitter.onNext(DownloadProgress.of(total, contentLength));
+                }
+
+                lastCount = total;
+            }
+
+            output.flush();
+        }
+
+        if (emitter.isDisposed()) {
+            return false;
+        }
+
+        if (lastEmissionCount != total) {
+            emitter.onNext(DownloadProgress.of(total, contentLength));
+        }
+
+        return true;
+    }
+
+    public static Observable<DownloadProgress> download(
+        final URL url, final OutputStream output, final SharedHttpClient client) {
 
         Preconditions.checkNotNull(url);
         Preconditions.checkNotNull(output);
+        Preconditions.checkNotNull(client);
 
         final Observable<DownloadProgress> observable = Observable.create(emitter -> {
 
-            final OkHttpClient client = new OkHttpClient.Builder()
-                .followRedirects(true)
-                .followSslRedirects(true)
-                .build();
-
             final Request request = new Request.Builder()
                 .url(url)
                 .build();
 
-            final Response response = client.newCall(request).execute();
-
             try {
 
-                if (!response.isSuccessful()) {
-                    throw new IOException("Unexpected code " + response);
+                client.execute(request, response -> {
+
+                    if (!response.isSuccessful()) {
+                        throw new IOException("Unexpected code " + response);
+                    }
+
+                    if (transfer(response.body().byteStream(), output, 0L, response.body().contentLength(), emitter)) {
+                        emitter.onComplete();
+                    }
+
+                    return null;
+                });
+            } catch (final Throwable e) {
+                if (!emitter.isDisposed()) {
+                    emitter.onError(e);
                 }
+            }
+        });
 
-                final InputStream input = new BufferedInputStream(response.body().byteStream());
+        return observable.subscribeOn(Schedulers.io());
+    }
+
+    public static Observable<DownloadProgress> download(final URL url, final OutputStream output) {
+        return download(url, output, SharedHttpClient.get());
+    }
 
-                final byte[] data = new byte[1024];
-                final long contentLength = response.body().contentLength();
+    /**
+     * The file that a resumable download into the target is written to until it is complete.
+     */
+    public static Path getPartPath(final Path target) {
 
-                long total = 0;
+        Preconditions.checkNotNull(target);
 
-                emitter.onNext(DownloadProgress.of(total, contentLength));
+        return target.resolveSibling(target.getFileName().toString() + ".part");
+    }
 
-                int count;
-                long lastCount = 0;
-                long lastEmissionCount = 0;
+    // The first byte of a partial response, from a header such as "bytes 100-999/1000"
+    private static Optional<Long> firstByte(final String contentRange) {
+        if (contentRange == null || !contentRange.trim().startsWith("bytes ")) {
+            return Optional.empty();
+        }
+        final String range = contentRange.trim().substring("bytes ".length());
+        final int dash = range.indexOf('-');
+        if (dash < 0) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(Long.parseLong(range.substring(0, dash).trim()));
+        } catch (final NumberFormatException e) {
+            return Optional.empty();
+        }
+    }
 
-                while ((count = input.read(data)) != -1) {
+    // Writes to the file and feeds the same bytes to the hasher
+    private static final class HashingFileOutputStream extends FilterOutputStream {
 
-                    if(emitter.isDisposed()) break;
+        private final Hasher hasher;
 
-                    total += count;
-                    output.write(data, 0, count);
+        private HashingFileOutputStream(final OutputStream out, final Hasher hasher) {
+            super(out);
+            this.hasher = Preconditions.checkNotNull(hasher);
+        }
 
-                    if ((total - lastCount) >= PROGRESS_REPORT_EVERY_N_BYTES) {
-                        lastEmissionCount = total;
-                        emitter.onNext(DownloadProgress.of(total, contentLength));
-                    }
+        @Override
+        public void write(final int b) throws IOException {
+            hasher.putByte((byte) b);
+            out.write(b);
+        }
 
-                    lastCount = total;
-                }
+        @Override
+        public void write(final byte[] b, final int off, final int len) throws IOException {
+            hasher.putBytes(b, off, len);
+            out.write(b, off, len);
+        }
+    }
 
-                output.flush();
-                output.close();
+    private static Observable<DownloadProgress> resume(
+        final URL url, final Path part, final SharedHttpClient client, final AtomicReference<HashCode> hash) {
 
-                input.close();
+        final Observable<DownloadProgress> observable = Observable.create(emitter -> {
 
-                if (emitter.isDisposed()) {
-                    return;
+            try {
+
+                final Path parent = part.getParent();
+
+                if (parent != null && !Files.exists(parent)) {
+                    Files.createDirectories(parent);
                 }
 
-                if (lastEmissionCount != total) {
-                    emitter.onNext(DownloadProgress.of(total, contentLength));
+                final long existing = Files.exists(part) ? Files.size(part) : 0L;
+
+                final Request.Builder request = new Request.Builder().url(url);
+
+                if (existing > 0) {
+                    request.header("Range", "bytes=" + existing + "-");
                 }
 
-                emitter.onComplete();
+                client.execute(request.build(), response -> {
+
+                    // The part file already holds the whole file
+                    if (existing > 0 && response.code() == 416) {
+                        hash.set(EvenMoreFiles.hashFile(part));
+                        emitter.onNext(DownloadProgress.of(existing, existing));
+                        emitter.onComplete();
+                        return null;
+                    }
+
+                    if (!response.isSuccessful()) {
+                        throw new IOException("Unexpected code " + response);
+                    }
+
+                    final boolean resumed = existing > 0 && response.code() == 206;
+
+                    if (resumed && !firstByte(response.header("Content-Range")).equals(Optional.of(existing))) {
+                        Files.deleteIfExists(part);
+                        throw new IOException("Unexpected range " + response.header("Content-Range") + " from " + url);
+                    }
+
+                    final long offset = resumed ? existing : 0L;
+                    final long bodyLength = response.body().contentLength();
+
+                    final Hasher hasher = Hashing.sha256().newHasher();
+
+                    // Only the bytes from the earlier attempt are read back
+                    if (resumed) {
+                        MoreFiles.asByteSource(part).copyTo(Funnels.asOutputStream(hasher));
+                    }
+
+                    // The part file is closed by the copy, whether or not it completes
+                    final OutputStream output = new HashingFileOutputStream(
+                        resumed ?
+                            Files.newOutputStream(part, StandardOpenOption.APPEND) :
+                            Files.newOutputStream(part, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING),
+                        hasher);
+
+                    final boolean completed = transfer(
+                        response.body().byteStream(),
+                        output,
+                        offset,
+                        bodyLength < 0 ? bodyLength : offset + bodyLength,
+                        emitter);
+
+                    if (completed) {
+                        hash.set(hasher.hash());
+                        emitter.onComplete();
+                    }
+
+                    return null;
+                });
             } catch (final Throwable e) {
-                if (emitter.isDisposed()) {
+                if (!emitter.isDisposed()) {
                     emitter.onError(e);
                 }
             }
@@ -137,4 +324,47 @@ public final class DownloadTask {
 
         return observable.subscribeOn(Schedulers.io());
     }
+
+    /**
+     * Downloads into the part file, continuing from the end of whatever an earlier attempt left there.
+     *
+     * The rest of the file is requested with a Range header. If the server answers with the
+     * whole file instead, then the part file is started again. The part file is left in place
+     * once complete, so that the caller can verify it against the resulting SHA-256 hash
+     * before moving it to where it belongs.
+     */
+    public static Process<DownloadProgress, HashCode> resume(final URL url, final Path part, final SharedHttpClient client) {
+
+        Preconditions.checkNotNull(url);
+        Preconditions.checkNotNull(part);
+        Preconditions.checkNotNull(client);
+
+        return Process.of(Observable.defer(() -> {
+            final AtomicReference<HashCode> hash = new AtomicReference<>();
+            return Observable.concat(
+                resume(url, part, client, hash).map(Either::<DownloadProgress, HashCode>left),
+                Observable.fromCallable(() -> Either.<DownloadProgress, HashCode>right(hash.get())));
+        }));
+    }
+
+    public static Process<DownloadProgress, HashCode> resume(final URL url, final Path part) {
+        return resume(url, part, SharedHttpClient.get());
+    }
+
+    /**
+     * Downloads to the target by way of its part file, so that an interrupted download
+     * is resumed next time and the target only ever appears complete.
+     */
+    public static Process<DownloadProgress, HashCode> downloadResumably(final URL url, final Path target) {
+
+        Preconditions.checkNotNull(url);
+        Preconditions.checkNotNull(target);
+
+        final Path part = getPartPath(target);
+
+        return resume(url, part).chain(hash -> Process.of(
+            Completable.fromAction(() -> EvenMoreFiles.moveReplacing(part, target))
+                .subscribeOn(Schedulers.io())
+                .toSingleDefault(hash)));
+    }
 }
@@ -10,10 +10,14 @@ import io.reactivex.Observable;
 import org.eclipse.jgit.api.CreateBranchCommand;
 import org.eclipse.jgit.api.Git;
 import org.eclipse.jgit.api.Status;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.storage.file.FileRepositoryBuilder;
 
 import java.nio.file.FileAlreadyExistsException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Optional;
 
 public final class GitTasks {
 
@@ -67,4 +71,25 @@ public final class GitTasks {
             }
         });
     }
+
+    /**
+     * Reads the commit that HEAD points to in the given working tree,
+     * or nothing if the folder is not a Git repository on the default file-system.
+     */
+    public static Optional<String> readHead(final Path directory) {
+        Preconditions.checkNotNull(directory);
+        try {
+            if (!Files.isDirectory(directory.resolve(".git"))) {
+                return Optional.empty();
+            }
+            try (final Repository repository = new FileRepositoryBuilder()
+                .setGitDir(directory.resolve(".git").toFile())
+                .setMustExist(true)
+                .build()) {
+                return Optional.ofNullable(repository.resolve("HEAD")).map(ObjectId::name);
+            }
+        } catch (final Exception e) {
+            return Optional.empty();
+        }
+    }
 }
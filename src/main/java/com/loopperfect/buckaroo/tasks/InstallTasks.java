@@ -7,7 +7,12 @@ import com.loopperfect.buckaroo.Process;
 import com.loopperfect.buckaroo.events.ReadConfigFileEvent;
 import com.loopperfect.buckaroo.events.ReadProjectFileEvent;
 import com.loopperfect.buckaroo.resolver.AsyncDependencyResolver;
+import com.loopperfect.buckaroo.resolver.RecipePrefetcher;
+import com.loopperfect.buckaroo.resolver.ResolutionPreference;
+import com.loopperfect.buckaroo.resolver.ResolutionStrategy;
+import com.loopperfect.buckaroo.resolver.ResolverEngine;
 import com.loopperfect.buckaroo.serialization.Serializers;
+import com.loopperfect.buckaroo.sources.MemoizingRecipeSource;
 import com.loopperfect.buckaroo.sources.RecipeSources;
 import io.reactivex.Observable;
 import io.reactivex.Single;
@@ -15,8 +20,6 @@ import io.reactivex.Single;
 import java.nio.file.FileSystem;
 import java.nio.file.Path;
 
-import static com.google.common.collect.ImmutableList.toImmutableList;
-
 public final class InstallTasks {
 
     private InstallTasks() {
@@ -29,20 +32,8 @@ public final class InstallTasks {
         Preconditions.checkNotNull(recipeSource);
         Preconditions.checkNotNull(partialDependencies);
 
-        final ImmutableList<Process<Event, Dependency>> resolveProcesses = partialDependencies.stream()
-            .map(x -> RecipeSources.resolve(recipeSource, x))
-            .collect(toImmutableList());
-
-//        final Observable<Event> states = Observable
-//            .merge(resolveProcesses.stream().map(x -> x.states()).collect(toImmutableList()));
-
-//        final Observable<Event> states = Observable.empty(); // TODO: Include the states somehow.
-
-//        final Single<ImmutableList<Dependency>> result = resolveProcesses.stream()
-//            .map(p -> p.result().map(ImmutableList::of))
-//            .reduce(Single.just(ImmutableList.of()), (x, y) -> x.flatMap(a -> y.map(b -> concat(a, b))));
-
-        return Process.merge(resolveProcesses);
+        // The recipes are fetched in one batch
+        return RecipeSources.resolve(recipeSource, partialDependencies);
     }
 
     public static Observable<Event> installDependency(
@@ -62,7 +53,9 @@ public final class InstallTasks {
             (ReadConfigFileEvent readConfigFileEvent) -> {
 
                 final BuckarooConfig config = readConfigFileEvent.config;
-                final RecipeSource recipeSource = RecipeSources.standard(projectDirectory.getFileSystem(), config);
+                final MemoizingRecipeSource recipeSource = RecipeSources.standard(projectDirectory.getFileSystem(), config);
+                final ResolutionStrategy strategy = config.strategy.orElse(ResolutionPreference.NEWEST)
+                    .strategy(projectDirectory.getFileSystem());
 
                 return Process.chain(
 
@@ -78,9 +71,24 @@ public final class InstallTasks {
                             // Use the resolver to fill in partial dependencies
                             (ImmutableList<Dependency> proposedDependencies) -> Process.chain(
 
-                                AsyncDependencyResolver.resolve(
-                                    recipeSource,
-                                    project.dependencies.add(proposedDependencies).entries())
+                                // Keep the existing locks where possible, so only the new dependencies are fetched
+                                Process.<Event, DependencyLocks>of(CommonTasks.readLockFileOrEmpty(lockFilePath))
+                                    .chain(existingLocks -> Process.chain(
+                                        RecipePrefetcher.prefetch(
+                                            recipeSource,
+                                            existingLocks.uncovered(
+                                                project.dependencies.add(proposedDependencies).entries())),
+                                        ignored -> config.resolver.orElse(ResolverEngine.ASYNC)
+                                            .resolver(
+                                                strategy,
+                                                config.resolverConcurrency.orElse(AsyncDependencyResolver.DEFAULT_CONCURRENCY))
+                                            .resolve(
+                                                recipeSource,
+                                                existingLocks,
+                                                project.dependencies.add(proposedDependencies).entries())))
+                                    .chain(resolved -> RecipeSources.pin(recipeSource, resolved))
+                                    .chain(pinned -> Process.<Event, ResolvedDependencies>just(
+                                        pinned, recipeSource.statistics()))
                                     .map(DependencyLocks::of),
 
                                 (DependencyLocks locks) -> Process.chain(
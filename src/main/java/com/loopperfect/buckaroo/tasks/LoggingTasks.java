@@ -7,12 +7,9 @@ import com.loopperfect.buckaroo.Event;
 import com.loopperfect.buckaroo.events.PostRequestEvent;
 import io.reactivex.Observable;
 import io.reactivex.Single;
-import org.apache.http.HttpResponse;
-import org.apache.http.client.HttpClient;
-import org.apache.http.client.methods.HttpPost;
-import org.apache.http.entity.ContentType;
-import org.apache.http.entity.StringEntity;
-import org.apache.http.impl.client.HttpClientBuilder;
+import okhttp3.MediaType;
+import okhttp3.Request;
+import okhttp3.RequestBody;
 
 import java.net.URL;
 import java.nio.file.FileSystem;
@@ -56,16 +53,12 @@ public final class LoggingTasks {
 
         return Single.fromCallable(() -> {
 
-            final HttpClient httpClient = HttpClientBuilder.create().build();
+            final Request request = new Request.Builder()
+                .url(url)
+                .post(RequestBody.create(MediaType.parse("application/json; charset=utf-8"), data))
+                .build();
 
-            final HttpPost request = new HttpPost(url.toURI());
-            final StringEntity params = new StringEntity(data, ContentType.APPLICATION_JSON);
-
-            request.setEntity(params);
-
-            final HttpResponse response = httpClient.execute(request);
-
-            return PostRequestEvent.of();
+            return SharedHttpClient.get().execute(request, response -> PostRequestEvent.of());
         });
     }
 
@@ -0,0 +1,228 @@
+package com.loopperfect.buckaroo.tasks;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.loopperfect.buckaroo.EvenMoreFiles;
+import com.loopperfect.buckaroo.Event;
+import com.loopperfect.buckaroo.Process;
+import com.loopperfect.buckaroo.ZipEntryReader;
+import com.loopperfect.buckaroo.events.FileDownloadedEvent;
+import io.reactivex.Observable;
+import io.reactivex.Single;
+import io.reactivex.schedulers.Schedulers;
+import okhttp3.Request;
+
+import java.io.IOException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.NonWritableChannelException;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.Path;
+import java.util.Optional;
+
+/**
+ * Reads entries of a remote zip archive without downloading all of it.
+ *
+ * HTTP Range requests are used to fetch the central directory and then only the
+ * requested entries. When the server does not support ranges, the whole archive
+ * is downloaded to the fallback path and read from there instead.
+ */
+public final class RemoteZipReader {
+
+    private RemoteZipReader() {
+
+    }
+
+    private static final class RangesNotSupportedException extends IOException {
+
+        private static final long serialVersionUID = 1L;
+
+        private RangesNotSupportedException(final URL url) {
+            super(url + " does not support range requests. ");
+        }
+    }
+
+    /**
+     * A read-only channel over a remote file, where each read is a range request.
+     */
+    private static final class RangeChannel implements SeekableByteChannel {
+
+        private final URL url;
+        private final long size;
+        private long position;
+        private boolean open;
+
+        private RangeChannel(final URL url, final long size) {
+            this.url = Preconditions.checkNotNull(url);
+            this.size = size;
+            this.position = 0;
+            this.open = true;
+        }
+
+        private static RangeChannel open(final URL url) throws IOException {
+
+            final Request request = new Request.Builder()
+                .url(url)
+                .head()
+                .build();
+
+            return SharedHttpClient.get().execute(request, response -> {
+
+                final String acceptRanges = response.header("Accept-Ranges");
+                final String contentLength = response.header("Content-Length");
+
+                // Some servers reject HEAD outright, which is treated the same as no range support
+                if (!response.isSuccessful() ||
+                    acceptRanges == null ||
+                    !acceptRanges.trim().equalsIgnoreCase("bytes") ||
+                    contentLength == null) {
+                    throw new RangesNotSupportedException(url);
+                }
+
+                try {
+                    return new RangeChannel(url, Long.parseLong(contentLength.trim()));
+                } catch (final NumberFormatException e) {
+                    throw new RangesNotSupportedException(url);
+                }
+            });
+        }
+
+        @Override
+        public int read(final ByteBuffer dst) throws IOException {
+
+            if (!open) {
+                throw new ClosedChannelException();
+            }
+
+            if (position >= size) {
+                return -1;
+            }
+
+            if (!dst.hasRemaining()) {
+                return 0;
+            }
+
+            final long last = Math.min(size, position + dst.remaining()) - 1;
+
+            final Request request = new Request.Builder()
+                .url(url)
+                .header("Range", "bytes=" + position + "-" + last)
+                .build();
+
+            final int count = SharedHttpClient.get().execute(request, response -> {
+
+                // A server that ignores the range answers with the whole file
+                if (response.code() != 206) {
+                    if (response.isSuccessful()) {
+                        throw new RangesNotSupportedException(url);
+                    }
+                    throw new IOException("Unexpected code " + response);
+                }
+
+                final byte[] bytes = response.body().bytes();
+                final int n = (int) Math.min(bytes.length, last - position + 1);
+
+                dst.put(bytes, 0, n);
+
+                return n;
+            });
+
+            position += count;
+
+            return count;
+        }
+
+        @Override
+        public int write(final ByteBuffer src) throws IOException {
+            throw new NonWritableChannelException();
+        }
+
+        @Override
+        public long position() throws IOException {
+            return position;
+        }
+
+        @Override
+        public SeekableByteChannel position(final long newPosition) throws IOException {
+            Preconditions.checkArgument(newPosition >= 0);
+            position = newPosition;
+            return this;
+        }
+
+        @Override
+        public long size() throws IOException {
+            return size;
+        }
+
+        @Override
+        public SeekableByteChannel truncate(final long size) throws IOException {
+            throw new NonWritableChannelException();
+        }
+
+        @Override
+        public boolean isOpen() {
+            return open;
+        }
+
+        @Override
+        public void close() throws IOException {
+            open = false;
+        }
+    }
+
+    // Nothing when the server cannot serve ranges, so that the caller can fall back
+    private static Optional<ImmutableMap<String, byte[]>> readUsingRanges(
+        final URL url, final ImmutableSet<String> names) throws IOException {
+
+        try (final RangeChannel channel = RangeChannel.open(url)) {
+            return Optional.of(ZipEntryReader.read(channel, names));
+        } catch (final RangesNotSupportedException e) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Reads the entries with the given names using range requests alone, skipping any that
+     * the archive does not have. Nothing is returned if the server cannot serve ranges,
+     * so that the caller can find the entries some other way.
+     */
+    public static Process<Event, Optional<ImmutableMap<String, byte[]>>> readEntriesUsingRanges(
+        final URL url, final ImmutableSet<String> names) {
+
+        Preconditions.checkNotNull(url);
+        Preconditions.checkNotNull(names);
+
+        return Process.of(Single.fromCallable(() -> readUsingRanges(url, names)).subscribeOn(Schedulers.io()));
+    }
+
+    /**
+     * Reads the entries with the given names, skipping any that the archive does not have.
+     * The fallback path is where the archive is downloaded to if ranges are not supported.
+     */
+    public static Process<Event, ImmutableMap<String, byte[]>> readEntries(
+        final URL url, final ImmutableSet<String> names, final Path fallbackPath) {
+
+        Preconditions.checkNotNull(url);
+        Preconditions.checkNotNull(names);
+        Preconditions.checkNotNull(fallbackPath);
+
+        return readEntriesUsingRanges(url, names).chain(entries -> entries.isPresent() ?
+            Process.just(entries.get()) :
+            Process.of(
+                DownloadTask.download(url, fallbackPath, true)
+                    .cast(Event.class)
+                    .concatWith(Observable.just(FileDownloadedEvent.of(url, fallbackPath))),
+                Single.fromCallable(() -> EvenMoreFiles.readZipEntries(fallbackPath, names))
+                    .subscribeOn(Schedulers.io())));
+    }
+
+    public static Process<Event, Optional<byte[]>> readEntry(final URL url, final String name, final Path fallbackPath) {
+
+        Preconditions.checkNotNull(name);
+
+        return readEntries(url, ImmutableSet.of(name), fallbackPath)
+            .map(entries -> Optional.ofNullable(entries.get(name)));
+    }
+}
@@ -1,18 +1,29 @@
 package com.loopperfect.buckaroo.tasks;
 
 import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.hash.HashCode;
 import com.loopperfect.buckaroo.*;
 import com.loopperfect.buckaroo.Process;
 import com.loopperfect.buckaroo.events.ReadConfigFileEvent;
 import com.loopperfect.buckaroo.events.ReadProjectFileEvent;
 import com.loopperfect.buckaroo.resolver.AsyncDependencyResolver;
+import com.loopperfect.buckaroo.resolver.DependencyResolver;
+import com.loopperfect.buckaroo.resolver.RecipePrefetcher;
+import com.loopperfect.buckaroo.resolver.ResolutionPreference;
+import com.loopperfect.buckaroo.resolver.ResolverEngine;
 import com.loopperfect.buckaroo.resolver.ResolvedDependenciesEvent;
 import com.loopperfect.buckaroo.serialization.Serializers;
+import com.loopperfect.buckaroo.sources.MemoizingRecipeSource;
 import com.loopperfect.buckaroo.sources.RecipeSources;
 import io.reactivex.Observable;
+import io.reactivex.Single;
+import io.reactivex.schedulers.Schedulers;
 
 import java.nio.file.FileSystem;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Optional;
 
 public final class ResolveTasks {
 
@@ -20,11 +31,112 @@ public final class ResolveTasks {
 
     }
 
-    public static Observable<Event> resolveDependencies(final Path projectDirectory) {
+    private static Process<Event, DependencyLocks> resolve(
+        final FileSystem fs,
+        final BuckarooConfig config,
+        final Project project,
+        final DependencyLocks existingLocks,
+        final boolean refresh) {
+
+        Preconditions.checkNotNull(fs);
+        Preconditions.checkNotNull(config);
+        Preconditions.checkNotNull(project);
+        Preconditions.checkNotNull(existingLocks);
+
+        final MemoizingRecipeSource recipeSource = RecipeSources.standard(fs, config, refresh);
+        final DependencyResolver resolver = config.resolver.orElse(ResolverEngine.ASYNC)
+            .resolver(
+                config.strategy.orElse(ResolutionPreference.NEWEST).strategy(fs),
+                config.resolverConcurrency.orElse(AsyncDependencyResolver.DEFAULT_CONCURRENCY));
+
+        return Process.chain(
+            RecipePrefetcher.prefetch(
+                recipeSource, existingLocks.uncovered(project.dependencies.entries())),
+            ignored -> resolver.resolve(recipeSource, existingLocks, project.dependencies.entries()))
+            .chain(resolved -> RecipeSources.pin(recipeSource, resolved))
+            .chain(pinned -> Process.<Event, ResolvedDependencies>just(pinned, recipeSource.statistics()))
+            .map(ResolvedDependenciesEvent::of)
+            .map(i -> DependencyLocks.of(i.dependencies));
+    }
+
+    private static Single<Optional<DependencyLocks>> readCachedResolution(final Path path) {
+
+        Preconditions.checkNotNull(path);
+
+        return Single.fromCallable(() -> Files.exists(path))
+            .flatMap(exists -> exists ?
+                CommonTasks.readLockFile(path).map(Optional::of) :
+                Single.just(Optional.<DependencyLocks>empty()))
+            .onErrorReturnItem(Optional.empty());
+    }
+
+    private static Process<Event, DependencyLocks> resolveUsingCache(
+        final FileSystem fs,
+        final BuckarooConfig config,
+        final Project project,
+        final DependencyLocks existingLocks,
+        final boolean refresh) {
+
+        Preconditions.checkNotNull(fs);
+        Preconditions.checkNotNull(config);
+        Preconditions.checkNotNull(project);
+        Preconditions.checkNotNull(existingLocks);
+
+        final ResolutionPreference strategy = config.strategy.orElse(ResolutionPreference.NEWEST);
+
+        // The cache-aware strategy depends on what has been downloaded, which the key does not capture
+        if (strategy == ResolutionPreference.CACHED) {
+            return resolve(fs, config, project, existingLocks, refresh);
+        }
+
+        final ImmutableList<Path> cookbooks = config.cookbooks.stream()
+            .map(x -> RecipeSources.getCookbookPath(fs, x))
+            .collect(ImmutableList.toImmutableList());
+
+        // The strategy changes which resolution is picked, so it is part of the key
+        final String resolver = config.resolver.orElse(ResolverEngine.ASYNC).encode() + "/" + strategy.encode();
+
+        final Single<Optional<HashCode>> key = Single.fromCallable(() ->
+            CacheTasks.getResolutionKey(project.dependencies, existingLocks, cookbooks, resolver))
+            .subscribeOn(Schedulers.io());
+
+        return Process.<Event, Optional<HashCode>>of(key).chain(k -> {
+
+            if (!k.isPresent()) {
+                return resolve(fs, config, project, existingLocks, refresh);
+            }
+
+            final Path cachePath = CacheTasks.getResolutionCachePath(fs, k.get());
+
+            // A refresh may find new tags, so the cached resolution is replaced rather than read
+            final Single<Optional<DependencyLocks>> existing = refresh ?
+                Single.just(Optional.empty()) :
+                readCachedResolution(cachePath);
+
+            return Process.<Event, Optional<DependencyLocks>>of(existing).chain(cached -> {
+
+                if (cached.isPresent()) {
+                    return Process.just(cached.get(), Notification.of("Using a cached resolution. "));
+                }
+
+                // Cookbook recipes can depend on GitHub recipes, which only the resolution shows.
+                // A failure to write the cache should not fail the resolution.
+                return resolve(fs, config, project, existingLocks, refresh).chain(locks -> !CacheTasks.isCacheable(locks) ?
+                    Process.just(locks) :
+                    Process.of(
+                        CommonTasks.writeFile(Serializers.serialize(locks), cachePath, true)
+                            .map(ignored -> locks)
+                            .onErrorReturnItem(locks)));
+            });
+        });
+    }
+
+    public static Observable<Event> resolveDependencies(final Path projectDirectory, final boolean refresh) {
 
         Preconditions.checkNotNull(projectDirectory);
 
         final Path projectFilePath = projectDirectory.resolve("buckaroo.json").toAbsolutePath();
+        final Path lockFilePath = projectDirectory.resolve("buckaroo.lock.json").toAbsolutePath();
 
         final Process<Event, ReadConfigFileEvent> p = Process.of(
             Observable.just((Event)Notification.of("Resolving dependencies... ")),
@@ -34,15 +146,15 @@ public final class ResolveTasks {
 
             final Process<Event, Project> p2 = CommonTasks.readProjectFile(projectFilePath);
 
-            return p2.chain((Project project) -> {
-                final RecipeSource recipeSource = RecipeSources.standard(projectDirectory.getFileSystem(), config.config);
+            // Start from the existing lock file so that only changed requirements are re-resolved,
+            // unless this is a refresh, which should be free to pick up newer versions
+            final Single<DependencyLocks> seed = refresh ?
+                Single.just(DependencyLocks.of()) :
+                CommonTasks.readLockFileOrEmpty(lockFilePath);
 
-                return AsyncDependencyResolver.resolve(
-                    recipeSource, project.dependencies.entries()).map(ResolvedDependenciesEvent::of);
-
-            }).map(i -> DependencyLocks.of(i.dependencies)).chain((DependencyLocks dependencyLocks) -> {
-
-                final Path lockFilePath = projectDirectory.resolve("buckaroo.lock.json").toAbsolutePath();
+            return p2.chain((Project project) -> Process.<Event, DependencyLocks>of(seed).chain(existingLocks ->
+                resolveUsingCache(projectDirectory.getFileSystem(), config.config, project, existingLocks, refresh))
+            ).chain((DependencyLocks dependencyLocks) -> {
 
                 return Process.usingLastAsResult(
                     CommonTasks.writeFile(Serializers.serialize(dependencyLocks), lockFilePath, true)
@@ -54,6 +166,15 @@ public final class ResolveTasks {
         }).states();
     }
 
+    public static Observable<Event> resolveDependencies(final Path projectDirectory) {
+        return resolveDependencies(projectDirectory, false);
+    }
+
+    public static Observable<Event> resolveDependenciesInWorkingDirectory(final FileSystem fs, final boolean refresh) {
+        Preconditions.checkNotNull(fs);
+        return resolveDependencies(fs.getPath(""), refresh);
+    }
+
     public static Observable<Event> resolveDependenciesInWorkingDirectory(final FileSystem fs) {
         Preconditions.checkNotNull(fs);
         return resolveDependencies(fs.getPath(""));
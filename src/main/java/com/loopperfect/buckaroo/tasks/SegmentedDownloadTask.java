@@ -0,0 +1,338 @@
+package com.loopperfect.buckaroo.tasks;
+
+import com.google.common.base.Preconditions;
+import com.google.common.hash.HashCode;
+import com.loopperfect.buckaroo.EvenMoreFiles;
+import com.loopperfect.buckaroo.Process;
+import io.reactivex.Completable;
+import io.reactivex.Observable;
+import io.reactivex.Single;
+import io.reactivex.schedulers.Schedulers;
+import okhttp3.Request;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.Collectors;
+
+/**
+ * Downloads large files as several ranges at once.
+ *
+ * A HEAD request finds the size of the file. If the server supports ranges and the file
+ * is larger than the threshold, then the target is preallocated and each segment is
+ * written straight into its place with positional writes. Otherwise, the file is
+ * downloaded in one stream as usual.
+ *
+ * How far each segment has got is recorded in a state file next to the target, so that
+ * an interrupted download continues every unfinished segment where it stopped.
+ * The state file is removed once every segment is complete.
+ */
+public final class SegmentedDownloadTask {
+
+    public static final long DEFAULT_THRESHOLD = 8 * 1024 * 1024;
+    public static final int DEFAULT_SEGMENTS = 4;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    // How often the state file is written, as a balance between writes and bytes lost to an interruption
+    private static final long SAVE_EVERY_N_BYTES = 1024 * 1024;
+
+    private SegmentedDownloadTask() {
+
+    }
+
+    // The size of the file, if the server can serve parts of it
+    private static Optional<Long> rangedLength(final URL url, final SharedHttpClient client) throws IOException {
+
+        final Request request = new Request.Builder()
+            .url(url)
+            .head()
+            .build();
+
+        return client.execute(request, response -> {
+
+            final String acceptRanges = response.header("Accept-Ranges");
+            final String contentLength = response.header("Content-Length");
+
+            if (!response.isSuccessful() ||
+                acceptRanges == null ||
+                !acceptRanges.trim().equalsIgnoreCase("bytes") ||
+                contentLength == null) {
+                return Optional.empty();
+            }
+
+            try {
+                return Optional.of(Long.parseLong(contentLength.trim()));
+            } catch (final NumberFormatException e) {
+                return Optional.empty();
+            }
+        });
+    }
+
+    /**
+     * The file that records the progress of a segmented download into the target.
+     */
+    public static Path getStatePath(final Path target) {
+
+        Preconditions.checkNotNull(target);
+
+        return target.resolveSibling(target.getFileName().toString() + ".segments");
+    }
+
+    /**
+     * True if a segmented download into the target was interrupted, and can be continued by download.
+     */
+    public static boolean isInterrupted(final Path target) {
+
+        Preconditions.checkNotNull(target);
+
+        return Files.exists(target) && Files.exists(getStatePath(target));
+    }
+
+    /**
+     * The bounds of each segment and the position that each has been written up to.
+     *
+     * The state is written as the length of the file on the first line,
+     * followed by a line of "first last next" for each segment.
+     */
+    private static final class Segments {
+
+        private final long length;
+        private final long[] firsts;
+        private final long[] lasts;
+        private final AtomicLongArray nexts;
+        private long unsaved;
+
+        private Segments(final long length, final long[] firsts, final long[] lasts, final long[] nexts) {
+            Preconditions.checkArgument(firsts.length == lasts.length && lasts.length == nexts.length);
+            this.length = length;
+            this.firsts = firsts;
+            this.lasts = lasts;
+            this.nexts = new AtomicLongArray(nexts);
+            this.unsaved = 0L;
+        }
+
+        private int size() {
+            return firsts.length;
+        }
+
+        private long written() {
+            long total = 0L;
+            for (int i = 0; i < size(); i++) {
+                total += nexts.get(i) - firsts[i];
+            }
+            return total;
+        }
+
+        private synchronized void save(final Path path) throws IOException {
+            final StringBuilder builder = new StringBuilder().append(length).append('\n');
+            for (int i = 0; i < size(); i++) {
+                builder.append(firsts[i]).append(' ').append(lasts[i]).append(' ').append(nexts.get(i)).append('\n');
+            }
+            EvenMoreFiles.replaceFile(path, builder.toString());
+            unsaved = 0L;
+        }
+
+        // Records that the segment has been written further, saving every so often
+        private void advance(final Path path, final int segment, final long count) throws IOException {
+            nexts.addAndGet(segment, count);
+            final boolean due;
+            synchronized (this) {
+                unsaved += count;
+                due = unsaved >= SAVE_EVERY_N_BYTES;
+            }
+            if (due) {
+                save(path);
+            }
+        }
+
+        private static Segments split(final long length, final int segments) {
+            final long[] firsts = new long[segments];
+            final long[] lasts = new long[segments];
+            for (int i = 0; i < segments; i++) {
+                firsts[i] = length * i / segments;
+                lasts[i] = length * (i + 1) / segments - 1;
+            }
+            return new Segments(length, firsts, lasts, firsts.clone());
+        }
+
+        // Nothing if the state is unreadable or is for a file of a different length
+        private static Optional<Segments> load(final Path path, final long length) {
+            try {
+                final List<String> lines = Files.readAllLines(path).stream()
+                    .filter(x -> !x.trim().isEmpty())
+                    .collect(Collectors.toList());
+                if (lines.size() < 2 || Long.parseLong(lines.get(0).trim()) != length) {
+                    return Optional.empty();
+                }
+                final int n = lines.size() - 1;
+                final long[] firsts = new long[n];
+                final long[] lasts = new long[n];
+                final long[] nexts = new long[n];
+                for (int i = 0; i < n; i++) {
+                    final String[] parts = lines.get(i + 1).trim().split(" ");
+                    firsts[i] = Long.parseLong(parts[0]);
+                    lasts[i] = Long.parseLong(parts[1]);
+                    nexts[i] = Long.parseLong(parts[2]);
+                    if (firsts[i] < 0 || lasts[i] >= length || nexts[i] < firsts[i] || nexts[i] > lasts[i] + 1) {
+                        return Optional.empty();
+                    }
+                }
+                return Optional.of(new Segments(length, firsts, lasts, nexts));
+            } catch (final IOException | RuntimeException e) {
+                return Optional.empty();
+            }
+        }
+    }
+
+    // Writes the bytes from first to last inclusive, emitting the number of bytes written as they arrive
+    private static Observable<Long> segment(
+        final URL url, final FileChannel channel, final long first, final long last, final SharedHttpClient client) {
+
+        final Observable<Long> observable = Observable.create(emitter -> {
+
+            final Request request = new Request.Builder()
+                .url(url)
+                .header("Range", "bytes=" + first + "-" + last)
+                .build();
+
+            try {
+
+                client.execute(request, response -> {
+
+                    final String contentRange = response.header("Content-Range");
+
+                    if (response.code() != 206 || contentRange == null || !contentRange.trim().startsWith("bytes " + first + "-")) {
+                        throw new IOException("Expected bytes " + first + "-" + last + " of " + url + " but got " + response);
+                    }
+
+                    final InputStream input = response.body().byteStream();
+                    final byte[] data = new byte[BUFFER_SIZE];
+
+                    long position = first;
+                    int count;
+
+                    while (position <= last && (count = input.read(data, 0, (int) Math.min(data.length, last - position + 1))) != -1) {
+
+                        if (emitter.isDisposed()) {
+                            return null;
+                        }
+
+                        final ByteBuffer buffer = ByteBuffer.wrap(data, 0, count);
+
+                        while (buffer.hasRemaining()) {
+                            position += channel.write(buffer, position);
+                        }
+
+                        emitter.onNext((long) count);
+                    }
+
+                    if (position != last + 1) {
+                        throw new IOException("Expected bytes " + first + "-" + last + " of " + url + " but the response ended at " + position);
+                    }
+
+                    emitter.onComplete();
+
+                    return null;
+                });
+            } catch (final Throwable e) {
+                if (!emitter.isDisposed()) {
+                    emitter.onError(e);
+                }
+            }
+        });
+
+        return observable.subscribeOn(Schedulers.io());
+    }
+
+    private static Process<DownloadProgress, HashCode> segmented(
+        final URL url, final Path target, final long length, final int segments, final SharedHttpClient client) {
+
+        final Path statePath = getStatePath(target);
+
+        final Observable<DownloadProgress> progress = Observable.defer(() -> {
+
+            // Continue an interrupted download of the same file, if there is one
+            final Optional<Segments> existing = Files.exists(target) ?
+                Segments.load(statePath, length) :
+                Optional.empty();
+
+            final Segments state = existing.orElseGet(() -> Segments.split(length, segments));
+
+            return Observable.using(
+                () -> {
+                    if (existing.isPresent()) {
+                        return FileChannel.open(target, StandardOpenOption.WRITE);
+                    }
+                    final FileChannel channel = FileChannel.open(
+                        target, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+                    // Preallocate, so that every segment writes inside the file
+                    channel.write(ByteBuffer.wrap(new byte[1]), length - 1);
+                    state.save(statePath);
+                    return channel;
+                },
+                channel -> Observable.range(0, state.size())
+                    .filter(i -> state.nexts.get(i) <= state.lasts[i])
+                    .flatMap(i -> segment(url, channel, state.nexts.get(i), state.lasts[i], client)
+                        .doOnNext(count -> state.advance(statePath, i, count))
+                        .doOnComplete(() -> state.save(statePath)))
+                    .scan(state.written(), Long::sum)
+                    .map(total -> DownloadProgress.of(total, length))
+                    .concatWith(Completable.fromAction(() -> Files.deleteIfExists(statePath)).toObservable()),
+                FileChannel::close);
+        });
+
+        // The segments arrive out of order, so the file has to be read back to hash it
+        return Process.of(
+            progress,
+            Single.fromCallable(() -> EvenMoreFiles.hashFile(target)).subscribeOn(Schedulers.io()));
+    }
+
+    /**
+     * Downloads the file to the target, in segments if it is larger than the threshold,
+     * resulting in the SHA-256 hash of the file. An interrupted segmented download into the
+     * target is continued, but anything else already at the target is overwritten.
+     */
+    public static Process<DownloadProgress, HashCode> download(
+        final URL url, final Path target, final SharedHttpClient client, final long threshold, final int segments) {
+
+        Preconditions.checkNotNull(url);
+        Preconditions.checkNotNull(target);
+        Preconditions.checkNotNull(client);
+        Preconditions.checkArgument(threshold >= 0);
+        Preconditions.checkArgument(segments > 0);
+
+        final Process<DownloadProgress, Optional<Long>> head = Process.of(Single.fromCallable(() -> {
+
+            final Path parent = target.getParent();
+
+            if (parent != null && !Files.exists(parent)) {
+                Files.createDirectories(parent);
+            }
+
+            return rangedLength(url, client);
+        }).subscribeOn(Schedulers.io()));
+
+        return head.chain(length -> {
+            if (length.isPresent() && length.get() > threshold && length.get() >= segments) {
+                return segmented(url, target, length.get(), segments, client);
+            }
+            return Process.chain(
+                Process.of(Completable.fromAction(() -> Files.deleteIfExists(getStatePath(target)))
+                    .toSingleDefault(target)),
+                ignored -> DownloadTask.downloadAndHash(url, target, true, client));
+        });
+    }
+
+    public static Process<DownloadProgress, HashCode> download(final URL url, final Path target) {
+        return download(url, target, SharedHttpClient.get(), DEFAULT_THRESHOLD, DEFAULT_SEGMENTS);
+    }
+}
@@ -0,0 +1,167 @@
+package com.loopperfect.buckaroo.tasks;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import okhttp3.ConnectionPool;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The HTTP client that every download goes through.
+ *
+ * A single client is shared by the process, so connections are pooled and kept alive
+ * between downloads instead of paying for a new TCP and TLS handshake each time.
+ * HTTP/2 is offered, so requests to the same host are multiplexed where the platform
+ * supports it. The number of requests in flight to each host is limited.
+ */
+public final class SharedHttpClient {
+
+    // Browsers settle on about this many connections per host
+    public static final int DEFAULT_MAX_REQUESTS_PER_HOST = 6;
+
+    private static final Object LOCK = new Object();
+
+    private static volatile SharedHttpClient shared = null;
+
+    /**
+     * Reads the response. The body is closed once the handler returns.
+     */
+    @FunctionalInterface
+    public interface ResponseHandler<T> {
+
+        T handle(final Response response) throws IOException;
+    }
+
+    /**
+     * The requests in flight to a host. Waiting requests wait on this.
+     */
+    private static final class Host {
+
+        private int inFlight = 0;
+    }
+
+    private final OkHttpClient client;
+    private final ConcurrentMap<String, Host> hosts;
+    private volatile int maxRequestsPerHost;
+
+    private SharedHttpClient(final OkHttpClient client, final int maxRequestsPerHost) {
+
+        Preconditions.checkNotNull(client);
+        Preconditions.checkArgument(maxRequestsPerHost > 0);
+
+        this.client = client;
+        this.hosts = new ConcurrentHashMap<>();
+        this.maxRequestsPerHost = maxRequestsPerHost;
+    }
+
+    private Host acquire(final String name) throws InterruptedIOException {
+
+        final Host host = hosts.computeIfAbsent(name, ignored -> new Host());
+
+        synchronized (host) {
+            try {
+                while (host.inFlight >= maxRequestsPerHost) {
+                    host.wait();
+                }
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted whilst waiting for a connection to " + name);
+            }
+            host.inFlight++;
+        }
+
+        return host;
+    }
+
+    private static void release(final Host host) {
+        synchronized (host) {
+            host.inFlight--;
+            host.notifyAll();
+        }
+    }
+
+    /**
+     * Sends the request once fewer than the maximum number of requests
+     * are in flight to its host, and reads the response with the handler.
+     */
+    public <T> T execute(final Request request, final ResponseHandler<T> handler) throws IOException {
+
+        Preconditions.checkNotNull(request);
+        Preconditions.checkNotNull(handler);
+
+        final Host host = acquire(request.url().host());
+
+        try {
+            final Response response = client.newCall(request).execute();
+            try {
+                return handler.handle(response);
+            } finally {
+                response.body().close();
+            }
+        } finally {
+            release(host);
+        }
+    }
+
+    public int maxRequestsPerHost() {
+        return maxRequestsPerHost;
+    }
+
+    /**
+     * Changes the limit. Requests in flight are unaffected, and waiting requests
+     * go ahead as soon as their host is under the new limit.
+     */
+    public void setMaxRequestsPerHost(final int maxRequestsPerHost) {
+
+        Preconditions.checkArgument(maxRequestsPerHost > 0);
+
+        this.maxRequestsPerHost = maxRequestsPerHost;
+
+        for (final Host host : hosts.values()) {
+            synchronized (host) {
+                host.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * The settings that the shared client is built with, as a starting point for other clients.
+     */
+    public static OkHttpClient.Builder builder() {
+        return new OkHttpClient.Builder()
+            .connectionPool(new ConnectionPool(16, 5, TimeUnit.MINUTES))
+            .protocols(ImmutableList.of(Protocol.HTTP_2, Protocol.HTTP_1_1))
+            .followRedirects(true)
+            .followSslRedirects(true);
+    }
+
+    public static SharedHttpClient of(final OkHttpClient client, final int maxRequestsPerHost) {
+        return new SharedHttpClient(client, maxRequestsPerHost);
+    }
+
+    public static SharedHttpClient get() {
+        if (shared == null) {
+            synchronized (LOCK) {
+                if (shared == null) {
+                    shared = new SharedHttpClient(builder().build(), DEFAULT_MAX_REQUESTS_PER_HOST);
+                }
+            }
+        }
+        return shared;
+    }
+
+    /**
+     * Changes the limit of the shared client, which keeps its connection pool and the requests in flight.
+     */
+    public static void configure(final int maxRequestsPerHost) {
+        get().setMaxRequestsPerHost(maxRequestsPerHost);
+    }
+}
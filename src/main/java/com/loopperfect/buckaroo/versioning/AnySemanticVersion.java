@@ -15,6 +15,11 @@ public final class AnySemanticVersion implements SemanticVersionRequirement {
         return true;
     }
 
+    @Override
+    public SemanticVersionIntervalSet toIntervalSet() {
+        return SemanticVersionIntervalSet.all();
+    }
+
     @Override
     public String encode() {
         return "*";
@@ -30,6 +30,13 @@ public final class BoundedSemanticVersion implements SemanticVersionRequirement
         return false;
     }
 
+    @Override
+    public SemanticVersionIntervalSet toIntervalSet() {
+        return SemanticVersionIntervalSet.of(direction == AboveOrBelow.ABOVE ?
+            SemanticVersionInterval.atLeast(bound) :
+            SemanticVersionInterval.atMost(bound));
+    }
+
     @Override
     public String encode() {
         switch (direction) {
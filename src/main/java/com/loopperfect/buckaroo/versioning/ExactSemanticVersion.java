@@ -2,6 +2,7 @@ package com.loopperfect.buckaroo.versioning;
 
 import com.google.common.base.MoreObjects;
 import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.loopperfect.buckaroo.SemanticVersion;
 import com.loopperfect.buckaroo.SemanticVersionRequirement;
@@ -25,6 +26,13 @@ public final class ExactSemanticVersion implements SemanticVersionRequirement {
         return semanticVersions;
     }
 
+    @Override
+    public SemanticVersionIntervalSet toIntervalSet() {
+        return SemanticVersionIntervalSet.of(semanticVersions.stream()
+            .map(SemanticVersionInterval::of)
+            .collect(ImmutableList.toImmutableList()));
+    }
+
     @Override
     public String encode() {
         if (semanticVersions.size() == 1) {
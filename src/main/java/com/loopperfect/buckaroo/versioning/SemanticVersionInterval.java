@@ -0,0 +1,124 @@
+package com.loopperfect.buckaroo.versioning;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.base.Preconditions;
+import com.loopperfect.buckaroo.SemanticVersion;
+
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * A closed interval of semantic versions, [lower, upper].
+ */
+public final class SemanticVersionInterval {
+
+    public static final SemanticVersion MINIMUM = SemanticVersion.of(0, 0, 0);
+    public static final SemanticVersion MAXIMUM = SemanticVersion.of(Integer.MAX_VALUE, Integer.MAX_VALUE, Integer.MAX_VALUE);
+
+    public final SemanticVersion lower;
+    public final SemanticVersion upper;
+
+    private SemanticVersionInterval(final SemanticVersion lower, final SemanticVersion upper) {
+
+        this.lower = Preconditions.checkNotNull(lower);
+        this.upper = Preconditions.checkNotNull(upper);
+
+        Preconditions.checkArgument(lower.compareTo(upper) <= 0);
+    }
+
+    public boolean contains(final SemanticVersion version) {
+        Preconditions.checkNotNull(version);
+        return lower.compareTo(version) <= 0 && upper.compareTo(version) >= 0;
+    }
+
+    public Optional<SemanticVersionInterval> intersect(final SemanticVersionInterval other) {
+        Preconditions.checkNotNull(other);
+        final SemanticVersion nextLower = lower.compareTo(other.lower) >= 0 ? lower : other.lower;
+        final SemanticVersion nextUpper = upper.compareTo(other.upper) <= 0 ? upper : other.upper;
+        return nextLower.compareTo(nextUpper) <= 0 ?
+            Optional.of(new SemanticVersionInterval(nextLower, nextUpper)) :
+            Optional.empty();
+    }
+
+    /**
+     * True if there is no version between the end of this interval and the start of the other,
+     * so that the two can be written as a single interval.
+     */
+    public boolean touches(final SemanticVersionInterval other) {
+        Preconditions.checkNotNull(other);
+        return lower.compareTo(other.lower) <= 0 ?
+            successor(upper).map(x -> x.compareTo(other.lower) >= 0).orElse(true) :
+            other.touches(this);
+    }
+
+    public SemanticVersionInterval span(final SemanticVersionInterval other) {
+        Preconditions.checkNotNull(other);
+        return new SemanticVersionInterval(
+            lower.compareTo(other.lower) <= 0 ? lower : other.lower,
+            upper.compareTo(other.upper) >= 0 ? upper : other.upper);
+    }
+
+    public static Optional<SemanticVersion> successor(final SemanticVersion version) {
+        Preconditions.checkNotNull(version);
+        if (version.patch < Integer.MAX_VALUE) {
+            return Optional.of(SemanticVersion.of(version.major, version.minor, version.patch + 1));
+        }
+        if (version.minor < Integer.MAX_VALUE) {
+            return Optional.of(SemanticVersion.of(version.major, version.minor + 1, 0));
+        }
+        if (version.major < Integer.MAX_VALUE) {
+            return Optional.of(SemanticVersion.of(version.major + 1, 0, 0));
+        }
+        return Optional.empty();
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+
+        if (this == obj) {
+            return true;
+        }
+
+        if (obj == null || !(obj instanceof SemanticVersionInterval)) {
+            return false;
+        }
+
+        final SemanticVersionInterval other = (SemanticVersionInterval) obj;
+
+        return Objects.equals(lower, other.lower) &&
+            Objects.equals(upper, other.upper);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(lower, upper);
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+            .add("lower", lower)
+            .add("upper", upper)
+            .toString();
+    }
+
+    public static SemanticVersionInterval of(final SemanticVersion lower, final SemanticVersion upper) {
+        return new SemanticVersionInterval(lower, upper);
+    }
+
+    public static SemanticVersionInterval of(final SemanticVersion version) {
+        return new SemanticVersionInterval(version, version);
+    }
+
+    public static SemanticVersionInterval atLeast(final SemanticVersion lower) {
+        return new SemanticVersionInterval(lower, MAXIMUM);
+    }
+
+    public static SemanticVersionInterval atMost(final SemanticVersion upper) {
+        return new SemanticVersionInterval(MINIMUM, upper);
+    }
+
+    public static SemanticVersionInterval all() {
+        return new SemanticVersionInterval(MINIMUM, MAXIMUM);
+    }
+}
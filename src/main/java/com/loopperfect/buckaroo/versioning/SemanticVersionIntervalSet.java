@@ -0,0 +1,159 @@
+package com.loopperfect.buckaroo.versioning;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.loopperfect.buckaroo.SemanticVersion;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * A set of semantic versions, stored as a sorted list of disjoint intervals.
+ *
+ * Overlapping and adjacent intervals are always merged, so two sets
+ * containing the same versions are equal, and the set is empty
+ * exactly when it has no intervals.
+ */
+public final class SemanticVersionIntervalSet {
+
+    private static final SemanticVersionIntervalSet EMPTY = new SemanticVersionIntervalSet(ImmutableList.of());
+    private static final SemanticVersionIntervalSet ALL = new SemanticVersionIntervalSet(
+        ImmutableList.of(SemanticVersionInterval.all()));
+
+    public final ImmutableList<SemanticVersionInterval> intervals;
+
+    private SemanticVersionIntervalSet(final ImmutableList<SemanticVersionInterval> intervals) {
+        this.intervals = Preconditions.checkNotNull(intervals);
+    }
+
+    public boolean isEmpty() {
+        return intervals.isEmpty();
+    }
+
+    public boolean contains(final SemanticVersion version) {
+        Preconditions.checkNotNull(version);
+        int low = 0;
+        int high = intervals.size() - 1;
+        while (low <= high) {
+            final int middle = (low + high) >>> 1;
+            final SemanticVersionInterval interval = intervals.get(middle);
+            if (interval.upper.compareTo(version) < 0) {
+                low = middle + 1;
+            } else if (interval.lower.compareTo(version) > 0) {
+                high = middle - 1;
+            } else {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public SemanticVersionIntervalSet intersect(final SemanticVersionIntervalSet other) {
+        Preconditions.checkNotNull(other);
+        if (this == ALL || other.isEmpty()) {
+            return other;
+        }
+        if (other == ALL || isEmpty()) {
+            return this;
+        }
+        final ImmutableList.Builder<SemanticVersionInterval> builder = ImmutableList.builder();
+        int i = 0;
+        int j = 0;
+        while (i < intervals.size() && j < other.intervals.size()) {
+            final SemanticVersionInterval a = intervals.get(i);
+            final SemanticVersionInterval b = other.intervals.get(j);
+            a.intersect(b).ifPresent(builder::add);
+            // Advance whichever interval ends first, since it cannot overlap anything further on
+            if (a.upper.compareTo(b.upper) < 0) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        // Both inputs are normalized, so the pieces are already disjoint and non-adjacent
+        return new SemanticVersionIntervalSet(builder.build());
+    }
+
+    public SemanticVersionIntervalSet union(final SemanticVersionIntervalSet other) {
+        Preconditions.checkNotNull(other);
+        if (isEmpty()) {
+            return other;
+        }
+        if (other.isEmpty()) {
+            return this;
+        }
+        return of(ImmutableList.<SemanticVersionInterval>builder()
+            .addAll(intervals)
+            .addAll(other.intervals)
+            .build());
+    }
+
+    public Optional<SemanticVersion> minimum() {
+        return intervals.isEmpty() ? Optional.empty() : Optional.of(intervals.get(0).lower);
+    }
+
+    public Optional<SemanticVersion> maximum() {
+        return intervals.isEmpty() ? Optional.empty() : Optional.of(intervals.get(intervals.size() - 1).upper);
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+
+        if (this == obj) {
+            return true;
+        }
+
+        if (obj == null || !(obj instanceof SemanticVersionIntervalSet)) {
+            return false;
+        }
+
+        final SemanticVersionIntervalSet other = (SemanticVersionIntervalSet) obj;
+
+        return Objects.equals(intervals, other.intervals);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(intervals);
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+            .add("intervals", intervals)
+            .toString();
+    }
+
+    public static SemanticVersionIntervalSet of(final Iterable<SemanticVersionInterval> intervals) {
+        Preconditions.checkNotNull(intervals);
+        final List<SemanticVersionInterval> sorted = new ArrayList<>();
+        intervals.forEach(sorted::add);
+        sorted.sort(Comparator.comparing((SemanticVersionInterval x) -> x.lower));
+        final List<SemanticVersionInterval> merged = new ArrayList<>();
+        for (final SemanticVersionInterval interval : sorted) {
+            final int last = merged.size() - 1;
+            if (last >= 0 && merged.get(last).touches(interval)) {
+                merged.set(last, merged.get(last).span(interval));
+            } else {
+                merged.add(interval);
+            }
+        }
+        return new SemanticVersionIntervalSet(ImmutableList.copyOf(merged));
+    }
+
+    public static SemanticVersionIntervalSet of(final SemanticVersionInterval... intervals) {
+        return of(ImmutableList.copyOf(intervals));
+    }
+
+    public static SemanticVersionIntervalSet of() {
+        return EMPTY;
+    }
+
+    public static SemanticVersionIntervalSet all() {
+        return ALL;
+    }
+}
@@ -30,6 +30,11 @@ public final class SemanticVersionRange implements SemanticVersionRequirement {
         return ImmutableSet.of(minimumVersion, maximumVersion);
     }
 
+    @Override
+    public SemanticVersionIntervalSet toIntervalSet() {
+        return SemanticVersionIntervalSet.of(SemanticVersionInterval.of(minimumVersion, maximumVersion));
+    }
+
     @Override
     public String encode() {
         return minimumVersion + "-" + maximumVersion;
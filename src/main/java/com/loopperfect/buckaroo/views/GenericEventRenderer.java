@@ -8,7 +8,9 @@ import com.loopperfect.buckaroo.Event;
 import com.loopperfect.buckaroo.Notification;
 import com.loopperfect.buckaroo.RecipeIdentifier;
 import com.loopperfect.buckaroo.events.*;
+import com.loopperfect.buckaroo.resolver.PrefetchProgressEvent;
 import com.loopperfect.buckaroo.resolver.ResolvedDependenciesEvent;
+import com.loopperfect.buckaroo.sources.RecipeFetchStatisticsEvent;
 import com.loopperfect.buckaroo.tasks.DependencyInstalledEvent;
 import com.loopperfect.buckaroo.tasks.DownloadProgress;
 import com.loopperfect.buckaroo.tasks.UpdateProgressEvent;
@@ -131,6 +133,22 @@ public final class GenericEventRenderer {
                     .collect(toImmutableList())));
     }
 
+    public static Component render(final PrefetchProgressEvent event) {
+        Preconditions.checkNotNull(event);
+        return FlowLayout.of(
+            Text.of("Fetched recipes: ", Color.GRAY),
+            Text.of(event.fetched + "/" + event.discovered, Color.GREEN));
+    }
+
+    public static Component render(final RecipeFetchStatisticsEvent event) {
+        Preconditions.checkNotNull(event);
+        return FlowLayout.of(
+            Text.of("Recipes fetched: ", Color.GRAY),
+            Text.of(Long.toString(event.misses), Color.GREEN),
+            Text.of(", reused: ", Color.GRAY),
+            Text.of(Long.toString(event.hits), Color.GREEN));
+    }
+
     public static Component render(final DependencyInstallationEvent event) {
         Preconditions.checkNotNull(event);
         return StackLayout.of(
@@ -211,6 +229,12 @@ public final class GenericEventRenderer {
         if (event instanceof ResolvedDependenciesEvent) {
             return render((ResolvedDependenciesEvent) event);
         }
+        if (event instanceof PrefetchProgressEvent) {
+            return render((PrefetchProgressEvent) event);
+        }
+        if (event instanceof RecipeFetchStatisticsEvent) {
+            return render((RecipeFetchStatisticsEvent) event);
+        }
         if (event instanceof ReadProjectFileEvent) {
             return render((ReadProjectFileEvent) event);
         }
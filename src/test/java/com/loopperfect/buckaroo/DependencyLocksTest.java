@@ -0,0 +1,101 @@
+package com.loopperfect.buckaroo;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.loopperfect.buckaroo.versioning.AnySemanticVersion;
+import com.loopperfect.buckaroo.versioning.ExactSemanticVersion;
+import org.javatuples.Pair;
+import org.junit.Test;
+
+import java.util.Optional;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public final class DependencyLocksTest {
+
+    private static ResolvedDependency lock(
+        final String commit, final int version, final RecipeIdentifier... dependencies) {
+        return ResolvedDependency.of(
+            Either.left(GitCommit.of("https://github.com/org/example/commit", commit)),
+            Optional.empty(),
+            Optional.empty(),
+            ImmutableList.copyOf(dependencies)
+                .stream()
+                .map(ResolvedDependencyReference::of)
+                .collect(ImmutableList.toImmutableList()),
+            Optional.of(SemanticVersion.of(version)));
+    }
+
+    @Test
+    public void seedKeepsSatisfiedEntries() throws Exception {
+
+        final RecipeIdentifier a = RecipeIdentifier.of("org", "example-a");
+        final RecipeIdentifier b = RecipeIdentifier.of("org", "example-b");
+
+        final DependencyLocks locks = DependencyLocks.of(ImmutableMap.of(
+            a, lock("aa01f", 1, b),
+            b, lock("bb02f", 2)));
+
+        final ResolvedDependencies seed = locks.seed(ImmutableList.of(Dependency.of(a, AnySemanticVersion.of())));
+
+        assertEquals(ImmutableSet.of(a, b), seed.dependencies.keySet());
+        assertEquals(SemanticVersion.of(2), seed.get(b).getValue0());
+        assertEquals(
+            DependencyGroup.of(ImmutableMap.of(b, ExactSemanticVersion.of(SemanticVersion.of(2)))),
+            seed.get(a).getValue1().dependencies.get());
+        assertTrue(seed.isComplete());
+    }
+
+    @Test
+    public void seedDropsChangedEntriesAndTheirDependents() throws Exception {
+
+        final RecipeIdentifier a = RecipeIdentifier.of("org", "example-a");
+        final RecipeIdentifier b = RecipeIdentifier.of("org", "example-b");
+        final RecipeIdentifier c = RecipeIdentifier.of("org", "example-c");
+        final RecipeIdentifier d = RecipeIdentifier.of("org", "example-d");
+
+        final DependencyLocks locks = DependencyLocks.of(ImmutableMap.of(
+            a, lock("aa01f", 1, b),
+            b, lock("bb01f", 1),
+            c, lock("cc01f", 1),
+            d, lock("dd01f", 1)));
+
+        final ResolvedDependencies seed = locks.seed(ImmutableList.of(
+            Dependency.of(a, AnySemanticVersion.of()),
+            Dependency.of(b, ExactSemanticVersion.of(SemanticVersion.of(2))),
+            Dependency.of(c, AnySemanticVersion.of())));
+
+        assertEquals(ImmutableSet.of(c), seed.dependencies.keySet());
+    }
+
+    @Test
+    public void locksAreSortedByIdentifier() throws Exception {
+
+        final ImmutableList<RecipeIdentifier> identifiers = ImmutableList.of(
+            RecipeIdentifier.of("org", "example-d"),
+            RecipeIdentifier.of("org", "example-a"),
+            RecipeIdentifier.of("another", "example-c"),
+            RecipeIdentifier.of("org", "example-b"));
+
+        ResolvedDependencies resolved = ResolvedDependencies.of();
+        for (final RecipeIdentifier identifier : identifiers) {
+            resolved = resolved.add(identifier, Pair.with(
+                SemanticVersion.of(1),
+                RecipeVersion.of(
+                    GitCommit.of("https://github.com/org/example/commit", "aa01f"),
+                    Optional.empty(),
+                    DependencyGroup.of(),
+                    Optional.empty())));
+        }
+
+        assertEquals(
+            ImmutableList.of(
+                RecipeIdentifier.of("another", "example-c"),
+                RecipeIdentifier.of("org", "example-a"),
+                RecipeIdentifier.of("org", "example-b"),
+                RecipeIdentifier.of("org", "example-d")),
+            DependencyLocks.of(resolved).locks.keySet().asList());
+    }
+}
@@ -1,5 +1,6 @@
 package com.loopperfect.buckaroo;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import org.junit.Test;
 
@@ -44,4 +45,18 @@ public final class MoreMapsTest {
 
         assertEquals(expected, MoreMaps.merge(x, y));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void zip() throws Exception {
+
+        final ImmutableList<String> keys = ImmutableList.of("a", "b", "c");
+        final ImmutableList<Integer> values = ImmutableList.of(1, 2, 3);
+
+        final ImmutableMap<String, Integer> expected = ImmutableMap.of(
+            "a", 1,
+            "b", 2,
+            "c", 3);
+
+        assertEquals(expected, MoreMaps.zip(keys, values));
+    }
+}
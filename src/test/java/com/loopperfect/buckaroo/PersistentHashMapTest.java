@@ -0,0 +1,92 @@
+package com.loopperfect.buckaroo;
+
+import com.google.common.collect.ImmutableMap;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public final class PersistentHashMapTest {
+
+    // Keys that always collide, to exercise the collision nodes
+    private static final class Collider {
+
+        private final int value;
+
+        private Collider(final int value) {
+            this.value = value;
+        }
+
+        @Override
+        public int hashCode() {
+            return 42;
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            return obj instanceof Collider && ((Collider) obj).value == value;
+        }
+    }
+
+    @Test
+    public void withAndWithout() throws Exception {
+
+        final PersistentHashMap<String, Integer> a = PersistentHashMap.<String, Integer>of().with("a", 1);
+        final PersistentHashMap<String, Integer> b = a.with("b", 2);
+        final PersistentHashMap<String, Integer> c = b.with("a", 3);
+
+        assertEquals(ImmutableMap.of("a", 1), a);
+        assertEquals(ImmutableMap.of("a", 1, "b", 2), b);
+        assertEquals(ImmutableMap.of("a", 3, "b", 2), c);
+        assertEquals(ImmutableMap.of("b", 2), c.without("a"));
+        assertSame(c, c.without("z"));
+        assertSame(c, c.with("b", 2));
+        assertTrue(c.without("a").without("b").isEmpty());
+    }
+
+    @Test
+    public void matchesHashMap() throws Exception {
+
+        final Random random = new Random(1234L);
+        final Map<Integer, Integer> expected = new HashMap<>();
+        PersistentHashMap<Integer, Integer> actual = PersistentHashMap.of();
+
+        for (int i = 0; i < 10000; i++) {
+            final int key = random.nextInt(2000) - 1000;
+            if (random.nextInt(3) == 0) {
+                expected.remove(key);
+                actual = actual.without(key);
+            } else {
+                expected.put(key, i);
+                actual = actual.with(key, i);
+            }
+        }
+
+        assertEquals(expected.size(), actual.size());
+        assertEquals(expected, actual);
+        assertEquals(expected.hashCode(), actual.hashCode());
+    }
+
+    @Test
+    public void collisions() throws Exception {
+
+        PersistentHashMap<Collider, Integer> map = PersistentHashMap.of();
+
+        for (int i = 0; i < 5; i++) {
+            map = map.with(new Collider(i), i);
+        }
+
+        final PersistentHashMap<Object, Integer> mixed = PersistentHashMap.<Object, Integer>copyOf(map).with("x", 9);
+
+        assertEquals(5, map.size());
+        assertEquals(Integer.valueOf(3), map.get(new Collider(3)));
+        assertEquals(4, map.without(new Collider(3)).size());
+        assertFalse(map.without(new Collider(3)).containsKey(new Collider(3)));
+        assertEquals(6, mixed.size());
+        assertEquals(Integer.valueOf(9), mixed.get("x"));
+        assertEquals(Integer.valueOf(0), mixed.get(new Collider(0)));
+    }
+}
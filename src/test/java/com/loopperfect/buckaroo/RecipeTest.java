@@ -0,0 +1,54 @@
+package com.loopperfect.buckaroo;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.loopperfect.buckaroo.versioning.AnySemanticVersion;
+import com.loopperfect.buckaroo.versioning.BoundedSemanticVersion;
+import com.loopperfect.buckaroo.versioning.ExactSemanticVersion;
+import org.junit.Test;
+
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.Assert.assertEquals;
+
+public final class RecipeTest {
+
+    private static RecipeVersion recipeVersion(final String commit) {
+        return RecipeVersion.of(
+            GitCommit.of("https://github.com/org/example/commit", commit),
+            Optional.empty(),
+            DependencyGroup.of(),
+            Optional.empty());
+    }
+
+    private static ImmutableList<SemanticVersion> keys(final ImmutableList<Map.Entry<SemanticVersion, RecipeVersion>> x) {
+        return x.stream().map(Map.Entry::getKey).collect(ImmutableList.toImmutableList());
+    }
+
+    @Test
+    public void versionsSatisfying() throws Exception {
+
+        final Recipe recipe = Recipe.of(
+            "example",
+            "https://github.com/org/example",
+            ImmutableMap.of(
+                SemanticVersion.of(2), recipeVersion("aa02f"),
+                SemanticVersion.of(1), recipeVersion("aa01f"),
+                SemanticVersion.of(3), recipeVersion("aa03f"),
+                SemanticVersion.of(1, 5), recipeVersion("aa15f")));
+
+        assertEquals(
+            ImmutableList.of(SemanticVersion.of(3), SemanticVersion.of(2), SemanticVersion.of(1, 5), SemanticVersion.of(1)),
+            keys(recipe.versionsSatisfying(AnySemanticVersion.of())));
+
+        assertEquals(
+            ImmutableList.of(SemanticVersion.of(3), SemanticVersion.of(2)),
+            keys(recipe.versionsSatisfying(BoundedSemanticVersion.atLeast(SemanticVersion.of(1, 6)))));
+
+        assertEquals(
+            ImmutableList.of(SemanticVersion.of(3), SemanticVersion.of(1)),
+            keys(recipe.versionsSatisfying(ExactSemanticVersion.of(
+                SemanticVersion.of(1), SemanticVersion.of(3), SemanticVersion.of(4)))));
+    }
+}
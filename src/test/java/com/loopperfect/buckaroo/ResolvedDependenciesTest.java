@@ -2,6 +2,7 @@ package com.loopperfect.buckaroo;
 
 import com.google.common.collect.ImmutableMap;
 import com.loopperfect.buckaroo.versioning.AnySemanticVersion;
+import com.loopperfect.buckaroo.versioning.ExactSemanticVersion;
 import org.javatuples.Pair;
 import org.junit.Test;
 
@@ -71,4 +72,70 @@ public final class ResolvedDependenciesTest {
 
         assertFalse(a.isComplete());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void isComplete3() throws Exception {
+
+        final RecipeIdentifier project = RecipeIdentifier.of("org", "project");
+        final RecipeIdentifier json = RecipeIdentifier.of("megacorp", "json");
+
+        final ResolvedDependencies a = ResolvedDependencies.of().add(
+            project,
+            Pair.with(
+                SemanticVersion.of(1),
+                RecipeVersion.of(
+                    Either.left(GitCommit.of("https://github.com/magicco/magiclib/commit", "b0215d5")),
+                    Optional.of("my-magic-lib"),
+                    DependencyGroup.of(ImmutableMap.of(
+                        json, ExactSemanticVersion.of(SemanticVersion.of(2)))),
+                    Optional.empty())));
+
+        final RecipeVersion jsonVersion = RecipeVersion.of(
+            Either.left(GitCommit.of("https://github.com/megacorp/json/commit", "c0215d5")),
+            Optional.empty(),
+            DependencyGroup.of(),
+            Optional.empty());
+
+        assertFalse(a.isComplete());
+        assertTrue(a.add(json, Pair.with(SemanticVersion.of(2), jsonVersion)).isComplete());
+        assertFalse(a.add(json, Pair.with(SemanticVersion.of(1), jsonVersion)).isComplete());
+    }
+
+    @Test
+    public void addReplacesResolvedProjects() throws Exception {
+
+        final RecipeIdentifier project = RecipeIdentifier.of("org", "project");
+        final RecipeIdentifier json = RecipeIdentifier.of("megacorp", "json");
+
+        final RecipeVersion projectVersion = RecipeVersion.of(
+            Either.left(GitCommit.of("https://github.com/magicco/magiclib/commit", "b0215d5")),
+            Optional.of("my-magic-lib"),
+            DependencyGroup.of(ImmutableMap.of(
+                json, ExactSemanticVersion.of(SemanticVersion.of(2)))),
+            Optional.empty());
+
+        final RecipeVersion jsonVersion = RecipeVersion.of(
+            Either.left(GitCommit.of("https://github.com/megacorp/json/commit", "c0215d5")),
+            Optional.empty(),
+            DependencyGroup.of(),
+            Optional.empty());
+
+        final ResolvedDependencies a = ResolvedDependencies.of()
+            .add(project, Pair.with(SemanticVersion.of(1), projectVersion))
+            .add(json, Pair.with(SemanticVersion.of(1), jsonVersion));
+
+        final ResolvedDependencies b = a.add(json, Pair.with(SemanticVersion.of(2), jsonVersion));
+
+        assertFalse(a.isComplete());
+        assertTrue(b.isComplete());
+        assertEquals(SemanticVersion.of(2), b.get(json).getValue0());
+        assertFalse(b.add(json, Pair.with(SemanticVersion.of(1), jsonVersion)).isConsistent());
+
+        // The requirements of the replaced version no longer apply
+        assertTrue(b.add(project, Pair.with(SemanticVersion.of(1), RecipeVersion.of(
+            Either.left(GitCommit.of("https://github.com/magicco/magiclib/commit", "b0215d5")),
+            Optional.of("my-magic-lib"),
+            DependencyGroup.of(),
+            Optional.empty()))).isComplete());
+    }
+}
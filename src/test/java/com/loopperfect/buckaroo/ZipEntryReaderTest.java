@@ -0,0 +1,92 @@
+package com.loopperfect.buckaroo;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Strings;
+import com.google.common.jimfs.Jimfs;
+import org.junit.Test;
+
+import java.nio.file.FileSystem;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public final class ZipEntryReaderTest {
+
+    private static void writeZip(final Path path, final byte[] stored, final byte[] deflated) throws Exception {
+
+        try (final ZipOutputStream zipOutputStream = new ZipOutputStream(Files.newOutputStream(path))) {
+
+            final CRC32 crc = new CRC32();
+            crc.update(stored);
+
+            final ZipEntry storedEntry = new ZipEntry("project-abc/stored.txt");
+            storedEntry.setMethod(ZipEntry.STORED);
+            storedEntry.setSize(stored.length);
+            storedEntry.setCrc(crc.getValue());
+            storedEntry.setExtra(new byte[] { 0x01, 0x02, 0x00, 0x00 });
+
+            zipOutputStream.putNextEntry(storedEntry);
+            zipOutputStream.write(stored);
+            zipOutputStream.closeEntry();
+
+            zipOutputStream.putNextEntry(new ZipEntry("project-abc/buckaroo.json"));
+            zipOutputStream.write(deflated);
+            zipOutputStream.closeEntry();
+
+            zipOutputStream.setComment("An archive with a comment");
+        }
+    }
+
+    @Test
+    public void readsStoredAndDeflatedEntries() throws Exception {
+
+        final FileSystem fs = Jimfs.newFileSystem();
+
+        final byte[] stored = "Hello, world. ".getBytes(Charsets.UTF_8);
+        final byte[] deflated = ("{ \"name\": \"" + Strings.repeat("example", 1000) + "\" }").getBytes(Charsets.UTF_8);
+
+        writeZip(fs.getPath("archive.zip"), stored, deflated);
+
+        assertArrayEquals(
+            stored,
+            EvenMoreFiles.readZipEntry(fs.getPath("archive.zip"), "project-abc/stored.txt").get());
+
+        assertArrayEquals(
+            deflated,
+            EvenMoreFiles.readZipEntry(fs.getPath("archive.zip"), "project-abc/buckaroo.json").get());
+    }
+
+    @Test
+    public void missingEntriesAreEmpty() throws Exception {
+
+        final FileSystem fs = Jimfs.newFileSystem();
+
+        writeZip(fs.getPath("archive.zip"), new byte[] { 1, 2, 3 }, new byte[0]);
+
+        assertEquals(Optional.empty(), EvenMoreFiles.readZipEntry(fs.getPath("archive.zip"), "buckaroo.json"));
+        assertEquals(Optional.empty(), EvenMoreFiles.readZipEntry(fs.getPath("archive.zip"), "project-abc"));
+    }
+
+    @Test
+    public void otherFilesAreRejected() throws Exception {
+
+        final FileSystem fs = Jimfs.newFileSystem();
+
+        Files.write(fs.getPath("archive.zip"), Strings.repeat("Not a zip. ", 100).getBytes(Charsets.UTF_8));
+
+        try {
+            EvenMoreFiles.readZipEntry(fs.getPath("archive.zip"), "buckaroo.json");
+            assertTrue(false);
+        } catch (final ZipException e) {
+            assertTrue(true);
+        }
+    }
+}
@@ -186,6 +186,10 @@ public final class CLIParsersTest {
             ResolveCommand.of(),
             CLIParsers.commandParser.parse("     resolve "));
 
+        assertEquals(
+            ResolveCommand.of(true),
+            CLIParsers.commandParser.parse("resolve --refresh "));
+
         try {
             parser.parse("installsomething");
             assertTrue(false);
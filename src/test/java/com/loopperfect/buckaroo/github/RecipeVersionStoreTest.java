@@ -0,0 +1,65 @@
+package com.loopperfect.buckaroo.github;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.hash.HashCode;
+import com.google.common.jimfs.Jimfs;
+import com.loopperfect.buckaroo.*;
+import com.loopperfect.buckaroo.versioning.AnySemanticVersion;
+import org.junit.Test;
+
+import java.nio.file.FileSystem;
+import java.nio.file.Files;
+import java.util.Optional;
+
+import static org.junit.Assert.assertEquals;
+
+public final class RecipeVersionStoreTest {
+
+    private static final Identifier owner = Identifier.of("org");
+    private static final Identifier project = Identifier.of("example");
+    private static final GitCommitHash commit = GitCommitHash.of("138252fac310b976a5ee55ffaa8e9180cf44112b");
+
+    @Test
+    public void storesVersionsByCommit() throws Exception {
+
+        final FileSystem fs = Jimfs.newFileSystem();
+        final RecipeVersionStore store = RecipeVersionStore.of(fs.getPath("/cache"));
+
+        final RecipeVersion unpinned = RecipeVersion.of(
+            GitCommit.of(GitHub.cloneURL(owner, project), commit.hash),
+            Optional.of("example"),
+            DependencyGroup.of(ImmutableMap.of(RecipeIdentifier.of("org", "other"), AnySemanticVersion.of())),
+            Optional.empty());
+
+        final RecipeVersion pinned = RecipeVersion.of(
+            RemoteArchive.of(
+                GitHub.zipURL(owner, project, commit),
+                HashCode.fromString("aaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaa"),
+                "/example-" + commit.hash),
+            Optional.of("example"),
+            DependencyGroup.of(ImmutableMap.of(RecipeIdentifier.of("org", "other"), AnySemanticVersion.of())),
+            Optional.empty());
+
+        assertEquals(Optional.empty(), store.get(owner, project, commit));
+
+        store.put(owner, project, commit, unpinned);
+
+        assertEquals(Optional.of(unpinned), store.get(owner, project, commit));
+
+        store.put(owner, project, commit, pinned);
+
+        assertEquals(Optional.of(pinned), store.get(owner, project, commit));
+    }
+
+    @Test
+    public void unreadableEntriesAreMissing() throws Exception {
+
+        final FileSystem fs = Jimfs.newFileSystem();
+        final RecipeVersionStore store = RecipeVersionStore.of(fs.getPath("/cache"));
+
+        Files.createDirectories(store.getPath(owner, project, commit).getParent());
+        Files.write(store.getPath(owner, project, commit), "{ \"source\": ".getBytes());
+
+        assertEquals(Optional.empty(), store.get(owner, project, commit));
+    }
+}
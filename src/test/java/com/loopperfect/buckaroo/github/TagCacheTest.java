@@ -0,0 +1,73 @@
+package com.loopperfect.buckaroo.github;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.jimfs.Jimfs;
+import com.loopperfect.buckaroo.GitCommitHash;
+import com.loopperfect.buckaroo.Identifier;
+import org.junit.Test;
+
+import java.nio.file.FileSystem;
+import java.nio.file.Files;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Optional;
+
+import static org.junit.Assert.assertEquals;
+
+public final class TagCacheTest {
+
+    private static final Identifier owner = Identifier.of("org");
+    private static final Identifier project = Identifier.of("example");
+
+    private static final ImmutableMap<String, GitCommitHash> tags = ImmutableMap.of(
+        "v1.0.0", GitCommitHash.of("138252fac310b976a5ee55ffaa8e9180cf44112b"),
+        "v1.1.0", GitCommitHash.of("c7355d5ff9d2ab3c8d0e7b8f7e7a1c9b0a3c6d10"));
+
+    @Test
+    public void entriesExpireAfterTheTimeToLive() throws Exception {
+
+        final FileSystem fs = Jimfs.newFileSystem();
+        final Instant fetched = Instant.parse("2017-06-01T12:00:00Z");
+
+        final TagCache writer = TagCache.of(
+            fs.getPath("/cache"), Duration.ofMinutes(10), Clock.fixed(fetched, ZoneOffset.UTC));
+
+        assertEquals(Optional.empty(), writer.get(owner, project));
+
+        writer.put(owner, project, tags);
+
+        final TagCache soon = TagCache.of(
+            fs.getPath("/cache"), Duration.ofMinutes(10), Clock.fixed(fetched.plusSeconds(60), ZoneOffset.UTC));
+
+        final TagCache later = TagCache.of(
+            fs.getPath("/cache"), Duration.ofMinutes(10), Clock.fixed(fetched.plusSeconds(600), ZoneOffset.UTC));
+
+        assertEquals(Optional.of(tags), soon.get(owner, project));
+        assertEquals(Optional.empty(), later.get(owner, project));
+    }
+
+    @Test
+    public void aTimeToLiveOfZeroAlwaysRefreshes() throws Exception {
+
+        final FileSystem fs = Jimfs.newFileSystem();
+        final Clock clock = Clock.fixed(Instant.parse("2017-06-01T12:00:00Z"), ZoneOffset.UTC);
+
+        TagCache.of(fs.getPath("/cache"), Duration.ofMinutes(10), clock).put(owner, project, tags);
+
+        assertEquals(Optional.empty(), TagCache.of(fs.getPath("/cache"), Duration.ZERO, clock).get(owner, project));
+    }
+
+    @Test
+    public void unreadableEntriesAreMissing() throws Exception {
+
+        final FileSystem fs = Jimfs.newFileSystem();
+        final TagCache cache = TagCache.of(fs.getPath("/cache"), Duration.ofMinutes(10));
+
+        Files.createDirectories(cache.getPath(owner, project).getParent());
+        Files.write(cache.getPath(owner, project), "{ \"tags\": ".getBytes());
+
+        assertEquals(Optional.empty(), cache.get(owner, project));
+    }
+}
@@ -2,176 +2,238 @@ package com.loopperfect.buckaroo.resolver;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.jimfs.Jimfs;
 import com.loopperfect.buckaroo.*;
 import com.loopperfect.buckaroo.Process;
-import com.loopperfect.buckaroo.sources.RecipeSources;
+import com.loopperfect.buckaroo.tasks.CacheTasks;
 import com.loopperfect.buckaroo.versioning.AnySemanticVersion;
-import org.javatuples.Pair;
+import com.loopperfect.buckaroo.versioning.ExactSemanticVersion;
+import io.reactivex.Single;
 import org.junit.Test;
 
-import java.util.Optional;
-import java.util.concurrent.CountDownLatch;
+import java.nio.file.FileSystem;
+import java.nio.file.Files;
+import java.util.*;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
 public final class AsyncDependencyResolverTest {
 
+    private static RecipeVersion recipeVersion(final String commit, final DependencyGroup dependencies) {
+        return RecipeVersion.of(
+            GitCommit.of("https://github.com/org/example/commit", commit),
+            Optional.empty(),
+            dependencies,
+            Optional.empty());
+    }
+
     @Test
-    public void resolveEmpty() throws Exception {
+    public void resolveRespectsMaxConcurrency() throws Exception {
+
+        final RecipeIdentifier a = RecipeIdentifier.of("org", "example-a");
+
+        final ImmutableMap.Builder<SemanticVersion, RecipeVersion> versions = ImmutableMap.builder();
+        for (int i = 0; i < 8; i++) {
+            versions.put(
+                SemanticVersion.of(i),
+                recipeVersion("aa0" + i + "f", DependencyGroup.of(ImmutableMap.of(
+                    RecipeIdentifier.of("org", "example-b" + i), AnySemanticVersion.of()))));
+        }
+
+        final Recipe recipeA = Recipe.of("Example A", "https://github.com/org/example-a", versions.build());
+
+        final AtomicInteger inFlight = new AtomicInteger();
+        final AtomicInteger maxInFlight = new AtomicInteger();
+
+        final RecipeSource recipeSource = identifier -> {
+            if (identifier.equals(a)) {
+                return Process.just(recipeA);
+            }
+            return Process.of(Single.timer(10L, TimeUnit.MILLISECONDS)
+                .map(ignored -> Recipe.of(
+                    identifier.recipe.name,
+                    "https://github.com/org/" + identifier.recipe.name,
+                    ImmutableMap.of(SemanticVersion.of(1), recipeVersion("bb01f", DependencyGroup.of()))))
+                .doOnSubscribe(ignored -> maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max))
+                .doOnEvent((x, error) -> inFlight.decrementAndGet()));
+        };
 
-        assertEquals(
+        final ResolvedDependencies actual = AsyncDependencyResolver.resolve(
+            recipeSource,
             ResolvedDependencies.of(),
-            AsyncDependencyResolver.resolve(RecipeSources.empty(), ImmutableList.of()).result().blockingGet());
+            ImmutableList.of(Dependency.of(a, AnySemanticVersion.of())),
+            SumResolutionStrategy.of(),
+            2).result().blockingGet();
+
+        assertEquals(SemanticVersion.of(7), actual.get(a).getValue0());
+        assertTrue(maxInFlight.get() <= 2);
     }
 
     @Test
-    public void resolveSimple() throws Exception {
+    public void resolveDisposesLosingBranches() throws Exception {
 
-        final RecipeIdentifier identifier = RecipeIdentifier.of("org", "example");
+        final RecipeIdentifier a = RecipeIdentifier.of("org", "example-a");
+        final RecipeIdentifier b = RecipeIdentifier.of("org", "example-b");
 
-        final Recipe example = Recipe.of(
-            "example",
-            "https://github.com/org/example",
+        final Recipe recipeA = Recipe.of(
+            "Example A",
+            "https://github.com/org/example-a",
             ImmutableMap.of(
                 SemanticVersion.of(1),
-                RecipeVersion.of(
-                    GitCommit.of("https://github.com/org/example/commit", "b4515d5"),
-                    Optional.empty(),
-                    DependencyGroup.of(),
-                    Optional.empty())));
+                recipeVersion("aa01f", DependencyGroup.of(ImmutableMap.of(b, AnySemanticVersion.of()))),
+                SemanticVersion.of(2),
+                recipeVersion("aa02f", DependencyGroup.of())));
 
-        final RecipeSource recipeSource = recipeIdentifier -> {
-            if (recipeIdentifier.equals(identifier)) {
-                return Process.just(example);
-            }
-            return Process.error(new FetchRecipeException("Could not find " + recipeIdentifier.encode() + ". "));
+        final Recipe recipeB = Recipe.of(
+            "Example B",
+            "https://github.com/org/example-b",
+            ImmutableMap.of(SemanticVersion.of(1), recipeVersion("bb01f", DependencyGroup.of())));
+
+        final List<RecipeIdentifier> fetched = Collections.synchronizedList(new ArrayList<>());
+
+        final RecipeSource recipeSource = identifier -> {
+            fetched.add(identifier);
+            return Process.just(identifier.equals(a) ? recipeA : recipeB);
         };
 
-        final ImmutableList<Dependency> toResolve = ImmutableList.of(
-            Dependency.of(identifier, AnySemanticVersion.of()));
+        // Only the version of A counts, so nothing below A@1 can ever beat A@2
+        final ResolutionStrategy strategy = new ResolutionStrategy() {
 
-        final ResolvedDependencies expected = ResolvedDependencies.of(ImmutableMap.of(
-            identifier,
-            Pair.with(
-                SemanticVersion.of(1),
-                    example.versions.get(SemanticVersion.of(1)))));
+            @Override
+            public int score(final ResolvedDependencies resolvedDependencies) {
+                return resolvedDependencies.dependencies.containsKey(a) ?
+                    resolvedDependencies.get(a).getValue0().major :
+                    0;
+            }
+
+            @Override
+            public int upperBound(final ResolvedDependencies partial, final int score) {
+                return score;
+            }
+        };
 
-        assertEquals(
-            expected,
-            AsyncDependencyResolver.resolve(recipeSource, toResolve).result().blockingGet());
+        final ResolvedDependencies actual = AsyncDependencyResolver.resolve(
+            recipeSource,
+            ResolvedDependencies.of(),
+            ImmutableList.of(Dependency.of(a, AnySemanticVersion.of())),
+            strategy,
+            1).result().blockingGet();
+
+        assertEquals(SemanticVersion.of(2), actual.get(a).getValue0());
+        assertFalse(fetched.contains(b));
     }
 
     @Test
-    public void resolveSimpleTransitive() throws Exception {
+    public void resolvePrunesConflictingBranches() throws Exception {
 
+        final RecipeIdentifier a = RecipeIdentifier.of("org", "example-a");
+        final RecipeIdentifier b = RecipeIdentifier.of("org", "example-b");
+        final RecipeIdentifier c = RecipeIdentifier.of("org", "example-c");
+        final RecipeIdentifier d = RecipeIdentifier.of("org", "example-d");
+
+        // A needs D and exactly B@1, but D is resolved first and accepts any B
         final Recipe recipeA = Recipe.of(
             "Example A",
             "https://github.com/org/example-a",
             ImmutableMap.of(
                 SemanticVersion.of(1),
-                RecipeVersion.of(
-                    GitCommit.of("https://github.com/org/example-a/commit", "a0215d5"),
-                    Optional.empty(),
-                    DependencyGroup.of(ImmutableMap.of(
-                        RecipeIdentifier.of("org", "example-b"), AnySemanticVersion.of())),
-                    Optional.empty())));
+                recipeVersion("aa01f", DependencyGroup.of(ImmutableMap.of(
+                    d, AnySemanticVersion.of(),
+                    b, ExactSemanticVersion.of(SemanticVersion.of(1)))))));
+
+        final Recipe recipeD = Recipe.of(
+            "Example D",
+            "https://github.com/org/example-d",
+            ImmutableMap.of(
+                SemanticVersion.of(1),
+                recipeVersion("dd01f", DependencyGroup.of(ImmutableMap.of(b, AnySemanticVersion.of())))));
 
         final Recipe recipeB = Recipe.of(
             "Example B",
             "https://github.com/org/example-b",
             ImmutableMap.of(
                 SemanticVersion.of(1),
-                RecipeVersion.of(
-                    GitCommit.of("https://github.com/org/example-b/commit", "b7315e5"),
-                    Optional.empty(),
-                    DependencyGroup.of(),
-                    Optional.empty())));
+                recipeVersion("bb01f", DependencyGroup.of()),
+                SemanticVersion.of(2),
+                recipeVersion("bb02f", DependencyGroup.of(ImmutableMap.of(c, AnySemanticVersion.of())))));
 
-        final RecipeSource recipeSource = recipeIdentifier -> {
-            if (recipeIdentifier.equals(RecipeIdentifier.of("org", "example-a"))) {
-                return Process.just(recipeA);
-            }
-            if (recipeIdentifier.equals(RecipeIdentifier.of("org", "example-b"))) {
-                return Process.just(recipeB);
-            }
-            return Process.error(new FetchRecipeException("Could not find " + recipeIdentifier.encode() + ". "));
+        final Recipe recipeC = Recipe.of(
+            "Example C",
+            "https://github.com/org/example-c",
+            ImmutableMap.of(SemanticVersion.of(1), recipeVersion("cc01f", DependencyGroup.of())));
+
+        final Map<RecipeIdentifier, Recipe> recipes = ImmutableMap.of(a, recipeA, b, recipeB, c, recipeC, d, recipeD);
+        final List<RecipeIdentifier> fetched = Collections.synchronizedList(new ArrayList<>());
+
+        final RecipeSource recipeSource = identifier -> {
+            fetched.add(identifier);
+            return Process.just(recipes.get(identifier));
         };
 
-        final ImmutableList<Dependency> toResolve = ImmutableList.of(
-            Dependency.of(RecipeIdentifier.of("org", "example-a"), AnySemanticVersion.of()));
+        final ResolvedDependencies actual = AsyncDependencyResolver.resolve(
+            recipeSource,
+            ResolvedDependencies.of(),
+            ImmutableList.of(Dependency.of(a, AnySemanticVersion.of())),
+            SumResolutionStrategy.of(),
+            1).result().blockingGet();
+
+        // B@2 scores higher, but conflicts with A, so it is abandoned before C is fetched
+        assertEquals(SemanticVersion.of(1), actual.get(b).getValue0());
+        assertTrue(actual.isComplete());
+        assertFalse(fetched.contains(c));
+    }
+
+    @Test
+    public void resolveExploresBestScoringCandidatesFirst() throws Exception {
 
-        final ResolvedDependencies expected = ResolvedDependencies.of(ImmutableMap.of(
-            RecipeIdentifier.of("org", "example-a"),
-            Pair.with(
-                SemanticVersion.of(1),
-                recipeA.versions.get(SemanticVersion.of(1))),
-            RecipeIdentifier.of("org", "example-b"),
-            Pair.with(
+        final FileSystem fs = Jimfs.newFileSystem();
+
+        final RecipeIdentifier a = RecipeIdentifier.of("org", "example-a");
+        final RecipeIdentifier b = RecipeIdentifier.of("org", "example-b");
+        final RecipeIdentifier c = RecipeIdentifier.of("org", "example-c");
+
+        final GitCommit cached = GitCommit.of("https://github.com/org/example-a/commit", "aa01f");
+
+        Files.createDirectories(CacheTasks.getCachePath(fs, cached));
+
+        // A@1 is cached, so it should be explored before the newer A@2
+        final Recipe recipeA = Recipe.of(
+            "Example A",
+            "https://github.com/org/example-a",
+            ImmutableMap.of(
                 SemanticVersion.of(1),
-                recipeB.versions.get(SemanticVersion.of(1)))));
+                RecipeVersion.of(
+                    cached,
+                    Optional.empty(),
+                    DependencyGroup.of(ImmutableMap.of(b, AnySemanticVersion.of())),
+                    Optional.empty()),
+                SemanticVersion.of(2),
+                recipeVersion("aa02f", DependencyGroup.of(ImmutableMap.of(c, AnySemanticVersion.of())))));
 
-        final CountDownLatch latch = new CountDownLatch(1);
+        final Recipe leaf = Recipe.of(
+            "Example",
+            "https://github.com/org/example",
+            ImmutableMap.of(SemanticVersion.of(1), recipeVersion("bb01f", DependencyGroup.of())));
 
-        AsyncDependencyResolver.resolve(recipeSource, toResolve).result().subscribe(
-            actual -> {
-                assertEquals(expected, actual);
-                latch.countDown();
-            }, error -> {
-                latch.countDown();
-            });
+        final List<RecipeIdentifier> fetched = Collections.synchronizedList(new ArrayList<>());
 
-        latch.await(5000L, TimeUnit.MILLISECONDS);
-    }
+        final RecipeSource recipeSource = identifier -> {
+            fetched.add(identifier);
+            return Process.just(identifier.equals(a) ? recipeA : leaf);
+        };
+
+        final ResolvedDependencies actual = AsyncDependencyResolver.resolve(
+            recipeSource,
+            ResolvedDependencies.of(),
+            ImmutableList.of(Dependency.of(a, AnySemanticVersion.of())),
+            CacheAwareResolutionStrategy.of(fs),
+            1).result().blockingGet();
 
-    // TODO: Re-enable this test once the resolver does not use recursion.
-
-//    private static Recipe createRecipeForResolveDeepTransitive(final int depth) throws Exception {
-//        return Recipe.of(
-//            "Example " + depth,
-//            "https://github.com/org/example-" + depth,
-//            ImmutableMap.of(
-//                SemanticVersion.of(1),
-//                RecipeVersion.of(
-//                    RemoteArchive.of(
-//                        new URL("https://github.com/org/example-" + depth + ".zip"),
-//                        Hash.sha256("example" + depth)),
-//                    Optional.empty(),
-//                    DependencyGroup.of(depth > 0 ?
-//                        ImmutableMap.of(
-//                            RecipeIdentifier.of("org", "example-" + (depth - 1)), AnySemanticVersion.of()) :
-//                        ImmutableMap.of()),
-//                    Optional.empty())));
-//    }
-//
-//    @Test
-//    public void resolveDeepTransitive() throws Exception {
-//
-//        final RecipeSource recipeSource = recipeIdentifier -> {
-//            try {
-//                int index = Integer.parseInt(recipeIdentifier.recipe.name.split("-")[1]);
-//                return Process.just(createRecipeForResolveDeepTransitive(index));
-//            } catch (final Throwable e){
-//                return Process.error(new FetchRecipeException("Could not find " + recipeIdentifier.encode() + ". "));
-//            }
-//        };
-//
-//        final CountDownLatch latch = new CountDownLatch(1);
-//
-//        final int depth = 256; // 85
-//
-//        final ImmutableList<Dependency> toResolve = ImmutableList.of(
-//            Dependency.of(RecipeIdentifier.of("org", "example-" + depth), AnySemanticVersion.of()));
-//
-//        AsyncDependencyResolver.resolve(recipeSource, toResolve).toObservable()
-//            .subscribe(next -> {
-//
-//            }, error -> {
-//                latch.countDown();
-//            }, () -> {
-//                latch.countDown();
-//            });
-//
-//        latch.await(5000L, TimeUnit.MILLISECONDS);
-//    }
+        assertEquals(SemanticVersion.of(1), actual.get(a).getValue0());
+        assertEquals(ImmutableList.of(a, b, c), ImmutableList.copyOf(fetched));
+    }
 }
@@ -0,0 +1,81 @@
+package com.loopperfect.buckaroo.resolver;
+
+import com.google.common.jimfs.Jimfs;
+import com.loopperfect.buckaroo.*;
+import com.loopperfect.buckaroo.github.GitHub;
+import com.loopperfect.buckaroo.tasks.CacheTasks;
+import org.javatuples.Pair;
+import org.junit.Test;
+
+import java.nio.file.FileSystem;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public final class CacheAwareResolutionStrategyTest {
+
+    private static RecipeVersion recipeVersion(final GitCommit commit) {
+        return RecipeVersion.of(
+            commit,
+            Optional.empty(),
+            DependencyGroup.of(),
+            Optional.empty());
+    }
+
+    @Test
+    public void cachedVersionsOutscoreNewerVersions() throws Exception {
+
+        final FileSystem fs = Jimfs.newFileSystem();
+
+        final RecipeIdentifier identifier = RecipeIdentifier.of("org", "example");
+
+        final GitCommit cached = GitCommit.of("https://github.com/org/example-cached.git", "aa01f");
+        final GitCommit uncached = GitCommit.of("https://github.com/org/example.git", "bb01f");
+
+        Files.createDirectories(CacheTasks.getCachePath(fs, cached));
+
+        final Pair<SemanticVersion, RecipeVersion> older = Pair.with(SemanticVersion.of(1), recipeVersion(cached));
+        final Pair<SemanticVersion, RecipeVersion> newer = Pair.with(SemanticVersion.of(2), recipeVersion(uncached));
+
+        final ResolutionStrategy strategy = CacheAwareResolutionStrategy.of(fs);
+        final ResolvedDependencies empty = ResolvedDependencies.of();
+
+        final int olderScore = strategy.score(0, empty, identifier, older);
+        final int newerScore = strategy.score(0, empty, identifier, newer);
+
+        assertTrue(olderScore > newerScore);
+        assertEquals(strategy.score(empty.add(identifier, older)), olderScore);
+        assertEquals(SumResolutionStrategy.of().score(empty.add(identifier, newer)), newerScore);
+    }
+
+    @Test
+    public void gitHubVersionsAreCachedByTheirArchive() throws Exception {
+
+        final FileSystem fs = Jimfs.newFileSystem();
+
+        final RecipeIdentifier identifier = RecipeIdentifier.of("github", "org", "example");
+
+        final String cloneURL = GitHub.cloneURL(identifier.organization, identifier.recipe);
+        final GitCommitHash cachedHash = GitCommitHash.of("aa01f0b8c2b1bd2aa1a9d3b3e1f4e2c3d4e5f6a7");
+
+        final GitCommit cached = GitCommit.of(cloneURL, cachedHash.hash);
+        final GitCommit uncached = GitCommit.of(cloneURL, "bb01f0b8c2b1bd2aa1a9d3b3e1f4e2c3d4e5f6a7");
+
+        // Pinning downloads the archive of the commit, rather than cloning it
+        final Path archive = CacheTasks.getCachePath(
+            fs, GitHub.zipURL(identifier.organization, identifier.recipe, cachedHash), Optional.of("zip"));
+        Files.createDirectories(archive.getParent());
+        Files.write(archive, new byte[] { 0 });
+
+        final Pair<SemanticVersion, RecipeVersion> older = Pair.with(SemanticVersion.of(1), recipeVersion(cached));
+        final Pair<SemanticVersion, RecipeVersion> newer = Pair.with(SemanticVersion.of(2), recipeVersion(uncached));
+
+        final ResolutionStrategy strategy = CacheAwareResolutionStrategy.of(fs);
+        final ResolvedDependencies empty = ResolvedDependencies.of();
+
+        assertTrue(strategy.score(0, empty, identifier, older) > strategy.score(0, empty, identifier, newer));
+    }
+}
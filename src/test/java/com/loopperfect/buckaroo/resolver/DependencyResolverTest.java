@@ -0,0 +1,405 @@
+package com.loopperfect.buckaroo.resolver;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.loopperfect.buckaroo.*;
+import com.loopperfect.buckaroo.Process;
+import com.loopperfect.buckaroo.sources.RecipeSources;
+import com.loopperfect.buckaroo.versioning.AnySemanticVersion;
+import com.loopperfect.buckaroo.versioning.BoundedSemanticVersion;
+import org.javatuples.Pair;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+@RunWith(Parameterized.class)
+public final class DependencyResolverTest {
+
+    @Parameterized.Parameters(name = "{0}")
+    public static Collection<ResolverEngine> engines() {
+        return Arrays.asList(ResolverEngine.values());
+    }
+
+    private final ResolverEngine engine;
+    private final DependencyResolver resolver;
+
+    public DependencyResolverTest(final ResolverEngine engine) {
+        this.engine = engine;
+        this.resolver = engine.resolver();
+    }
+
+    private static RecipeVersion recipeVersion(final String commit, final DependencyGroup dependencies) {
+        return RecipeVersion.of(
+            GitCommit.of("https://github.com/org/example/commit", commit),
+            Optional.empty(),
+            dependencies,
+            Optional.empty());
+    }
+
+    private static RecipeSource recipeSource(final ImmutableMap<RecipeIdentifier, Recipe> recipes) {
+        return recipeIdentifier -> {
+            if (recipes.containsKey(recipeIdentifier)) {
+                return Process.just(recipes.get(recipeIdentifier));
+            }
+            return Process.error(new FetchRecipeException("Could not find " + recipeIdentifier.encode() + ". "));
+        };
+    }
+
+    @Test
+    public void resolveEmpty() throws Exception {
+
+        assertEquals(
+            ResolvedDependencies.of(),
+            resolver.resolve(RecipeSources.empty(), ImmutableList.of()).result().blockingGet());
+    }
+
+    @Test
+    public void resolveSimple() throws Exception {
+
+        final RecipeIdentifier identifier = RecipeIdentifier.of("org", "example");
+
+        final Recipe example = Recipe.of(
+            "example",
+            "https://github.com/org/example",
+            ImmutableMap.of(
+                SemanticVersion.of(1),
+                RecipeVersion.of(
+                    GitCommit.of("https://github.com/org/example/commit", "b4515d5"),
+                    Optional.empty(),
+                    DependencyGroup.of(),
+                    Optional.empty())));
+
+        final RecipeSource recipeSource = recipeIdentifier -> {
+            if (recipeIdentifier.equals(identifier)) {
+                return Process.just(example);
+            }
+            return Process.error(new FetchRecipeException("Could not find " + recipeIdentifier.encode() + ". "));
+        };
+
+        final ImmutableList<Dependency> toResolve = ImmutableList.of(
+            Dependency.of(identifier, AnySemanticVersion.of()));
+
+        final ResolvedDependencies expected = ResolvedDependencies.of(ImmutableMap.of(
+            identifier,
+            Pair.with(
+                SemanticVersion.of(1),
+                    example.versions.get(SemanticVersion.of(1)))));
+
+        assertEquals(
+            expected,
+            resolver.resolve(recipeSource, toResolve).result().blockingGet());
+    }
+
+    @Test
+    public void resolveSimpleTransitive() throws Exception {
+
+        final Recipe recipeA = Recipe.of(
+            "Example A",
+            "https://github.com/org/example-a",
+            ImmutableMap.of(
+                SemanticVersion.of(1),
+                RecipeVersion.of(
+                    GitCommit.of("https://github.com/org/example-a/commit", "a0215d5"),
+                    Optional.empty(),
+                    DependencyGroup.of(ImmutableMap.of(
+                        RecipeIdentifier.of("org", "example-b"), AnySemanticVersion.of())),
+                    Optional.empty())));
+
+        final Recipe recipeB = Recipe.of(
+            "Example B",
+            "https://github.com/org/example-b",
+            ImmutableMap.of(
+                SemanticVersion.of(1),
+                RecipeVersion.of(
+                    GitCommit.of("https://github.com/org/example-b/commit", "b7315e5"),
+                    Optional.empty(),
+                    DependencyGroup.of(),
+                    Optional.empty())));
+
+        final RecipeSource recipeSource = recipeIdentifier -> {
+            if (recipeIdentifier.equals(RecipeIdentifier.of("org", "example-a"))) {
+                return Process.just(recipeA);
+            }
+            if (recipeIdentifier.equals(RecipeIdentifier.of("org", "example-b"))) {
+                return Process.just(recipeB);
+            }
+            return Process.error(new FetchRecipeException("Could not find " + recipeIdentifier.encode() + ". "));
+        };
+
+        final ImmutableList<Dependency> toResolve = ImmutableList.of(
+            Dependency.of(RecipeIdentifier.of("org", "example-a"), AnySemanticVersion.of()));
+
+        final ResolvedDependencies expected = ResolvedDependencies.of(ImmutableMap.of(
+            RecipeIdentifier.of("org", "example-a"),
+            Pair.with(
+                SemanticVersion.of(1),
+                recipeA.versions.get(SemanticVersion.of(1))),
+            RecipeIdentifier.of("org", "example-b"),
+            Pair.with(
+                SemanticVersion.of(1),
+                recipeB.versions.get(SemanticVersion.of(1)))));
+
+        final CountDownLatch latch = new CountDownLatch(1);
+
+        resolver.resolve(recipeSource, toResolve).result().subscribe(
+            actual -> {
+                assertEquals(expected, actual);
+                latch.countDown();
+            }, error -> {
+                latch.countDown();
+            });
+
+        latch.await(5000L, TimeUnit.MILLISECONDS);
+    }
+
+    @Test
+    public void resolveConflict() throws Exception {
+
+        // The async resolver commits to the best choice for A before it looks at C
+        assumeTrue(engine != ResolverEngine.ASYNC);
+
+        final RecipeIdentifier a = RecipeIdentifier.of("org", "example-a");
+        final RecipeIdentifier b = RecipeIdentifier.of("org", "example-b");
+        final RecipeIdentifier c = RecipeIdentifier.of("org", "example-c");
+
+        final Recipe recipeA = Recipe.of(
+            "Example A",
+            "https://github.com/org/example-a",
+            ImmutableMap.of(
+                SemanticVersion.of(1),
+                recipeVersion("aa01f", DependencyGroup.of(ImmutableMap.of(
+                    b, BoundedSemanticVersion.atMost(SemanticVersion.of(1))))),
+                SemanticVersion.of(2),
+                recipeVersion("aa02f", DependencyGroup.of(ImmutableMap.of(
+                    b, BoundedSemanticVersion.atLeast(SemanticVersion.of(2)))))));
+
+        final Recipe recipeB = Recipe.of(
+            "Example B",
+            "https://github.com/org/example-b",
+            ImmutableMap.of(
+                SemanticVersion.of(1), recipeVersion("bb01f", DependencyGroup.of()),
+                SemanticVersion.of(2), recipeVersion("bb02f", DependencyGroup.of())));
+
+        final Recipe recipeC = Recipe.of(
+            "Example C",
+            "https://github.com/org/example-c",
+            ImmutableMap.of(
+                SemanticVersion.of(1),
+                recipeVersion("cc01f", DependencyGroup.of(ImmutableMap.of(
+                    b, BoundedSemanticVersion.atMost(SemanticVersion.of(1)))))));
+
+        final RecipeSource recipeSource = recipeSource(ImmutableMap.of(a, recipeA, b, recipeB, c, recipeC));
+
+        final ImmutableList<Dependency> toResolve = ImmutableList.of(
+            Dependency.of(a, AnySemanticVersion.of()),
+            Dependency.of(c, AnySemanticVersion.of()));
+
+        final ResolvedDependencies expected = ResolvedDependencies.of(ImmutableMap.of(
+            a, Pair.with(SemanticVersion.of(1), recipeA.versions.get(SemanticVersion.of(1))),
+            b, Pair.with(SemanticVersion.of(1), recipeB.versions.get(SemanticVersion.of(1))),
+            c, Pair.with(SemanticVersion.of(1), recipeC.versions.get(SemanticVersion.of(1)))));
+
+        assertEquals(expected, resolver.resolve(recipeSource, toResolve).result().blockingGet());
+    }
+
+    @Test
+    public void resolveUnsatisfiable() throws Exception {
+
+        final RecipeIdentifier a = RecipeIdentifier.of("org", "example-a");
+        final RecipeIdentifier b = RecipeIdentifier.of("org", "example-b");
+        final RecipeIdentifier c = RecipeIdentifier.of("org", "example-c");
+
+        final Recipe recipeA = Recipe.of(
+            "Example A",
+            "https://github.com/org/example-a",
+            ImmutableMap.of(
+                SemanticVersion.of(1),
+                recipeVersion("aa01f", DependencyGroup.of(ImmutableMap.of(
+                    b, BoundedSemanticVersion.atLeast(SemanticVersion.of(2)))))));
+
+        final Recipe recipeB = Recipe.of(
+            "Example B",
+            "https://github.com/org/example-b",
+            ImmutableMap.of(
+                SemanticVersion.of(1), recipeVersion("bb01f", DependencyGroup.of()),
+                SemanticVersion.of(2), recipeVersion("bb02f", DependencyGroup.of())));
+
+        final Recipe recipeC = Recipe.of(
+            "Example C",
+            "https://github.com/org/example-c",
+            ImmutableMap.of(
+                SemanticVersion.of(1),
+                recipeVersion("cc01f", DependencyGroup.of(ImmutableMap.of(
+                    b, BoundedSemanticVersion.atMost(SemanticVersion.of(1)))))));
+
+        final RecipeSource recipeSource = recipeSource(ImmutableMap.of(a, recipeA, b, recipeB, c, recipeC));
+
+        final ImmutableList<Dependency> toResolve = ImmutableList.of(
+            Dependency.of(a, AnySemanticVersion.of()),
+            Dependency.of(c, AnySemanticVersion.of()));
+
+        final Either<Throwable, ResolvedDependencies> actual = resolver.resolve(recipeSource, toResolve)
+            .result()
+            .map(Either::<Throwable, ResolvedDependencies>right)
+            .onErrorReturn(Either::left)
+            .blockingGet();
+
+        assertTrue(actual.left().orElse(null) instanceof DependencyResolutionException);
+    }
+
+    @Test
+    public void resolveUnsatisfiableWithoutFetching() throws Exception {
+
+        final RecipeIdentifier a = RecipeIdentifier.of("org", "example-a");
+        final RecipeIdentifier x = RecipeIdentifier.of("org", "example-x");
+        final RecipeIdentifier y = RecipeIdentifier.of("org", "example-y");
+
+        final Recipe recipeA = Recipe.of(
+            "Example A",
+            "https://github.com/org/example-a",
+            ImmutableMap.of(
+                SemanticVersion.of(1),
+                recipeVersion("aa01f", DependencyGroup.of(ImmutableMap.of(
+                    y, AnySemanticVersion.of(),
+                    x, BoundedSemanticVersion.atLeast(SemanticVersion.of(2)))))));
+
+        final Recipe recipeX = Recipe.of(
+            "Example X",
+            "https://github.com/org/example-x",
+            ImmutableMap.of(
+                SemanticVersion.of(1), recipeVersion("xx01f", DependencyGroup.of()),
+                SemanticVersion.of(2), recipeVersion("xx02f", DependencyGroup.of())));
+
+        final Recipe recipeY = Recipe.of(
+            "Example Y",
+            "https://github.com/org/example-y",
+            ImmutableMap.of(
+                SemanticVersion.of(1),
+                recipeVersion("yy01f", DependencyGroup.of(ImmutableMap.of(
+                    x, BoundedSemanticVersion.atMost(SemanticVersion.of(1)))))));
+
+        final List<RecipeIdentifier> fetched = Collections.synchronizedList(new ArrayList<>());
+
+        final RecipeSource recipeSource = recipeIdentifier -> {
+            fetched.add(recipeIdentifier);
+            return recipeSource(ImmutableMap.of(a, recipeA, x, recipeX, y, recipeY)).fetch(recipeIdentifier);
+        };
+
+        final Either<Throwable, ResolvedDependencies> actual = resolver.resolve(
+            recipeSource,
+            ImmutableList.of(Dependency.of(a, AnySemanticVersion.of())))
+            .result()
+            .map(Either::<Throwable, ResolvedDependencies>right)
+            .onErrorReturn(Either::left)
+            .blockingGet();
+
+        // X can never satisfy both >=2 and <=1, so there is no need to fetch it
+        assertTrue(actual.left().orElse(null) instanceof DependencyResolutionException);
+        assertFalse(fetched.contains(x));
+    }
+
+    @Test
+    public void resolveFromLocksOnlyFetchesChanges() throws Exception {
+
+        final RecipeIdentifier a = RecipeIdentifier.of("org", "example-a");
+        final RecipeIdentifier b = RecipeIdentifier.of("org", "example-b");
+        final RecipeIdentifier c = RecipeIdentifier.of("org", "example-c");
+
+        final Recipe recipeC = Recipe.of(
+            "Example C",
+            "https://github.com/org/example-c",
+            ImmutableMap.of(SemanticVersion.of(1), recipeVersion("cc01f", DependencyGroup.of())));
+
+        final DependencyLocks locks = DependencyLocks.of(ImmutableMap.of(
+            a, ResolvedDependency.of(
+                Either.left(GitCommit.of("https://github.com/org/example-a/commit", "aa01f")),
+                Optional.empty(),
+                Optional.empty(),
+                ImmutableList.of(ResolvedDependencyReference.of(b)),
+                Optional.of(SemanticVersion.of(1))),
+            b, ResolvedDependency.of(
+                Either.left(GitCommit.of("https://github.com/org/example-b/commit", "bb01f")),
+                Optional.empty(),
+                Optional.empty(),
+                ImmutableList.of(),
+                Optional.of(SemanticVersion.of(1)))));
+
+        final List<RecipeIdentifier> fetched = Collections.synchronizedList(new ArrayList<>());
+
+        final RecipeSource recipeSource = recipeIdentifier -> {
+            fetched.add(recipeIdentifier);
+            return recipeSource(ImmutableMap.of(c, recipeC)).fetch(recipeIdentifier);
+        };
+
+        final ImmutableList<Dependency> toResolve = ImmutableList.of(
+            Dependency.of(a, AnySemanticVersion.of()),
+            Dependency.of(c, AnySemanticVersion.of()));
+
+        final ResolvedDependencies actual = resolver.resolve(recipeSource, locks, toResolve).result().blockingGet();
+
+        assertEquals(ImmutableList.of(c), ImmutableList.copyOf(fetched));
+        assertEquals(ImmutableSet.of(a, b, c), actual.dependencies.keySet());
+        assertEquals(locks.locks.get(a), DependencyLocks.of(actual).locks.get(a));
+    }
+
+    // TODO: Re-enable this test once the resolver does not use recursion.
+
+//    private static Recipe createRecipeForResolveDeepTransitive(final int depth) throws Exception {
+//        return Recipe.of(
+//            "Example " + depth,
+//            "https://github.com/org/example-" + depth,
+//            ImmutableMap.of(
+//                SemanticVersion.of(1),
+//                RecipeVersion.of(
+//                    RemoteArchive.of(
+//                        new URL("https://github.com/org/example-" + depth + ".zip"),
+//                        Hash.sha256("example" + depth)),
+//                    Optional.empty(),
+//                    DependencyGroup.of(depth > 0 ?
+//                        ImmutableMap.of(
+//                            RecipeIdentifier.of("org", "example-" + (depth - 1)), AnySemanticVersion.of()) :
+//                        ImmutableMap.of()),
+//                    Optional.empty())));
+//    }
+//
+//    @Test
+//    public void resolveDeepTransitive() throws Exception {
+//
+//        final RecipeSource recipeSource = recipeIdentifier -> {
+//            try {
+//                int index = Integer.parseInt(recipeIdentifier.recipe.name.split("-")[1]);
+//                return Process.just(createRecipeForResolveDeepTransitive(index));
+//            } catch (final Throwable e){
+//                return Process.error(new FetchRecipeException("Could not find " + recipeIdentifier.encode() + ". "));
+//            }
+//        };
+//
+//        final CountDownLatch latch = new CountDownLatch(1);
+//
+//        final int depth = 256; // 85
+//
+//        final ImmutableList<Dependency> toResolve = ImmutableList.of(
+//            Dependency.of(RecipeIdentifier.of("org", "example-" + depth), AnySemanticVersion.of()));
+//
+//        resolver.resolve(recipeSource, toResolve).toObservable()
+//            .subscribe(next -> {
+//
+//            }, error -> {
+//                latch.countDown();
+//            }, () -> {
+//                latch.countDown();
+//            });
+//
+//        latch.await(5000L, TimeUnit.MILLISECONDS);
+//    }
+}
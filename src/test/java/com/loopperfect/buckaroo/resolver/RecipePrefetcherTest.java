@@ -0,0 +1,77 @@
+package com.loopperfect.buckaroo.resolver;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.loopperfect.buckaroo.*;
+import com.loopperfect.buckaroo.Process;
+import com.loopperfect.buckaroo.versioning.AnySemanticVersion;
+import com.loopperfect.buckaroo.versioning.ExactSemanticVersion;
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.junit.Assert.assertEquals;
+
+public final class RecipePrefetcherTest {
+
+    private static Recipe recipe(final String name, final ImmutableMap<SemanticVersion, DependencyGroup> versions) {
+        return Recipe.of(
+            name,
+            "https://github.com/org/" + name,
+            versions.entrySet()
+                .stream()
+                .collect(ImmutableMap.toImmutableMap(
+                    Map.Entry::getKey,
+                    x -> RecipeVersion.of(
+                        GitCommit.of("https://github.com/org/" + name + "/commit", "c7355d5"),
+                        Optional.empty(),
+                        x.getValue(),
+                        Optional.empty()))));
+    }
+
+    @Test
+    public void prefetchCrawlsCandidateVersions() throws Exception {
+
+        final RecipeIdentifier a = RecipeIdentifier.of("org", "example-a");
+        final RecipeIdentifier b = RecipeIdentifier.of("org", "example-b");
+        final RecipeIdentifier c = RecipeIdentifier.of("org", "example-c");
+        final RecipeIdentifier d = RecipeIdentifier.of("org", "example-d");
+        final RecipeIdentifier missing = RecipeIdentifier.of("org", "missing");
+
+        final ImmutableMap<RecipeIdentifier, Recipe> recipes = ImmutableMap.of(
+            a, recipe("example-a", ImmutableMap.of(
+                SemanticVersion.of(1), DependencyGroup.of(ImmutableMap.of(b, AnySemanticVersion.of())),
+                SemanticVersion.of(2), DependencyGroup.of(ImmutableMap.of(
+                    c, AnySemanticVersion.of(),
+                    missing, AnySemanticVersion.of())))),
+            b, recipe("example-b", ImmutableMap.of(
+                SemanticVersion.of(1), DependencyGroup.of(ImmutableMap.of(c, AnySemanticVersion.of())),
+                SemanticVersion.of(2), DependencyGroup.of(ImmutableMap.of(d, AnySemanticVersion.of())))),
+            c, recipe("example-c", ImmutableMap.of(SemanticVersion.of(1), DependencyGroup.of())),
+            d, recipe("example-d", ImmutableMap.of(SemanticVersion.of(1), DependencyGroup.of())));
+
+        final List<RecipeIdentifier> fetched = Collections.synchronizedList(new ArrayList<>());
+
+        final RecipeSource recipeSource = identifier -> {
+            fetched.add(identifier);
+            return recipes.containsKey(identifier) ?
+                Process.just(recipes.get(identifier)) :
+                Process.error(new FetchRecipeException("Could not find " + identifier.encode() + ". "));
+        };
+
+        // Version 2 of B is not a candidate, so D should never be fetched
+        final ImmutableList<Dependency> dependencies = ImmutableList.of(
+            Dependency.of(a, AnySemanticVersion.of()),
+            Dependency.of(b, ExactSemanticVersion.of(SemanticVersion.of(1))));
+
+        final Process<Event, Integer> prefetch = RecipePrefetcher.prefetch(recipeSource, dependencies);
+
+        final List<Either<Event, Integer>> events = prefetch.toObservable().toList().blockingGet();
+
+        assertEquals(ImmutableSet.of(a, b, c, missing), ImmutableSet.copyOf(fetched));
+        assertEquals(4, fetched.size());
+        assertEquals(Either.right(3), events.get(events.size() - 1));
+        assertEquals(Either.left(PrefetchProgressEvent.of(3, 4)), events.get(events.size() - 2));
+    }
+}
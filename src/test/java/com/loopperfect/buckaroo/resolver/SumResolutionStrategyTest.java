@@ -0,0 +1,75 @@
+package com.loopperfect.buckaroo.resolver;
+
+import com.google.common.collect.ImmutableMap;
+import com.loopperfect.buckaroo.*;
+import com.loopperfect.buckaroo.versioning.AnySemanticVersion;
+import com.loopperfect.buckaroo.versioning.ExactSemanticVersion;
+import org.javatuples.Pair;
+import org.junit.Test;
+
+import java.util.Optional;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public final class SumResolutionStrategyTest {
+
+    private static RecipeVersion recipeVersion(final String commit, final DependencyGroup dependencies) {
+        return RecipeVersion.of(
+            GitCommit.of("https://github.com/org/example/commit", commit),
+            Optional.empty(),
+            dependencies,
+            Optional.empty());
+    }
+
+    @Test
+    public void incrementalScoreMatchesScore() throws Exception {
+
+        final ResolutionStrategy strategy = SumResolutionStrategy.of();
+
+        final RecipeIdentifier a = RecipeIdentifier.of("org", "example-a");
+        final RecipeIdentifier b = RecipeIdentifier.of("org", "example-b");
+
+        final Pair<SemanticVersion, RecipeVersion> versionA = Pair.with(
+            SemanticVersion.of(1, 2, 3),
+            recipeVersion("aa01f", DependencyGroup.of(ImmutableMap.of(b, AnySemanticVersion.of()))));
+
+        final Pair<SemanticVersion, RecipeVersion> versionB = Pair.with(
+            SemanticVersion.of(4, 5),
+            recipeVersion("bb01f", DependencyGroup.of()));
+
+        final ResolvedDependencies empty = ResolvedDependencies.of();
+        final int scoreA = strategy.score(strategy.score(empty), empty, a, versionA);
+        final ResolvedDependencies withA = empty.add(a, versionA);
+        final int scoreB = strategy.score(scoreA, withA, b, versionB);
+        final ResolvedDependencies withB = withA.add(b, versionB);
+
+        assertEquals(strategy.score(withA), scoreA);
+        assertEquals(strategy.score(withB), scoreB);
+
+        // B has not been explored yet, so there is no telling what it adds
+        assertEquals(Integer.MAX_VALUE, strategy.upperBound(withA, scoreA));
+        assertEquals(scoreB, strategy.upperBound(withB, scoreB));
+    }
+
+    @Test
+    public void upperBoundRulesOutConflicts() throws Exception {
+
+        final ResolutionStrategy strategy = SumResolutionStrategy.of();
+
+        final RecipeIdentifier a = RecipeIdentifier.of("org", "example-a");
+        final RecipeIdentifier b = RecipeIdentifier.of("org", "example-b");
+
+        final ResolvedDependencies withA = ResolvedDependencies.of().add(a, Pair.with(
+            SemanticVersion.of(1),
+            recipeVersion("aa01f", DependencyGroup.of(ImmutableMap.of(b, ExactSemanticVersion.of(SemanticVersion.of(1)))))));
+
+        // A only accepts B@1, so choosing B@2 can never be completed
+        final ResolvedDependencies conflicting = withA.add(b, Pair.with(
+            SemanticVersion.of(2),
+            recipeVersion("bb02f", DependencyGroup.of())));
+
+        assertFalse(conflicting.isConsistent());
+        assertEquals(Integer.MIN_VALUE, strategy.upperBound(conflicting, strategy.score(conflicting)));
+    }
+}
@@ -6,10 +6,14 @@ import com.loopperfect.buckaroo.BuckarooConfig;
 import com.loopperfect.buckaroo.Either;
 import com.loopperfect.buckaroo.Identifier;
 import com.loopperfect.buckaroo.RemoteCookbook;
+import com.loopperfect.buckaroo.resolver.ResolutionPreference;
+import com.loopperfect.buckaroo.resolver.ResolverEngine;
 import org.junit.Test;
 
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.time.Duration;
+import java.util.Optional;
 
 import static org.junit.Assert.assertEquals;
 
@@ -39,4 +43,84 @@ public final class BuckarooConfigSerializerTest {
             Serializers.parseConfig(serializedConfig);
         assertEquals(Either.right(config), deserializedConfig);
     }
+
+    @Test
+    public void testBuckarooConfigSerializer3() {
+        final BuckarooConfig config = BuckarooConfig.of(ImmutableList.of(
+            RemoteCookbook.of(
+                Identifier.of("cookbook"),
+                "git@github.com:njlr/buckaroo-organizations-test.git")),
+            Optional.empty(),
+            Optional.of(ResolverEngine.CONFLICT_DRIVEN));
+        final String serializedConfig = Serializers.serialize(config);
+        final Either<JsonParseException, BuckarooConfig> deserializedConfig =
+            Serializers.parseConfig(serializedConfig);
+        assertEquals(Either.right(config), deserializedConfig);
+    }
+
+    @Test
+    public void testBuckarooConfigSerializer4() {
+        final BuckarooConfig config = BuckarooConfig.of(ImmutableList.of(
+            RemoteCookbook.of(
+                Identifier.of("cookbook"),
+                "git@github.com:njlr/buckaroo-organizations-test.git")),
+            Optional.empty(),
+            Optional.of(ResolverEngine.GREEDY),
+            Optional.of(ResolutionPreference.CACHED));
+        final String serializedConfig = Serializers.serialize(config);
+        final Either<JsonParseException, BuckarooConfig> deserializedConfig =
+            Serializers.parseConfig(serializedConfig);
+        assertEquals(Either.right(config), deserializedConfig);
+    }
+
+    @Test
+    public void testBuckarooConfigSerializer5() {
+        final BuckarooConfig config = BuckarooConfig.of(ImmutableList.of(
+            RemoteCookbook.of(
+                Identifier.of("cookbook"),
+                "git@github.com:njlr/buckaroo-organizations-test.git")),
+            Optional.empty(),
+            Optional.empty(),
+            Optional.empty(),
+            Optional.of(Duration.ofMinutes(10)));
+        final String serializedConfig = Serializers.serialize(config);
+        final Either<JsonParseException, BuckarooConfig> deserializedConfig =
+            Serializers.parseConfig(serializedConfig);
+        assertEquals(Either.right(config), deserializedConfig);
+    }
+
+    @Test
+    public void testBuckarooConfigSerializer6() {
+        final BuckarooConfig config = BuckarooConfig.of(ImmutableList.of(
+            RemoteCookbook.of(
+                Identifier.of("cookbook"),
+                "git@github.com:njlr/buckaroo-organizations-test.git")),
+            Optional.empty(),
+            Optional.empty(),
+            Optional.empty(),
+            Optional.empty(),
+            Optional.of(3));
+        final String serializedConfig = Serializers.serialize(config);
+        final Either<JsonParseException, BuckarooConfig> deserializedConfig =
+            Serializers.parseConfig(serializedConfig);
+        assertEquals(Either.right(config), deserializedConfig);
+    }
+
+    @Test
+    public void testBuckarooConfigSerializer7() {
+        final BuckarooConfig config = BuckarooConfig.of(ImmutableList.of(
+            RemoteCookbook.of(
+                Identifier.of("cookbook"),
+                "git@github.com:njlr/buckaroo-organizations-test.git")),
+            Optional.empty(),
+            Optional.empty(),
+            Optional.empty(),
+            Optional.empty(),
+            Optional.empty(),
+            Optional.of(8));
+        final String serializedConfig = Serializers.serialize(config);
+        final Either<JsonParseException, BuckarooConfig> deserializedConfig =
+            Serializers.parseConfig(serializedConfig);
+        assertEquals(Either.right(config), deserializedConfig);
+    }
 }
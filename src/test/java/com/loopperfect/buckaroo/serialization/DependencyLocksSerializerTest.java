@@ -60,4 +60,17 @@ public final class DependencyLocksSerializerTest {
                 Either.left(GitCommit.of("https://github.com/org/project/commit", "b0215d5")),
                 ImmutableList.of()))));
     }
+
+    @Test
+    public void test4() throws Exception {
+
+        serializeDeserialize(DependencyLocks.of(ImmutableMap.of(
+            RecipeIdentifier.of("org", "project"),
+            ResolvedDependency.of(
+                Either.left(GitCommit.of("https://github.com/org/project/commit", "b0215d5")),
+                Optional.empty(),
+                Optional.empty(),
+                ImmutableList.of(),
+                Optional.of(SemanticVersion.of(1, 2, 3))))));
+    }
 }
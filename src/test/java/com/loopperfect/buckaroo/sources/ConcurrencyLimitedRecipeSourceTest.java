@@ -0,0 +1,84 @@
+package com.loopperfect.buckaroo.sources;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.loopperfect.buckaroo.*;
+import com.loopperfect.buckaroo.Process;
+import io.reactivex.Observable;
+import io.reactivex.Single;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public final class ConcurrencyLimitedRecipeSourceTest {
+
+    private static final Recipe example = Recipe.of(
+        "example",
+        "https://github.com/org/example",
+        ImmutableMap.of(
+            SemanticVersion.of(1),
+            RecipeVersion.of(
+                GitCommit.of("https://github.com/org/example/commit", "b4515d5"),
+                Optional.empty(),
+                DependencyGroup.of(),
+                Optional.empty())));
+
+    private static RecipeSource slowSource(final AtomicInteger started, final AtomicInteger inFlight, final AtomicInteger maxInFlight) {
+        return identifier -> Process.of(Single.timer(20L, TimeUnit.MILLISECONDS)
+            .map(ignored -> example)
+            .doOnSubscribe(ignored -> {
+                started.incrementAndGet();
+                maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            })
+            .doOnEvent((x, error) -> inFlight.decrementAndGet()));
+    }
+
+    @Test
+    public void fetchesAtMostTheLimitAtOnce() throws Exception {
+
+        final AtomicInteger started = new AtomicInteger();
+        final AtomicInteger inFlight = new AtomicInteger();
+        final AtomicInteger maxInFlight = new AtomicInteger();
+
+        final RecipeSource recipeSource = ConcurrencyLimitedRecipeSource.of(slowSource(started, inFlight, maxInFlight), 3);
+
+        final List<Recipe> recipes = Observable.range(0, 10)
+            .flatMapSingle(i -> recipeSource.fetch(RecipeIdentifier.of("org", "example-" + i)).result())
+            .toList()
+            .blockingGet();
+
+        assertEquals(10, recipes.size());
+        assertEquals(10, started.get());
+        assertEquals(3, maxInFlight.get());
+    }
+
+    @Test
+    public void disposedFetchesNeverStart() throws Exception {
+
+        final AtomicInteger started = new AtomicInteger();
+        final AtomicInteger inFlight = new AtomicInteger();
+        final AtomicInteger maxInFlight = new AtomicInteger();
+
+        final RecipeSource recipeSource = ConcurrencyLimitedRecipeSource.of(slowSource(started, inFlight, maxInFlight), 1);
+
+        // The first fetch holds the only slot, so the second has to wait
+        final Single<Recipe> first = recipeSource.fetch(RecipeIdentifier.of("org", "example-a")).result().cache();
+        first.subscribe();
+
+        recipeSource.fetch(RecipeIdentifier.of("org", "example-b")).toObservable().subscribe().dispose();
+
+        final Recipe last = recipeSource.fetch(RecipeIdentifier.of("org", "example-c")).result().blockingGet();
+
+        final List<Recipe> recipes = ImmutableList.of(first.blockingGet(), last);
+
+        assertEquals(2, recipes.size());
+        assertEquals(2, started.get());
+        assertTrue(maxInFlight.get() <= 1);
+    }
+}
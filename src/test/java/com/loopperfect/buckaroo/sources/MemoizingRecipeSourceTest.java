@@ -0,0 +1,220 @@
+package com.loopperfect.buckaroo.sources;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.loopperfect.buckaroo.*;
+import com.loopperfect.buckaroo.Process;
+import com.loopperfect.buckaroo.versioning.AnySemanticVersion;
+import com.loopperfect.buckaroo.versioning.ExactSemanticVersion;
+import io.reactivex.Single;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public final class MemoizingRecipeSourceTest {
+
+    private static final Recipe example = Recipe.of(
+        "example",
+        "https://github.com/org/example",
+        ImmutableMap.of(
+            SemanticVersion.of(1),
+            RecipeVersion.of(
+                GitCommit.of("https://github.com/org/example/commit", "b4515d5"),
+                Optional.empty(),
+                DependencyGroup.of(),
+                Optional.empty())));
+
+    @Test
+    public void fetchesOncePerIdentifier() throws Exception {
+
+        final AtomicInteger count = new AtomicInteger(0);
+
+        final MemoizingRecipeSource recipeSource = MemoizingRecipeSource.of(identifier -> Process.of(
+            Single.fromCallable(() -> {
+                count.incrementAndGet();
+                return example;
+            })));
+
+        final RecipeIdentifier identifier = RecipeIdentifier.of("org", "example");
+
+        assertEquals(example, recipeSource.fetch(identifier).result().blockingGet());
+        assertEquals(example, recipeSource.fetch(identifier).result().blockingGet());
+        assertEquals(example, recipeSource.fetch(identifier).result().blockingGet());
+
+        assertEquals(1, count.get());
+        assertEquals(1L, recipeSource.misses());
+        assertEquals(2L, recipeSource.hits());
+    }
+
+    @Test
+    public void sharesInFlightFetches() throws Exception {
+
+        final AtomicInteger count = new AtomicInteger(0);
+
+        final MemoizingRecipeSource recipeSource = MemoizingRecipeSource.of(identifier -> Process.of(
+            Single.fromCallable(() -> {
+                count.incrementAndGet();
+                return example;
+            }).delay(100L, TimeUnit.MILLISECONDS)));
+
+        final RecipeIdentifier identifier = RecipeIdentifier.of("org", "example");
+
+        final Single<Recipe> a = recipeSource.fetch(identifier).result();
+        final Single<Recipe> b = recipeSource.fetch(identifier).result();
+
+        assertEquals(
+            example,
+            Single.zip(a, b, (x, y) -> {
+                assertEquals(x, y);
+                return x;
+            }).blockingGet());
+
+        assertEquals(1, count.get());
+    }
+
+    @Test
+    public void retriesAfterAnError() throws Exception {
+
+        final AtomicInteger count = new AtomicInteger(0);
+
+        final MemoizingRecipeSource recipeSource = MemoizingRecipeSource.of(identifier -> Process.of(
+            Single.fromCallable(() -> {
+                if (count.incrementAndGet() == 1) {
+                    throw new IOException("Flaky! ");
+                }
+                return example;
+            })));
+
+        final RecipeIdentifier identifier = RecipeIdentifier.of("org", "example");
+
+        recipeSource.fetch(identifier).result().onErrorReturnItem(example).blockingGet();
+
+        assertEquals(example, recipeSource.fetch(identifier).result().blockingGet());
+        assertEquals(2, count.get());
+    }
+
+    @Test
+    public void fetchAllBatchesUnknownRecipes() throws Exception {
+
+        final RecipeIdentifier a = RecipeIdentifier.of("org", "example-a");
+        final RecipeIdentifier b = RecipeIdentifier.of("org", "example-b");
+        final RecipeIdentifier missing = RecipeIdentifier.of("org", "missing");
+
+        final List<RecipeIdentifier> fetched = Collections.synchronizedList(new ArrayList<>());
+        final List<ImmutableSet<RecipeIdentifier>> batches = Collections.synchronizedList(new ArrayList<>());
+
+        final MemoizingRecipeSource recipeSource = MemoizingRecipeSource.of(new RecipeSource() {
+
+            @Override
+            public Process<Event, Recipe> fetch(final RecipeIdentifier identifier) {
+                fetched.add(identifier);
+                return identifier.equals(missing) ?
+                    Process.error(new IOException("Could not find " + identifier.encode())) :
+                    Process.just(example);
+            }
+
+            @Override
+            public Process<Event, ImmutableMap<RecipeIdentifier, Either<Throwable, Recipe>>> fetchAll(
+                final ImmutableMap<RecipeIdentifier, SemanticVersionRequirement> requirements) {
+                batches.add(requirements.keySet());
+                return RecipeSource.super.fetchAll(requirements);
+            }
+        });
+
+        assertEquals(example, recipeSource.fetch(a).result().blockingGet());
+
+        final ImmutableMap<RecipeIdentifier, Either<Throwable, Recipe>> recipes =
+            recipeSource.fetchAll(ImmutableList.of(a, b, missing)).result().blockingGet();
+
+        assertEquals(ImmutableSet.of(a, b, missing), recipes.keySet());
+        assertEquals(Either.right(example), recipes.get(a));
+        assertEquals(Either.right(example), recipes.get(b));
+        assertTrue(recipes.get(missing).isLeft());
+
+        // Only the unknown recipes are sent to the underlying source
+        assertEquals(ImmutableList.of(ImmutableSet.of(b, missing)), batches);
+
+        // B is remembered, but the failure is not
+        assertEquals(example, recipeSource.fetch(b).result().blockingGet());
+        recipeSource.fetch(missing).result().onErrorReturnItem(example).blockingGet();
+
+        assertEquals(ImmutableList.of(a, b, missing, missing), ImmutableList.sortedCopyOf(
+            Comparator.comparing(RecipeIdentifier::encode), fetched));
+    }
+
+    @Test
+    public void wholeRecipesCoverEveryRequirement() throws Exception {
+
+        final List<SemanticVersionRequirement> fetched = Collections.synchronizedList(new ArrayList<>());
+
+        final MemoizingRecipeSource recipeSource = MemoizingRecipeSource.of(new RecipeSource() {
+
+            @Override
+            public Process<Event, Recipe> fetch(final RecipeIdentifier identifier) {
+                return fetch(identifier, AnySemanticVersion.of());
+            }
+
+            @Override
+            public Process<Event, Recipe> fetch(final RecipeIdentifier identifier, final SemanticVersionRequirement requirement) {
+                fetched.add(requirement);
+                return Process.just(example);
+            }
+        });
+
+        final RecipeIdentifier identifier = RecipeIdentifier.of("org", "example");
+        final SemanticVersionRequirement one = ExactSemanticVersion.of(SemanticVersion.of(1));
+        final SemanticVersionRequirement two = ExactSemanticVersion.of(SemanticVersion.of(2));
+
+        recipeSource.fetch(identifier, one).result().blockingGet();
+        recipeSource.fetch(identifier, one).result().blockingGet();
+        recipeSource.fetch(identifier).result().blockingGet();
+        recipeSource.fetch(identifier, two).result().blockingGet();
+
+        assertEquals(ImmutableList.of(one, AnySemanticVersion.of()), ImmutableList.copyOf(fetched));
+        assertEquals(2L, recipeSource.misses());
+        assertEquals(2L, recipeSource.hits());
+    }
+
+    @Test
+    public void fetchesWholeRecipesOncePerIdentifier() throws Exception {
+
+        final AtomicInteger count = new AtomicInteger(0);
+
+        final MemoizingRecipeSource recipeSource = MemoizingRecipeSource.of(new RecipeSource() {
+
+            @Override
+            public Process<Event, Recipe> fetch(final RecipeIdentifier identifier) {
+                return Process.of(Single.fromCallable(() -> {
+                    count.incrementAndGet();
+                    return example;
+                }));
+            }
+
+            @Override
+            public boolean fetchesWholeRecipes(final RecipeIdentifier identifier) {
+                return true;
+            }
+        });
+
+        final RecipeIdentifier identifier = RecipeIdentifier.of("org", "example");
+
+        recipeSource.fetch(identifier, ExactSemanticVersion.of(SemanticVersion.of(1))).result().blockingGet();
+        recipeSource.fetch(identifier, ExactSemanticVersion.of(SemanticVersion.of(2))).result().blockingGet();
+        recipeSource.fetch(identifier, AnySemanticVersion.of()).result().blockingGet();
+        recipeSource.fetchAll(ImmutableMap.of(identifier, ExactSemanticVersion.of(SemanticVersion.of(3))))
+            .result()
+            .blockingGet();
+
+        assertEquals(1, count.get());
+        assertEquals(1L, recipeSource.misses());
+        assertEquals(3L, recipeSource.hits());
+        assertEquals(RecipeFetchStatisticsEvent.of(3L, 1L), recipeSource.statistics());
+    }
+}
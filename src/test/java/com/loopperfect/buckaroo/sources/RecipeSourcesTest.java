@@ -0,0 +1,60 @@
+package com.loopperfect.buckaroo.sources;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.hash.HashCode;
+import com.loopperfect.buckaroo.*;
+import com.loopperfect.buckaroo.Process;
+import org.javatuples.Pair;
+import org.junit.Test;
+
+import java.net.URL;
+import java.util.Optional;
+
+import static org.junit.Assert.assertEquals;
+
+public final class RecipeSourcesTest {
+
+    @Test
+    public void pinReplacesEveryVersion() throws Exception {
+
+        final RecipeIdentifier a = RecipeIdentifier.of("org", "example-a");
+        final RecipeIdentifier b = RecipeIdentifier.of("org", "example-b");
+
+        final RecipeVersion unpinned = RecipeVersion.of(
+            GitCommit.of("https://github.com/org/example.git", "c7355d5"),
+            Optional.of("example"),
+            DependencyGroup.of(),
+            Optional.empty());
+
+        final RecipeVersion pinned = RecipeVersion.of(
+            RemoteArchive.of(
+                new URL("https://github.com/org/example/archive/c7355d5.zip"),
+                HashCode.fromString("aaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaa")),
+            Optional.of("example"),
+            DependencyGroup.of(),
+            Optional.empty());
+
+        final RecipeSource recipeSource = new RecipeSource() {
+
+            @Override
+            public Process<Event, Recipe> fetch(final RecipeIdentifier identifier) {
+                return Process.error(new FetchRecipeException("Not expected to fetch. "));
+            }
+
+            @Override
+            public Process<Event, RecipeVersion> pin(final RecipeIdentifier identifier, final RecipeVersion recipeVersion) {
+                return Process.just(recipeVersion.equals(unpinned) ? pinned : recipeVersion);
+            }
+        };
+
+        final ResolvedDependencies resolved = ResolvedDependencies.of(ImmutableMap.of(
+            a, Pair.with(SemanticVersion.of(1), unpinned),
+            b, Pair.with(SemanticVersion.of(2), pinned)));
+
+        final ResolvedDependencies expected = ResolvedDependencies.of(ImmutableMap.of(
+            a, Pair.with(SemanticVersion.of(1), pinned),
+            b, Pair.with(SemanticVersion.of(2), pinned)));
+
+        assertEquals(expected, RecipeSources.pin(recipeSource, resolved).result().blockingGet());
+    }
+}
@@ -0,0 +1,73 @@
+package com.loopperfect.buckaroo.sources;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.loopperfect.buckaroo.*;
+import com.loopperfect.buckaroo.Process;
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public final class RoutedRecipeSourceTest {
+
+    private static Recipe recipe(final String name) {
+        return Recipe.of(
+            name,
+            "https://github.com/org/" + name,
+            ImmutableMap.of(
+                SemanticVersion.of(1),
+                RecipeVersion.of(
+                    GitCommit.of("https://github.com/org/" + name + "/commit", "b4515d5"),
+                    Optional.empty(),
+                    DependencyGroup.of(),
+                    Optional.empty())));
+    }
+
+    private static RecipeSource recording(final List<ImmutableSet<RecipeIdentifier>> batches) {
+        return new RecipeSource() {
+
+            @Override
+            public Process<Event, Recipe> fetch(final RecipeIdentifier identifier) {
+                return Process.just(recipe(identifier.recipe.name));
+            }
+
+            @Override
+            public Process<Event, ImmutableMap<RecipeIdentifier, Either<Throwable, Recipe>>> fetchAll(
+                final ImmutableMap<RecipeIdentifier, SemanticVersionRequirement> requirements) {
+                batches.add(requirements.keySet());
+                return RecipeSource.super.fetchAll(requirements);
+            }
+        };
+    }
+
+    @Test
+    public void fetchAllSendsOneBatchPerRoute() throws Exception {
+
+        final List<ImmutableSet<RecipeIdentifier>> github = Collections.synchronizedList(new ArrayList<>());
+        final List<ImmutableSet<RecipeIdentifier>> cookbook = Collections.synchronizedList(new ArrayList<>());
+
+        final RecipeSource recipeSource = RoutedRecipeSource.of(
+            ImmutableMap.of(Identifier.of("github"), recording(github)),
+            recording(cookbook));
+
+        final RecipeIdentifier a = RecipeIdentifier.of("github", "org", "example-a");
+        final RecipeIdentifier b = RecipeIdentifier.of("github", "org", "example-b");
+        final RecipeIdentifier c = RecipeIdentifier.of("org", "example-c");
+        final RecipeIdentifier unrouted = RecipeIdentifier.of("bitbucket", "org", "example-d");
+
+        final ImmutableMap<RecipeIdentifier, Either<Throwable, Recipe>> recipes =
+            recipeSource.fetchAll(ImmutableList.of(a, b, c, unrouted)).result().blockingGet();
+
+        assertEquals(ImmutableList.of(ImmutableSet.of(a, b)), github);
+        assertEquals(ImmutableList.of(ImmutableSet.of(c)), cookbook);
+
+        assertEquals(ImmutableSet.of(a, b, c, unrouted), recipes.keySet());
+        assertEquals(Either.right(recipe("example-a")), recipes.get(a));
+        assertEquals(Either.right(recipe("example-c")), recipes.get(c));
+        assertTrue(recipes.get(unrouted).isLeft());
+    }
+}
@@ -0,0 +1,257 @@
+package com.loopperfect.buckaroo.tasks;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+import com.google.common.io.MoreFiles;
+import com.google.common.io.RecursiveDeleteOption;
+import com.google.common.jimfs.Jimfs;
+import com.loopperfect.buckaroo.DependencyGroup;
+import com.loopperfect.buckaroo.DependencyLocks;
+import com.loopperfect.buckaroo.Either;
+import com.loopperfect.buckaroo.GitCommit;
+import com.loopperfect.buckaroo.HashMismatchException;
+import com.loopperfect.buckaroo.Identifier;
+import com.loopperfect.buckaroo.RecipeIdentifier;
+import com.loopperfect.buckaroo.RemoteFile;
+import com.loopperfect.buckaroo.ResolvedDependency;
+import com.loopperfect.buckaroo.SemanticVersion;
+import com.loopperfect.buckaroo.versioning.AnySemanticVersion;
+import io.reactivex.Observable;
+import org.eclipse.jgit.api.Git;
+import org.junit.Test;
+
+import java.nio.file.FileSystem;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+public final class CacheTasksTest {
+
+    @Test
+    public void resolutionKeyRequiresCookbookCommits() throws Exception {
+
+        final Path cookbook = Files.createTempDirectory("buckaroo-cookbook");
+
+        try {
+            assertFalse(CacheTasks.getResolutionKey(DependencyGroup.of(), DependencyLocks.of(), ImmutableList.of(cookbook), "async")
+                .isPresent());
+        } finally {
+            MoreFiles.deleteRecursively(cookbook, RecursiveDeleteOption.ALLOW_INSECURE);
+        }
+    }
+
+    @Test
+    public void resolutionKeyExcludesGitHubDependencies() throws Exception {
+
+        final Path cookbook = Files.createTempDirectory("buckaroo-cookbook");
+
+        try (final Git git = Git.init().setDirectory(cookbook.toFile()).call()) {
+
+            git.commit().setMessage("Initial commit").call();
+
+            final DependencyGroup dependencies = DependencyGroup.of(ImmutableMap.of(
+                RecipeIdentifier.of(Optional.of(Identifier.of("github")), Identifier.of("org"), Identifier.of("example")),
+                AnySemanticVersion.of()));
+
+            assertFalse(CacheTasks.getResolutionKey(dependencies, DependencyLocks.of(), ImmutableList.of(cookbook), "async").isPresent());
+        } finally {
+            MoreFiles.deleteRecursively(cookbook, RecursiveDeleteOption.ALLOW_INSECURE);
+        }
+    }
+
+    @Test
+    public void resolutionKeyDependsOnInputs() throws Exception {
+
+        final Path cookbook = Files.createTempDirectory("buckaroo-cookbook");
+
+        try (final Git git = Git.init().setDirectory(cookbook.toFile()).call()) {
+
+            git.commit().setMessage("Initial commit").call();
+
+            final DependencyGroup a = DependencyGroup.of();
+            final DependencyGroup b = DependencyGroup.of(ImmutableMap.of(
+                RecipeIdentifier.of("org", "example"), AnySemanticVersion.of()));
+
+            final Optional<HashCode> key = CacheTasks.getResolutionKey(a, DependencyLocks.of(), ImmutableList.of(cookbook), "async");
+
+            assertEquals(key, CacheTasks.getResolutionKey(a, DependencyLocks.of(), ImmutableList.of(cookbook), "async"));
+            assertNotEquals(key, CacheTasks.getResolutionKey(b, DependencyLocks.of(), ImmutableList.of(cookbook), "async"));
+            assertNotEquals(key, CacheTasks.getResolutionKey(a, DependencyLocks.of(), ImmutableList.of(cookbook), "greedy"));
+
+            git.commit().setMessage("Another commit").call();
+
+            assertNotEquals(key, CacheTasks.getResolutionKey(a, DependencyLocks.of(), ImmutableList.of(cookbook), "async"));
+        } finally {
+            MoreFiles.deleteRecursively(cookbook, RecursiveDeleteOption.ALLOW_INSECURE);
+        }
+    }
+
+    private static ResolvedDependency lock(final String commit, final int version) {
+        return ResolvedDependency.of(
+            Either.left(GitCommit.of("https://github.com/org/example/commit", commit)),
+            Optional.empty(),
+            Optional.empty(),
+            ImmutableList.of(),
+            Optional.of(SemanticVersion.of(version)));
+    }
+
+    @Test
+    public void resolutionKeyDependsOnKeptLocks() throws Exception {
+
+        final Path cookbook = Files.createTempDirectory("buckaroo-cookbook");
+
+        try (final Git git = Git.init().setDirectory(cookbook.toFile()).call()) {
+
+            git.commit().setMessage("Initial commit").call();
+
+            final RecipeIdentifier a = RecipeIdentifier.of("org", "example-a");
+            final RecipeIdentifier b = RecipeIdentifier.of("org", "example-b");
+
+            final DependencyGroup dependencies = DependencyGroup.of(ImmutableMap.of(a, AnySemanticVersion.of()));
+
+            final Optional<HashCode> key = CacheTasks.getResolutionKey(
+                dependencies, DependencyLocks.of(), ImmutableList.of(cookbook), "async");
+
+            final Optional<HashCode> seeded = CacheTasks.getResolutionKey(
+                dependencies, DependencyLocks.of(ImmutableMap.of(a, lock("aa01f", 1))), ImmutableList.of(cookbook), "async");
+
+            // Locks that the resolution cannot start from do not change the key
+            final Optional<HashCode> unrelated = CacheTasks.getResolutionKey(
+                dependencies, DependencyLocks.of(ImmutableMap.of(b, lock("bb02f", 2))), ImmutableList.of(cookbook), "async");
+
+            assertNotEquals(key, seeded);
+            assertNotEquals(seeded, CacheTasks.getResolutionKey(
+                dependencies, DependencyLocks.of(ImmutableMap.of(a, lock("aa03f", 3))), ImmutableList.of(cookbook), "async"));
+            assertEquals(key, unrelated);
+        } finally {
+            MoreFiles.deleteRecursively(cookbook, RecursiveDeleteOption.ALLOW_INSECURE);
+        }
+    }
+
+    private static byte[] content() {
+        final byte[] content = new byte[64 * 1024];
+        new Random(7).nextBytes(content);
+        return content;
+    }
+
+    @Test
+    public void downloadToCacheResumesPartFiles() throws Exception {
+
+        final FileSystem fs = Jimfs.newFileSystem();
+        final byte[] content = content();
+
+        try (final RangeServer server = RangeServer.of("/library.zip", content, true)) {
+
+            final RemoteFile file = RemoteFile.of(server.url(), Hashing.sha256().hashBytes(content));
+            final Path target = CacheTasks.getCachePath(fs, file);
+            final Path part = DownloadTask.getPartPath(target);
+
+            Files.createDirectories(part.getParent());
+            Files.write(part, Arrays.copyOf(content, content.length / 2));
+
+            CacheTasks.downloadToCache(fs, file).blockingSubscribe();
+
+            assertArrayEquals(content, Files.readAllBytes(target));
+            assertFalse(Files.exists(part));
+            assertEquals(content.length - content.length / 2, server.sent());
+        }
+    }
+
+    @Test
+    public void downloadToCacheRestartsWithoutRanges() throws Exception {
+
+        final FileSystem fs = Jimfs.newFileSystem();
+        final byte[] content = content();
+
+        try (final RangeServer server = RangeServer.of("/library.zip", content, false)) {
+
+            final RemoteFile file = RemoteFile.of(server.url(), Hashing.sha256().hashBytes(content));
+            final Path target = CacheTasks.getCachePath(fs, file);
+            final Path part = DownloadTask.getPartPath(target);
+
+            Files.createDirectories(part.getParent());
+            Files.write(part, Arrays.copyOf(content, content.length / 2));
+
+            CacheTasks.downloadToCache(fs, file).blockingSubscribe();
+
+            assertArrayEquals(content, Files.readAllBytes(target));
+            assertFalse(Files.exists(part));
+            assertEquals(content.length, server.sent());
+        }
+    }
+
+    @Test
+    public void downloadToCacheRestartsCorruptPartFiles() throws Exception {
+
+        final FileSystem fs = Jimfs.newFileSystem();
+        final byte[] content = content();
+
+        try (final RangeServer server = RangeServer.of("/library.zip", content, true)) {
+
+            final RemoteFile file = RemoteFile.of(server.url(), Hashing.sha256().hashBytes(content));
+            final Path target = CacheTasks.getCachePath(fs, file);
+            final Path part = DownloadTask.getPartPath(target);
+
+            Files.createDirectories(part.getParent());
+            Files.write(part, new byte[content.length / 2]);
+
+            CacheTasks.downloadToCache(fs, file).blockingSubscribe();
+
+            assertArrayEquals(content, Files.readAllBytes(target));
+            assertFalse(Files.exists(part));
+        }
+    }
+
+    @Test
+    public void downloadToCacheKeepsMismatchesOutOfTheCache() throws Exception {
+
+        final FileSystem fs = Jimfs.newFileSystem();
+        final byte[] content = content();
+
+        try (final RangeServer server = RangeServer.of("/library.zip", content, true)) {
+
+            final RemoteFile file = RemoteFile.of(server.url(), Hashing.sha256().hashString("other", Charsets.UTF_8));
+            final Path target = CacheTasks.getCachePath(fs, file);
+
+            final Throwable error = CacheTasks.downloadToCache(fs, file)
+                .ignoreElements()
+                .blockingGet();
+
+            assertTrue(error instanceof HashMismatchException);
+            assertFalse(Files.exists(target));
+            assertFalse(Files.exists(DownloadTask.getPartPath(target)));
+        }
+    }
+
+    @Test
+    public void downloadToCacheSharesConcurrentDownloads() throws Exception {
+
+        final FileSystem fs = Jimfs.newFileSystem();
+        final byte[] content = content();
+
+        try (final RangeServer server = RangeServer.of("/library.zip", content, true)) {
+
+            final RemoteFile file = RemoteFile.of(server.url(), Hashing.sha256().hashBytes(content));
+
+            Observable.merge(
+                CacheTasks.downloadToCache(fs, file),
+                CacheTasks.downloadToCache(fs, file),
+                CacheTasks.downloadToCache(fs, file))
+                .blockingSubscribe();
+
+            assertArrayEquals(content, Files.readAllBytes(CacheTasks.getCachePath(fs, file)));
+            assertEquals(content.length, server.sent());
+        }
+    }
+}
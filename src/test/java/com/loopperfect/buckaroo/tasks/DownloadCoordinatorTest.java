@@ -0,0 +1,90 @@
+package com.loopperfect.buckaroo.tasks;
+
+import com.google.common.jimfs.Jimfs;
+import com.loopperfect.buckaroo.Event;
+import io.reactivex.Notification;
+import io.reactivex.Observable;
+import org.junit.Test;
+
+import java.nio.file.FileSystem;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public final class DownloadCoordinatorTest {
+
+    private static Observable<Event> slowDownload(final AtomicInteger started) {
+        return Observable.defer(() -> {
+            started.incrementAndGet();
+            return Observable.<Event>just(DownloadProgress.of(0, 2), DownloadProgress.of(2, 2))
+                .delay(100, TimeUnit.MILLISECONDS);
+        });
+    }
+
+    @Test
+    public void concurrentRequestsShareOneTransfer() throws Exception {
+
+        final FileSystem fs = Jimfs.newFileSystem();
+        final Path target = fs.getPath("/cache/archive.zip");
+        final DownloadCoordinator coordinator = DownloadCoordinator.of();
+        final AtomicInteger started = new AtomicInteger();
+
+        final List<Event> events = Observable.merge(
+            coordinator.download(target, () -> slowDownload(started)),
+            coordinator.download(target, () -> slowDownload(started)))
+            .toList()
+            .blockingGet();
+
+        assertEquals(1, started.get());
+        assertEquals(4, events.size());
+        assertTrue(events.stream().allMatch(x -> x instanceof DownloadProgress));
+    }
+
+    @Test
+    public void laterRequestsStartAgain() throws Exception {
+
+        final FileSystem fs = Jimfs.newFileSystem();
+        final Path target = fs.getPath("/cache/archive.zip");
+        final DownloadCoordinator coordinator = DownloadCoordinator.of();
+        final AtomicInteger started = new AtomicInteger();
+
+        coordinator.download(target, () -> slowDownload(started)).blockingSubscribe();
+        coordinator.download(target, () -> slowDownload(started)).blockingSubscribe();
+        coordinator.download(fs.getPath("/cache/other.zip"), () -> slowDownload(started)).blockingSubscribe();
+
+        assertEquals(3, started.get());
+    }
+
+    @Test
+    public void concurrentRequestsShareFailures() throws Exception {
+
+        final FileSystem fs = Jimfs.newFileSystem();
+        final Path target = fs.getPath("/cache/archive.zip");
+        final DownloadCoordinator coordinator = DownloadCoordinator.of();
+        final AtomicInteger started = new AtomicInteger();
+
+        final Observable<Event> failing = Observable.defer(() -> {
+            started.incrementAndGet();
+            return Observable.<Event>error(new Exception("Connection reset"))
+                .delay(100, TimeUnit.MILLISECONDS, true);
+        });
+
+        final Throwable first = coordinator.download(target, () -> failing).ignoreElements().blockingGet();
+
+        final List<Throwable> errors = Observable.merge(
+            coordinator.download(target, () -> failing).materialize(),
+            coordinator.download(target, () -> failing).materialize())
+            .filter(Notification::isOnError)
+            .map(Notification::getError)
+            .toList()
+            .blockingGet();
+
+        assertEquals("Connection reset", first.getMessage());
+        assertEquals(2, errors.size());
+        assertEquals(2, started.get());
+    }
+}
@@ -0,0 +1,120 @@
+package com.loopperfect.buckaroo.tasks;
+
+import com.google.common.base.Preconditions;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.Arrays;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Serves a single file over local HTTP for tests, counting the bytes sent,
+ * and honouring range requests only if asked to.
+ * The server handles requests on several threads, so that ranges can be served in parallel.
+ */
+final class RangeServer implements AutoCloseable {
+
+    private final HttpServer server;
+    private final String path;
+    private final AtomicLong sent;
+    private final AtomicInteger partials;
+
+    private RangeServer(final HttpServer server, final String path, final AtomicLong sent, final AtomicInteger partials) {
+        this.server = Preconditions.checkNotNull(server);
+        this.path = Preconditions.checkNotNull(path);
+        this.sent = Preconditions.checkNotNull(sent);
+        this.partials = Preconditions.checkNotNull(partials);
+    }
+
+    public URL url() throws MalformedURLException {
+        return new URL("http://127.0.0.1:" + server.getAddress().getPort() + path);
+    }
+
+    public long sent() {
+        return sent.get();
+    }
+
+    // The number of range requests that were answered with part of the file
+    public int partials() {
+        return partials.get();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+
+    private static void handle(final HttpExchange exchange, final byte[] content, final boolean ranges, final AtomicLong sent, final AtomicInteger partials) throws IOException {
+
+        if (ranges) {
+            exchange.getResponseHeaders().set("Accept-Ranges", "bytes");
+        }
+
+        if (exchange.getRequestMethod().equalsIgnoreCase("HEAD")) {
+            exchange.getResponseHeaders().set("Content-Length", Integer.toString(content.length));
+            exchange.sendResponseHeaders(200, -1);
+            exchange.close();
+            return;
+        }
+
+        final String range = exchange.getRequestHeaders().getFirst("Range");
+
+        final byte[] body;
+
+        if (ranges && range != null) {
+
+            final String[] bounds = range.substring("bytes=".length()).split("-", -1);
+            final int first = Integer.parseInt(bounds[0]);
+            final int last = bounds[1].isEmpty() ? content.length - 1 : Integer.parseInt(bounds[1]);
+
+            if (first >= content.length) {
+                exchange.getResponseHeaders().set("Content-Range", "bytes */" + content.length);
+                exchange.sendResponseHeaders(416, -1);
+                exchange.close();
+                return;
+            }
+
+            body = Arrays.copyOfRange(content, first, last + 1);
+            exchange.getResponseHeaders().set(
+                "Content-Range", "bytes " + first + "-" + last + "/" + content.length);
+            exchange.sendResponseHeaders(206, body.length);
+            partials.incrementAndGet();
+        } else {
+            body = content;
+            exchange.sendResponseHeaders(200, body.length);
+        }
+
+        sent.addAndGet(body.length);
+
+        try (final OutputStream output = exchange.getResponseBody()) {
+            output.write(body);
+        }
+    }
+
+    public static RangeServer of(final String path, final byte[] content, final boolean ranges) throws IOException {
+
+        Preconditions.checkNotNull(path);
+        Preconditions.checkNotNull(content);
+
+        final AtomicLong sent = new AtomicLong();
+        final AtomicInteger partials = new AtomicInteger();
+        final HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+
+        server.setExecutor(Executors.newCachedThreadPool(runnable -> {
+            final Thread thread = new Thread(runnable);
+            thread.setDaemon(true);
+            return thread;
+        }));
+        server.createContext(path, exchange -> handle(exchange, content, ranges, sent, partials));
+        server.start();
+
+        return new RangeServer(server, path, sent, partials);
+    }
+}
@@ -0,0 +1,147 @@
+package com.loopperfect.buckaroo.tasks;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.jimfs.Jimfs;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.file.FileSystem;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.Random;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public final class RemoteZipReaderTest {
+
+    private static final byte[] project = "{ \"name\": \"example\" }".getBytes(Charsets.UTF_8);
+
+    private static byte[] archive() throws Exception {
+
+        final byte[] filler = new byte[1024 * 1024];
+        new Random(42).nextBytes(filler);
+
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        try (final ZipOutputStream zipOutputStream = new ZipOutputStream(bytes)) {
+
+            zipOutputStream.putNextEntry(new ZipEntry("example-abc/library.bin"));
+            zipOutputStream.write(filler);
+            zipOutputStream.closeEntry();
+
+            zipOutputStream.putNextEntry(new ZipEntry("example-abc/buckaroo.json"));
+            zipOutputStream.write(project);
+            zipOutputStream.closeEntry();
+        }
+
+        return bytes.toByteArray();
+    }
+
+    @Test
+    public void readsOnlyTheEntriesThatAreNeeded() throws Exception {
+
+        final FileSystem fs = Jimfs.newFileSystem();
+        final byte[] archive = archive();
+
+        try (final RangeServer server = RangeServer.of("/archive.zip", archive, true)) {
+            final URL url = server.url();
+            final Path fallbackPath = fs.getPath("/cache/archive.zip");
+
+            final ImmutableMap<String, byte[]> entries = RemoteZipReader.readEntries(
+                url, ImmutableSet.of("example-abc/buckaroo.json", "example-abc/BUCK"), fallbackPath)
+                .result()
+                .blockingGet();
+
+            assertEquals(ImmutableSet.of("example-abc/buckaroo.json"), entries.keySet());
+            assertArrayEquals(project, entries.get("example-abc/buckaroo.json"));
+            assertTrue(server.sent() < archive.length / 4);
+            assertFalse(Files.exists(fallbackPath));
+        }
+    }
+
+    @Test
+    public void fallsBackToAFullDownload() throws Exception {
+
+        final FileSystem fs = Jimfs.newFileSystem();
+        final byte[] archive = archive();
+
+        try (final RangeServer server = RangeServer.of("/archive.zip", archive, false)) {
+            final URL url = server.url();
+            final Path fallbackPath = fs.getPath("/cache/archive.zip");
+
+            final byte[] entry = RemoteZipReader.readEntry(url, "example-abc/buckaroo.json", fallbackPath)
+                .result()
+                .blockingGet()
+                .get();
+
+            assertArrayEquals(project, entry);
+            assertEquals(archive.length, server.sent());
+            assertArrayEquals(archive, Files.readAllBytes(fallbackPath));
+        }
+    }
+
+    @Test
+    public void readsNothingUsingRangesWithoutRangeSupport() throws Exception {
+
+        final byte[] archive = archive();
+
+        try (final RangeServer server = RangeServer.of("/archive.zip", archive, false)) {
+
+            final Optional<ImmutableMap<String, byte[]>> entries = RemoteZipReader.readEntriesUsingRanges(
+                server.url(), ImmutableSet.of("example-abc/buckaroo.json"))
+                .result()
+                .blockingGet();
+
+            assertFalse(entries.isPresent());
+            assertEquals(0, server.sent());
+        }
+    }
+
+    @Test
+    public void fallsBackWhenHeadIsRejected() throws Exception {
+
+        final FileSystem fs = Jimfs.newFileSystem();
+        final byte[] archive = archive();
+        final HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+
+        server.createContext("/archive.zip", exchange -> {
+            if (exchange.getRequestMethod().equalsIgnoreCase("HEAD")) {
+                exchange.sendResponseHeaders(405, -1);
+                exchange.close();
+                return;
+            }
+            exchange.sendResponseHeaders(200, archive.length);
+            try (final OutputStream output = exchange.getResponseBody()) {
+                output.write(archive);
+            }
+        });
+        server.start();
+
+        try {
+            final URL url = new URL("http://127.0.0.1:" + server.getAddress().getPort() + "/archive.zip");
+            final Path fallbackPath = fs.getPath("/cache/archive.zip");
+
+            final byte[] entry = RemoteZipReader.readEntry(url, "example-abc/buckaroo.json", fallbackPath)
+                .result()
+                .blockingGet()
+                .get();
+
+            assertArrayEquals(project, entry);
+            assertArrayEquals(archive, Files.readAllBytes(fallbackPath));
+        } finally {
+            server.stop(0);
+        }
+    }
+}
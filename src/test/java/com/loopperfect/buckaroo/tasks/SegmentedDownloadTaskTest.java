@@ -0,0 +1,153 @@
+package com.loopperfect.buckaroo.tasks;
+
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+import com.google.common.jimfs.Jimfs;
+import com.loopperfect.buckaroo.Either;
+import org.junit.Test;
+
+import java.nio.file.FileSystem;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public final class SegmentedDownloadTaskTest {
+
+    private static byte[] content() {
+        final byte[] content = new byte[1024 * 1024 + 7];
+        new Random(23).nextBytes(content);
+        return content;
+    }
+
+    @Test
+    public void downloadsLargeFilesInSegments() throws Exception {
+
+        final FileSystem fs = Jimfs.newFileSystem();
+        final byte[] content = content();
+        final Path target = fs.getPath("/cache/archive.zip");
+
+        try (final RangeServer server = RangeServer.of("/archive.zip", content, true)) {
+
+            final SharedHttpClient client = SharedHttpClient.of(SharedHttpClient.builder().build(), 6);
+
+            final List<Either<DownloadProgress, HashCode>> events = SegmentedDownloadTask.download(
+                server.url(), target, client, 64 * 1024, 4)
+                .toObservable()
+                .toList()
+                .blockingGet();
+
+            final List<DownloadProgress> progress = events.stream()
+                .flatMap(x -> x.left().map(Stream::of).orElseGet(Stream::empty))
+                .collect(Collectors.toList());
+
+            assertArrayEquals(content, Files.readAllBytes(target));
+            assertEquals(4, server.partials());
+            assertEquals(content.length, server.sent());
+
+            for (int i = 1; i < progress.size(); i++) {
+                assertTrue(progress.get(i - 1).downloaded <= progress.get(i).downloaded);
+            }
+
+            assertEquals(DownloadProgress.of(content.length, content.length), progress.get(progress.size() - 1));
+            assertEquals(Either.right(Hashing.sha256().hashBytes(content)), events.get(events.size() - 1));
+        }
+    }
+
+    @Test
+    public void downloadsSmallFilesInOneStream() throws Exception {
+
+        final FileSystem fs = Jimfs.newFileSystem();
+        final byte[] content = content();
+        final Path target = fs.getPath("/cache/archive.zip");
+
+        try (final RangeServer server = RangeServer.of("/archive.zip", content, true)) {
+
+            final SharedHttpClient client = SharedHttpClient.of(SharedHttpClient.builder().build(), 6);
+
+            final HashCode sha256 = SegmentedDownloadTask.download(server.url(), target, client, content.length, 4)
+                .result()
+                .blockingGet();
+
+            assertEquals(Hashing.sha256().hashBytes(content), sha256);
+            assertArrayEquals(content, Files.readAllBytes(target));
+            assertEquals(0, server.partials());
+        }
+    }
+
+    @Test
+    public void downloadsInOneStreamWithoutRanges() throws Exception {
+
+        final FileSystem fs = Jimfs.newFileSystem();
+        final byte[] content = content();
+        final Path target = fs.getPath("/cache/archive.zip");
+
+        try (final RangeServer server = RangeServer.of("/archive.zip", content, false)) {
+
+            final SharedHttpClient client = SharedHttpClient.of(SharedHttpClient.builder().build(), 6);
+
+            final HashCode sha256 = SegmentedDownloadTask.download(server.url(), target, client, 64 * 1024, 4)
+                .result()
+                .blockingGet();
+
+            assertEquals(Hashing.sha256().hashBytes(content), sha256);
+            assertArrayEquals(content, Files.readAllBytes(target));
+            assertEquals(0, server.partials());
+            assertEquals(content.length, server.sent());
+        }
+    }
+
+    @Test
+    public void continuesInterruptedSegments() throws Exception {
+
+        final FileSystem fs = Jimfs.newFileSystem();
+        final byte[] content = content();
+        final Path target = fs.getPath("/cache/archive.zip");
+
+        final long quarter = content.length / 4;
+        final long[] firsts = { 0, content.length / 4, content.length * 2 / 4, content.length * 3 / 4 };
+        final long[] lasts = { firsts[1] - 1, firsts[2] - 1, firsts[3] - 1, content.length - 1 };
+
+        // The first segment got half way, the second finished and the others never started
+        final long[] nexts = { quarter / 2, lasts[1] + 1, firsts[2], firsts[3] };
+
+        final byte[] partial = new byte[content.length];
+        System.arraycopy(content, 0, partial, 0, (int) nexts[0]);
+        System.arraycopy(content, (int) firsts[1], partial, (int) firsts[1], (int) (lasts[1] - firsts[1] + 1));
+
+        Files.createDirectories(target.getParent());
+        Files.write(target, partial);
+
+        final StringBuilder state = new StringBuilder().append(content.length).append('\n');
+        for (int i = 0; i < 4; i++) {
+            state.append(firsts[i]).append(' ').append(lasts[i]).append(' ').append(nexts[i]).append('\n');
+        }
+        Files.write(SegmentedDownloadTask.getStatePath(target), state.toString().getBytes());
+
+        assertTrue(SegmentedDownloadTask.isInterrupted(target));
+
+        try (final RangeServer server = RangeServer.of("/archive.zip", content, true)) {
+
+            final SharedHttpClient client = SharedHttpClient.of(SharedHttpClient.builder().build(), 6);
+
+            final HashCode sha256 = SegmentedDownloadTask.download(server.url(), target, client, 64 * 1024, 4)
+                .result()
+                .blockingGet();
+
+            final long skipped = nexts[0] + (lasts[1] - firsts[1] + 1);
+
+            assertEquals(Hashing.sha256().hashBytes(content), sha256);
+            assertArrayEquals(content, Files.readAllBytes(target));
+            assertEquals(3, server.partials());
+            assertEquals(content.length - skipped, server.sent());
+            assertFalse(Files.exists(SegmentedDownloadTask.getStatePath(target)));
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.loopperfect.buckaroo.tasks;
+
+import com.sun.net.httpserver.HttpServer;
+import io.reactivex.Observable;
+import io.reactivex.schedulers.Schedulers;
+import okhttp3.Request;
+import org.junit.Test;
+
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public final class SharedHttpClientTest {
+
+    @Test
+    public void limitsTheRequestsInFlightToEachHost() throws Exception {
+
+        final AtomicInteger inFlight = new AtomicInteger();
+        final AtomicInteger mostInFlight = new AtomicInteger();
+
+        final ExecutorService executor = Executors.newFixedThreadPool(8);
+        final HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+
+        server.setExecutor(executor);
+        server.createContext("/", exchange -> {
+            mostInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(100);
+            } catch (final InterruptedException ignored) {
+            }
+            inFlight.decrementAndGet();
+            final byte[] body = "ok".getBytes();
+            exchange.sendResponseHeaders(200, body.length);
+            try (final OutputStream output = exchange.getResponseBody()) {
+                output.write(body);
+            }
+        });
+        server.start();
+
+        try {
+            final SharedHttpClient client = SharedHttpClient.of(SharedHttpClient.builder().build(), 2);
+
+            final Request request = new Request.Builder()
+                .url("http://127.0.0.1:" + server.getAddress().getPort() + "/")
+                .build();
+
+            final List<String> bodies = Observable.range(0, 6)
+                .flatMap(i -> Observable.fromCallable(() -> client.execute(request, response -> response.body().string()))
+                    .subscribeOn(Schedulers.io()))
+                .toList()
+                .blockingGet();
+
+            assertEquals(6, bodies.size());
+            assertTrue(bodies.stream().allMatch("ok"::equals));
+            assertTrue(mostInFlight.get() <= 2);
+        } finally {
+            server.stop(0);
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void raisingTheLimitLetsWaitingRequestsThrough() throws Exception {
+
+        final CountDownLatch arrived = new CountDownLatch(2);
+        final CountDownLatch release = new CountDownLatch(1);
+
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        final HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+
+        server.setExecutor(executor);
+        server.createContext("/", exchange -> {
+            arrived.countDown();
+            try {
+                release.await();
+            } catch (final InterruptedException ignored) {
+            }
+            final byte[] body = "ok".getBytes();
+            exchange.sendResponseHeaders(200, body.length);
+            try (final OutputStream output = exchange.getResponseBody()) {
+                output.write(body);
+            }
+        });
+        server.start();
+
+        try {
+            final SharedHttpClient client = SharedHttpClient.of(SharedHttpClient.builder().build(), 1);
+
+            final Request request = new Request.Builder()
+                .url("http://127.0.0.1:" + server.getAddress().getPort() + "/")
+                .build();
+
+            final Observable<List<String>> bodies = Observable.range(0, 2)
+                .flatMap(i -> Observable.fromCallable(() -> client.execute(request, response -> response.body().string()))
+                    .subscribeOn(Schedulers.io()))
+                .toList()
+                .toObservable()
+                .cache();
+
+            bodies.subscribe();
+
+            // Only one request can reach the server until the limit is raised
+            assertFalse(arrived.await(200, TimeUnit.MILLISECONDS));
+
+            client.setMaxRequestsPerHost(2);
+
+            assertTrue(arrived.await(5, TimeUnit.SECONDS));
+
+            release.countDown();
+
+            assertEquals(2, bodies.blockingFirst().size());
+        } finally {
+            release.countDown();
+            server.stop(0);
+            executor.shutdownNow();
+        }
+    }
+}
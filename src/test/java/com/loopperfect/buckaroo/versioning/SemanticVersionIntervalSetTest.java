@@ -0,0 +1,70 @@
+package com.loopperfect.buckaroo.versioning;
+
+import com.loopperfect.buckaroo.SemanticVersion;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public final class SemanticVersionIntervalSetTest {
+
+    @Test
+    public void normalizes() throws Exception {
+
+        final SemanticVersionIntervalSet actual = SemanticVersionIntervalSet.of(
+            SemanticVersionInterval.of(SemanticVersion.of(3), SemanticVersion.of(4)),
+            SemanticVersionInterval.of(SemanticVersion.of(1), SemanticVersion.of(1, 0, 9)),
+            SemanticVersionInterval.of(SemanticVersion.of(1, 0, 10), SemanticVersion.of(2)),
+            SemanticVersionInterval.of(SemanticVersion.of(3, 5), SemanticVersion.of(3, 6)));
+
+        assertEquals(
+            SemanticVersionIntervalSet.of(
+                SemanticVersionInterval.of(SemanticVersion.of(1), SemanticVersion.of(2)),
+                SemanticVersionInterval.of(SemanticVersion.of(3), SemanticVersion.of(4))),
+            actual);
+    }
+
+    @Test
+    public void intersect() throws Exception {
+
+        final SemanticVersionIntervalSet a = BoundedSemanticVersion.atLeast(SemanticVersion.of(2)).toIntervalSet();
+        final SemanticVersionIntervalSet b = SemanticVersionRange.of(SemanticVersion.of(1), SemanticVersion.of(1, 9))
+            .toIntervalSet();
+        final SemanticVersionIntervalSet c = ExactSemanticVersion.of(
+            SemanticVersion.of(1, 5), SemanticVersion.of(2, 1), SemanticVersion.of(3)).toIntervalSet();
+
+        assertTrue(a.intersect(b).isEmpty());
+        assertEquals(
+            ExactSemanticVersion.of(SemanticVersion.of(2, 1), SemanticVersion.of(3)).toIntervalSet(),
+            a.intersect(c));
+        assertEquals(ExactSemanticVersion.of(SemanticVersion.of(1, 5)).toIntervalSet(), c.intersect(b));
+        assertEquals(c, AnySemanticVersion.of().toIntervalSet().intersect(c));
+    }
+
+    @Test
+    public void union() throws Exception {
+
+        final SemanticVersionIntervalSet a = BoundedSemanticVersion.atMost(SemanticVersion.of(2)).toIntervalSet();
+        final SemanticVersionIntervalSet b = BoundedSemanticVersion.atLeast(SemanticVersion.of(2, 0, 1)).toIntervalSet();
+
+        assertEquals(SemanticVersionIntervalSet.all(), a.union(b));
+        assertEquals(a, a.union(SemanticVersionIntervalSet.of()));
+    }
+
+    @Test
+    public void contains() throws Exception {
+
+        final SemanticVersionIntervalSet set = SemanticVersionIntervalSet.of(
+            SemanticVersionInterval.of(SemanticVersion.of(1), SemanticVersion.of(2)),
+            SemanticVersionInterval.of(SemanticVersion.of(4)),
+            SemanticVersionInterval.atLeast(SemanticVersion.of(6)));
+
+        assertTrue(set.contains(SemanticVersion.of(1, 4)));
+        assertTrue(set.contains(SemanticVersion.of(4)));
+        assertTrue(set.contains(SemanticVersion.of(100)));
+        assertFalse(set.contains(SemanticVersion.of(3)));
+        assertFalse(set.contains(SemanticVersion.of(4, 0, 1)));
+        assertFalse(set.contains(SemanticVersion.of(0, 9)));
+    }
+}